@@ -5,31 +5,40 @@ import android.content.Context;
 import androidx.annotation.Nullable;
 
 import org.jetbrains.annotations.NotNull;
-import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.harness.cfsdk.cloud.ICloud;
 import io.harness.cfsdk.cloud.analytics.AnalyticsManager;
+import io.harness.cfsdk.cloud.analytics.MetricsSpool;
+import io.harness.cfsdk.cloud.analytics.model.Analytics;
+import io.harness.cfsdk.cloud.cache.CacheStats;
 import io.harness.cfsdk.cloud.cache.CloudCache;
+import io.harness.cfsdk.cloud.cache.InstrumentedCloudCache;
 import io.harness.cfsdk.cloud.core.model.Evaluation;
-import io.harness.cfsdk.cloud.core.model.Variation;
 import io.harness.cfsdk.cloud.events.AuthCallback;
 import io.harness.cfsdk.cloud.events.AuthResult;
 import io.harness.cfsdk.cloud.events.EvaluationListener;
+import io.harness.cfsdk.cloud.events.TargetSwitchCallback;
+import io.harness.cfsdk.cloud.events.VariationCallback;
+import io.harness.cfsdk.cloud.evaluator.Evaluator;
 import io.harness.cfsdk.cloud.factories.CloudFactory;
 import io.harness.cfsdk.cloud.model.AuthInfo;
 import io.harness.cfsdk.cloud.model.Target;
@@ -40,9 +49,16 @@ import io.harness.cfsdk.cloud.oksse.model.SSEConfig;
 import io.harness.cfsdk.cloud.oksse.model.StatusEvent;
 import io.harness.cfsdk.cloud.polling.EvaluationPolling;
 import io.harness.cfsdk.cloud.repository.FeatureRepository;
+import io.harness.cfsdk.cloud.repository.FetchCallback;
+import io.harness.cfsdk.cloud.snapshot.EvaluationSnapshot;
+import io.harness.cfsdk.cloud.snapshot.SnapshotHolder;
+import io.harness.cfsdk.cloud.snapshot.TypedEvaluation;
 import io.harness.cfsdk.cloud.sse.SSEControlling;
 import io.harness.cfsdk.common.Destroyable;
+import io.harness.cfsdk.common.SdkScheduler;
 import io.harness.cfsdk.logging.CfLog;
+import io.harness.cfsdk.utils.CfUtils;
+import io.harness.cfsdk.utils.ShardedLruCache;
 
 /**
  * Main class used for any operation on SDK. Operations include, but not limited to, reading evaluations and
@@ -51,22 +67,30 @@ import io.harness.cfsdk.logging.CfLog;
  */
 public class CfClient implements Destroyable {
 
+    private static final String METRICS_SPOOL_DIR = "cf_metrics_spool";
+
     protected ICloud cloud;
-    protected Target target;
+    protected volatile Target target;
     protected static CfClient instance;
     protected boolean analyticsEnabled;
     protected NetworkInfoProviding networkInfoProvider;
 
     private AuthInfo authInfo;
+    private CloudCache cloudCache;
     private boolean useStream;
     private final String logTag;
     private final Executor executor;
     private final AtomicBoolean ready;
+    private final CacheStats cacheStats;
     private SSEControlling sseController;
     private CfConfiguration configuration;
     private final CloudFactory cloudFactory;
     private AnalyticsManager analyticsManager;
+    private File metricsSpoolDir;
     private FeatureRepository featureRepository;
+    private volatile SnapshotHolder snapshotHolder;
+    private volatile Evaluator evaluator;
+    private volatile ShardedLruCache<Target> targets;
     private EvaluationPolling evaluationPolling;
     private final Executor listenerUpdateExecutor;
     private final Set<EventsListener> eventsListenerSet;
@@ -75,10 +99,11 @@ public class CfClient implements Destroyable {
     {
 
         ready = new AtomicBoolean();
+        cacheStats = new CacheStats();
         logTag = CfClient.class.getSimpleName();
-        executor = Executors.newSingleThreadExecutor();
+        executor = SdkScheduler.getInstance().newSerialExecutor();
         evaluationListenerSet = new ConcurrentHashMap<>();
-        listenerUpdateExecutor = Executors.newSingleThreadExecutor();
+        listenerUpdateExecutor = SdkScheduler.getInstance().newSerialExecutor();
         eventsListenerSet = Collections.synchronizedSet(new LinkedHashSet<>());
     }
 
@@ -104,18 +129,20 @@ public class CfClient implements Destroyable {
 
                 if (networkInfoProvider.isNetworkAvailable()) {
 
-                    this.featureRepository.getAllEvaluations(
-
-                            environmentID,
-                            target.getIdentifier(),
-                            cluster
-                    );
+                    reloadEvaluations(environmentID, cluster, false);
                     evaluationPolling.start(this::reschedule);
                 }
                 break;
 
             case EVALUATION_CHANGE:
 
+                if (configuration.isLocalEvaluationEnabled()) {
+
+                    // Reload the configurations, the changed flags are dispatched by the diff:
+                    reloadEvaluations(environmentID, cluster, false);
+                    break;
+                }
+
                 Evaluation evaluation = statusEvent.extractPayload();
                 Evaluation e = featureRepository.getEvaluation(
 
@@ -128,11 +155,17 @@ public class CfClient implements Destroyable {
                 statusEvent = new StatusEvent(statusEvent.getEventType(), e);
                 notifyListeners(e);
 
+                loadFlagOfOtherTargets(evaluation.getFlag());
                 break;
             case EVALUATION_REMOVE:
 
                 Evaluation eval = statusEvent.extractPayload();
                 featureRepository.remove(authInfo.getEnvironmentIdentifier(), target.getIdentifier(), eval.getFlag());
+
+                for (final Target other : getOtherTargets()) {
+
+                    featureRepository.remove(environmentID, other.getIdentifier(), eval.getFlag());
+                }
                 break;
         }
         sendEvent(statusEvent);
@@ -185,6 +218,206 @@ public class CfClient implements Destroyable {
         });
     }
 
+    private void notifyListeners(List<Evaluation> evaluations) {
+
+        for (final Evaluation evaluation : evaluations) {
+
+            notifyListeners(evaluation);
+        }
+    }
+
+    /**
+     * Reload all evaluations and dispatch only what has changed since the previous snapshot: each changed,
+     * added or removed flag to its {@link EvaluationListener}s and the reloaded list as
+     * {@link StatusEvent.EVENT_TYPE#EVALUATION_RELOAD}. A reload that changes nothing dispatches nothing.
+     * <p>
+     * The additional targets are reloaded in the same pass, sharing the connection and, with local evaluation,
+     * the flag configurations. Their changes are not dispatched, listeners observe the main target only.
+     *
+     * @param environmentID Environment identifier.
+     * @param cluster       Cluster identifier.
+     * @param initial       Initial load, the reload event is sent even if the cached evaluations are up to date.
+     */
+    private void reloadEvaluations(
+
+            final String environmentID,
+            final String cluster,
+            final boolean initial
+    ) {
+
+        final Target mainTarget = target;
+        final SnapshotHolder holder = attachSnapshot(environmentID, mainTarget);
+        final EvaluationSnapshot previous = holder.get();
+
+        final Evaluator current = configuration.isLocalEvaluationEnabled() ?
+                featureRepository.getEvaluator(environmentID, cluster) : null;
+
+        evaluator = current;
+
+        final List<Evaluation> evaluations = loadEvaluations(environmentID, cluster, mainTarget, current);
+
+        for (final Target other : getOtherTargets()) {
+
+            loadEvaluations(environmentID, cluster, other, current);
+        }
+
+        final EvaluationSnapshot reloaded = holder.get();
+        if (reloaded != previous) {
+
+            notifyListeners(reloaded.diff(previous));
+
+        } else if (!initial) {
+
+            CfLog.OUT.v(logTag, "Evaluations reloaded, no changes");
+            return;
+        }
+
+        sendEvent(new StatusEvent(StatusEvent.EVENT_TYPE.EVALUATION_RELOAD, evaluations));
+    }
+
+    /**
+     * Load all evaluations for the target. With local evaluation enabled the flags are evaluated on the device,
+     * the server side evaluations are used only if the flag configurations have never been loaded.
+     *
+     * @param evaluator Evaluator to use, null if local evaluation is disabled or not available.
+     */
+    private List<Evaluation> loadEvaluations(
+
+            final String environmentID,
+            final String cluster,
+            final Target loadTarget,
+            @Nullable final Evaluator evaluator
+    ) {
+
+        if (configuration.isLocalEvaluationEnabled()) {
+
+            if (evaluator != null) {
+
+                return featureRepository.evaluateAll(environmentID, loadTarget, evaluator);
+            }
+            CfLog.OUT.w(logTag, "Flag configurations not available, using the server evaluations");
+        }
+
+        return featureRepository.getAllEvaluations(environmentID, loadTarget.getIdentifier(), cluster);
+    }
+
+    /**
+     * Load the evaluations of an additional target in the background. With local evaluation enabled the
+     * flag configurations of the last reload are reused, so no request is made.
+     */
+    private void loadTarget(final Target otherTarget) {
+
+        try {
+
+            executor.execute(() -> {
+
+                final AuthInfo info = authInfo;
+                if (!ready.get() || info == null) {
+
+                    return;
+                }
+
+                final String environmentID = info.getEnvironmentIdentifier();
+                final String cluster = info.getCluster();
+
+                loadEvaluations(environmentID, cluster, otherTarget, getLatestEvaluator(environmentID, cluster));
+                CfLog.OUT.v(logTag, "Additional target loaded: " + otherTarget.getIdentifier());
+            });
+
+        } catch (RejectedExecutionException e) {
+
+            CfLog.OUT.e(logTag, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fetch a changed flag for the additional targets in the background, so the stream thread does not
+     * wait for a request per target.
+     */
+    private void loadFlagOfOtherTargets(final String flag) {
+
+        final List<Target> others = getOtherTargets();
+        if (others.isEmpty()) {
+
+            return;
+        }
+
+        try {
+
+            executor.execute(() -> {
+
+                final AuthInfo info = authInfo;
+                if (!ready.get() || info == null) {
+
+                    return;
+                }
+
+                for (final Target other : others) {
+
+                    featureRepository.getEvaluation(
+
+                            info.getEnvironmentIdentifier(),
+                            other.getIdentifier(),
+                            flag,
+                            info.getCluster()
+                    );
+                }
+            });
+
+        } catch (RejectedExecutionException e) {
+
+            CfLog.OUT.e(logTag, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Evaluator of the last reload, loaded now if there has been none. Null if local evaluation
+     * is disabled or not available.
+     */
+    @Nullable
+    private Evaluator getLatestEvaluator(final String environmentID, final String cluster) {
+
+        Evaluator current = evaluator;
+        if (current == null && configuration.isLocalEvaluationEnabled()) {
+
+            current = featureRepository.getEvaluator(environmentID, cluster);
+            evaluator = current;
+        }
+        return current;
+    }
+
+    /**
+     * Make the snapshot of the target the active one, unless the main target has been switched in the meantime.
+     * The active snapshot is pinned in the repository, as the variation methods read it without going through
+     * the repository, it must be the one the updates are published to.
+     *
+     * @return Snapshot holder of the target.
+     */
+    private synchronized SnapshotHolder attachSnapshot(final String environmentID, final Target mainTarget) {
+
+        if (target != mainTarget) {
+
+            return featureRepository.getSnapshot(environmentID, mainTarget.getIdentifier());
+        }
+
+        final SnapshotHolder holder = featureRepository.pinSnapshot(environmentID, mainTarget.getIdentifier());
+        snapshotHolder = holder;
+        return holder;
+    }
+
+    /**
+     * @return Additional targets evaluated by the client, the main target excluded.
+     */
+    private List<Target> getOtherTargets() {
+
+        final ShardedLruCache<Target> known = targets;
+        if (known == null) {
+
+            return Collections.emptyList();
+        }
+        return known.values();
+    }
+
     private void notifyListeners(Evaluation evaluation) {
 
         if (evaluationListenerSet.containsKey(evaluation.getFlag())) {
@@ -210,19 +443,27 @@ public class CfClient implements Destroyable {
                     boolean success = cloud.initialize();
                     if (success) {
 
-                        ready.set(true);
                         this.authInfo = cloud.getAuthInfo();
+                        attachSnapshot(authInfo.getEnvironmentIdentifier(), target);
+                        ready.set(true);
 
                         if (analyticsEnabled) {
 
-                            final String environmentID = authInfo.getEnvironment();
-                            final String cluster = authInfo.getCluster();
+                            if (analyticsManager != null) {
+
+                                // Keep the counts and the metrics client, only the token is new:
+                                analyticsManager.setAuthToken(cloud.getAuthToken());
 
-                            this.analyticsManager.destroy();
-                            this.analyticsManager = getAnalyticsManager(
+                            } else {
 
-                                    configuration, environmentID, cluster
-                            );
+                                final String environmentID = authInfo.getEnvironment();
+                                final String cluster = authInfo.getCluster();
+
+                                this.analyticsManager = getAnalyticsManager(
+
+                                        configuration, environmentID, cluster
+                                );
+                            }
                         }
                     }
                 }
@@ -235,14 +476,7 @@ public class CfClient implements Destroyable {
                 final String environmentID = authInfo.getEnvironmentIdentifier();
                 final String cluster = authInfo.getCluster();
 
-                List<Evaluation> evaluations = this.featureRepository.getAllEvaluations(
-
-                        environmentID,
-                        target.getIdentifier(),
-                        cluster
-                );
-
-                sendEvent(new StatusEvent(StatusEvent.EVENT_TYPE.EVALUATION_RELOAD, evaluations));
+                reloadEvaluations(environmentID, cluster, false);
 
                 if (useStream) {
 
@@ -275,6 +509,12 @@ public class CfClient implements Destroyable {
 
             if (status == NetworkStatus.CONNECTED) {
                 reschedule();
+
+                final AnalyticsManager manager = analyticsManager;
+                if (manager != null) {
+
+                    manager.retryNow();
+                }
             } else {
                 evaluationPolling.stop();
             }
@@ -333,6 +573,7 @@ public class CfClient implements Destroyable {
         }
 
         setupNetworkInfo(context);
+        metricsSpoolDir = getMetricsSpoolDir(context, configuration);
         doInitialize(
 
                 apiKey,
@@ -462,8 +703,9 @@ public class CfClient implements Destroyable {
 
             executor.execute(() -> {
 
-                unregister();
+                unregister(true);
                 this.target = target;
+                this.targets = new ShardedLruCache<>(configuration.getTargetCacheSize());
                 this.cloud = cloudFactory.cloud(
 
                         configuration.getStreamURL(),
@@ -472,8 +714,21 @@ public class CfClient implements Destroyable {
                         target
                 );
 
-                featureRepository = cloudFactory.getFeatureRepository(cloud, cloudCache, networkInfoProvider);
-                evaluationPolling = cloudFactory.evaluationPolling(configuration.getPollingInterval(), TimeUnit.SECONDS);
+                this.cloudCache = new InstrumentedCloudCache(cloudCache, cacheStats);
+                featureRepository = cloudFactory.getFeatureRepository(
+
+                        cloud,
+                        this.cloudCache,
+                        networkInfoProvider,
+                        cacheStats
+                );
+                evaluator = null;
+                evaluationPolling = cloudFactory.evaluationPolling(
+
+                        configuration.getPollingInterval(),
+                        TimeUnit.SECONDS,
+                        configuration.getSchedulingJitterInMillis()
+                );
 
                 this.useStream = configuration.getStreamEnabled();
                 this.analyticsEnabled = configuration.isAnalyticsEnabled();
@@ -487,18 +742,12 @@ public class CfClient implements Destroyable {
                     final String environmentID = authInfo.getEnvironment();
                     final String cluster = authInfo.getCluster();
 
+                    attachSnapshot(authInfo.getEnvironmentIdentifier(), target);
                     ready.set(true);
 
                     if (networkInfoProvider.isNetworkAvailable()) {
 
-                        List<Evaluation> evaluations = featureRepository.getAllEvaluations(
-
-                                this.authInfo.getEnvironmentIdentifier(),
-                                target.getIdentifier(),
-                                cluster
-                        );
-
-                        sendEvent(new StatusEvent(StatusEvent.EVENT_TYPE.EVALUATION_RELOAD, evaluations));
+                        reloadEvaluations(authInfo.getEnvironmentIdentifier(), cluster, true);
 
                         if (useStream) {
 
@@ -547,8 +796,142 @@ public class CfClient implements Destroyable {
     }
 
     /**
-     * Register a listener to observe changes on a evaluation with given id. The change <strong>will not</strong> be triggered
-     * in case of reloading all evaluations, but only when single evaluation is changed.
+     * Load the evaluations of a target in the background, ahead of {@link #switchTarget}. The target is kept
+     * up to date with the main one, as the targets of {@link #boolVariation(Target, String, boolean)} are,
+     * so switching to it later is immediate.
+     *
+     * @param nextTarget Target to prefetch.
+     */
+    public void prefetchTarget(final Target nextTarget) {
+
+        final Target mainTarget = target;
+        final ShardedLruCache<Target> known = targets;
+        if (!ready.get() || known == null || mainTarget == null ||
+                nextTarget == null || !nextTarget.isValid() ||
+                nextTarget.getIdentifier().equals(mainTarget.getIdentifier())) {
+
+            return;
+        }
+
+        if (known.putIfAbsent(nextTarget.getIdentifier(), nextTarget) == null) {
+
+            loadTarget(nextTarget);
+        }
+    }
+
+    /**
+     * Switch the main target, for example on login or logout, without re-initializing the client.
+     * The authentication, connection, realtime updates and metrics are kept.
+     * <p>
+     * The evaluations of the new target are loaded in the background, unless it has been prefetched with
+     * {@link #prefetchTarget(Target)}, while the variation methods keep serving the current target. Once they
+     * are ready the active snapshot is swapped in a single step, so no variation call observes the defaults
+     * or a mix of both targets. The flags that differ between the targets are dispatched to their
+     * {@link EvaluationListener}s and the evaluations of the new target as
+     * {@link StatusEvent.EVENT_TYPE#EVALUATION_RELOAD}.
+     * <p>
+     * Offline, the evaluations cached for the new target are used.
+     *
+     * @param nextTarget Target to switch to.
+     * @param callback   Receives the result of the switch, may be null.
+     */
+    public void switchTarget(final Target nextTarget, @Nullable final TargetSwitchCallback callback) {
+
+        if (nextTarget == null || !nextTarget.isValid()) {
+
+            CfLog.OUT.w(logTag, "Target switch ignored, the target is not valid");
+            onTargetSwitched(callback, nextTarget, false);
+            return;
+        }
+
+        try {
+
+            executor.execute(() -> {
+
+                final AuthInfo info = authInfo;
+                if (!ready.get() || info == null) {
+
+                    CfLog.OUT.w(logTag, "Target switch ignored, client is not ready");
+                    onTargetSwitched(callback, nextTarget, false);
+                    return;
+                }
+
+                final String environmentID = info.getEnvironmentIdentifier();
+                final String cluster = info.getCluster();
+
+                final ShardedLruCache<Target> known = targets;
+                final boolean prefetched = known != null && known.remove(nextTarget.getIdentifier()) != null;
+
+                // Pinned up front, so the holder the evaluations are loaded into is the one swapped in:
+                final SnapshotHolder holder = featureRepository.pinSnapshot(
+
+                        environmentID,
+                        nextTarget.getIdentifier()
+                );
+
+                if ((!prefetched || holder.get().isEmpty()) && networkInfoProvider.isNetworkAvailable()) {
+
+                    loadEvaluations(
+
+                            environmentID,
+                            cluster,
+                            nextTarget,
+                            getLatestEvaluator(environmentID, cluster)
+                    );
+                }
+
+                final EvaluationSnapshot previous;
+                final EvaluationSnapshot current;
+                synchronized (this) {
+
+                    final Target previousTarget = target;
+                    final SnapshotHolder previousHolder = snapshotHolder;
+                    previous = previousHolder != null ? previousHolder.get() : EvaluationSnapshot.EMPTY;
+                    current = holder.get();
+
+                    target = nextTarget;
+                    snapshotHolder = holder;
+
+                    if (previousTarget != null &&
+                            !previousTarget.getIdentifier().equals(nextTarget.getIdentifier())) {
+
+                        featureRepository.unpinSnapshot(environmentID, previousTarget.getIdentifier());
+                    }
+                }
+
+                CfLog.OUT.v(logTag, "Target switched: " + nextTarget.getIdentifier());
+
+                notifyListeners(current.diff(previous));
+
+                sendEvent(new StatusEvent(StatusEvent.EVENT_TYPE.EVALUATION_RELOAD, current.toEvaluationList()));
+
+                onTargetSwitched(callback, nextTarget, true);
+            });
+
+        } catch (RejectedExecutionException e) {
+
+            CfLog.OUT.e(logTag, e.getMessage(), e);
+            onTargetSwitched(callback, nextTarget, false);
+        }
+    }
+
+    private void onTargetSwitched(
+
+            @Nullable final TargetSwitchCallback callback,
+            final Target nextTarget,
+            final boolean success
+    ) {
+
+        if (callback != null) {
+
+            callback.onTargetSwitched(nextTarget, success);
+        }
+    }
+
+    /**
+     * Register a listener to observe changes on a evaluation with given id. The change is triggered when the single
+     * evaluation is changed, and when reloading all evaluations changes, adds or removes it. Reloads that do not
+     * affect the evaluation do not trigger the listener.
      * It is possible to register multiple observers for a single evaluatio.
      *
      * @param evaluationId Evaluation identifier we would like to observe.
@@ -593,150 +976,483 @@ public class CfClient implements Destroyable {
     }
 
     /**
-     * Retrieves single {@link Evaluation instance} based on provided id. If no such evaluation is found,
-     * returns one with provided default value.
+     * Retrieves single {@link TypedEvaluation instance} based on provided id. If no such evaluation is found,
+     * returns null so the caller can fall back to its default value.
+     * <p>
+     * Evaluations are read from the in-memory snapshot only, this method never performs network calls.
+     * The snapshot is kept up to date by the initial load, polling and realtime updates.
+     * A read of an existing evaluation does not allocate: the snapshot lookup is a plain map read and
+     * the metrics entry is prepared when the evaluation enters the snapshot.
      *
      * @param evaluationId Identifier of target evaluation
-     * @param defaultValue Default value to be used in case when evaluation is not found
-     * @return Evaluation for a given id
+     * @return Decoded evaluation for a given id or null
      */
-    private <T> Evaluation getEvaluationById(
+    @Nullable
+    private TypedEvaluation getEvaluationById(String evaluationId) {
 
-            String evaluationId,
-            String target,
-            T defaultValue
+        final SnapshotHolder holder = snapshotHolder;
+        if (!ready.get() || holder == null) {
+
+            return null;
+        }
+
+        final TypedEvaluation result = holder.get().get(evaluationId);
+
+        if (result == null) {
+
+            cacheStats.recordMiss();
+            CfLog.OUT.w(logTag, "Result is null, using the default value");
+            return null;
+        }
+
+        cacheStats.recordHit();
+        recordMetrics(result);
+        return result;
+    }
+
+    /**
+     * Retrieves single {@link TypedEvaluation instance} for an additional target. The main target is
+     * served by {@link #getEvaluationById(String)}.
+     * <p>
+     * Additional targets are identified by their identifier. A target used for the first time is loaded in
+     * the background and the default value applies until it completes, from then on it is reloaded together
+     * with the main target. Up to {@link CfConfiguration#getTargetCacheSize()} targets are kept, the least
+     * recently used ones are dropped first. As for the main target, reads never perform network calls.
+     *
+     * @param otherTarget  Target to evaluate for.
+     * @param evaluationId Identifier of target evaluation
+     * @return Decoded evaluation for a given id or null
+     */
+    @Nullable
+    private TypedEvaluation getEvaluationById(final Target otherTarget, final String evaluationId) {
+
+        final Target mainTarget = target;
+        if (otherTarget == null || mainTarget == null ||
+                CfUtils.Text.isEmpty(otherTarget.getIdentifier()) ||
+                otherTarget.getIdentifier().equals(mainTarget.getIdentifier())) {
+
+            return getEvaluationById(evaluationId);
+        }
+
+        final AuthInfo info = authInfo;
+        final ShardedLruCache<Target> known = targets;
+        if (!ready.get() || info == null || known == null) {
+
+            return null;
+        }
+
+        final SnapshotHolder holder = featureRepository.getSnapshot(
+
+                info.getEnvironmentIdentifier(),
+                otherTarget.getIdentifier()
+        );
+
+        if (known.putIfAbsent(otherTarget.getIdentifier(), otherTarget) == null) {
+
+            loadTarget(otherTarget);
+        }
+
+        final TypedEvaluation result = holder.get().get(evaluationId);
+
+        if (result == null) {
+
+            cacheStats.recordMiss();
+            CfLog.OUT.w(logTag, "Result is null, using the default value");
+            return null;
+        }
+
+        cacheStats.recordHit();
+        recordMetrics(otherTarget, result);
+        return result;
+    }
+
+    /**
+     * Retrieves single {@link TypedEvaluation instance} based on provided id without blocking the calling thread.
+     * <p>
+     * An evaluation present in the in-memory snapshot is delivered immediately, on the calling thread.
+     * Otherwise it is fetched in the background: all evaluations if none have been loaded yet, or just the
+     * requested one. Concurrent calls share the request in flight. If the evaluation can't be fetched,
+     * the callback receives null so the caller can fall back to its default value.
+     *
+     * @param evaluationId Identifier of target evaluation
+     * @param callback     Receives decoded evaluation for a given id or null
+     */
+    private void getEvaluationByIdAsync(
+
+            final String evaluationId,
+            final FetchCallback<TypedEvaluation> callback
     ) {
 
-        Evaluation result = new Evaluation();
+        final SnapshotHolder holder = snapshotHolder;
+        final AuthInfo info = authInfo;
+        final Target currentTarget = target;
 
-        if (ready.get()) {
+        if (!ready.get() || holder == null || info == null) {
+
+            callback.onFetched(null);
+            return;
+        }
+
+        final EvaluationSnapshot snapshot = holder.get();
+        final TypedEvaluation result = snapshot.get(evaluationId);
 
-            final String cluster = authInfo.getCluster();
-            final String identifier = authInfo.getEnvironmentIdentifier();
+        if (result != null) {
 
-            result = featureRepository.getEvaluation(
+            cacheStats.recordHit();
+            recordMetrics(result);
+            callback.onFetched(result);
+            return;
+        }
 
-                    identifier, target, evaluationId, cluster
+        cacheStats.recordMiss();
+        if (!networkInfoProvider.isNetworkAvailable()) {
+
+            CfLog.OUT.w(logTag, "Result is null, using the default value");
+            callback.onFetched(null);
+            return;
+        }
+
+        cacheStats.recordNetworkFetch();
+
+        if (snapshot.isEmpty()) {
+
+            featureRepository.getAllEvaluationsAsync(
+
+                    info.getEnvironmentIdentifier(),
+                    currentTarget.getIdentifier(),
+                    info.getCluster(),
+                    evaluations -> onFetchedById(holder, evaluationId, callback)
             );
 
         } else {
 
-            result.value(defaultValue)
-                    .flag(evaluationId);
+            featureRepository.getEvaluationAsync(
+
+                    info.getEnvironmentIdentifier(),
+                    currentTarget.getIdentifier(),
+                    evaluationId,
+                    info.getCluster(),
+                    evaluation -> onFetchedById(holder, evaluationId, callback)
+            );
         }
+    }
+
+    private void onFetchedById(
+
+            final SnapshotHolder holder,
+            final String evaluationId,
+            final FetchCallback<TypedEvaluation> callback
+    ) {
+
+        final TypedEvaluation result = holder.get().get(evaluationId);
 
         if (result == null) {
 
-            CfLog.OUT.w(logTag, "Result is null, creating the default one");
+            CfLog.OUT.w(logTag, "Result is null, using the default value");
+
+        } else {
 
-            result = new Evaluation()
-                    .value(defaultValue)
-                    .flag(evaluationId);
+            recordMetrics(result);
         }
+        callback.onFetched(result);
+    }
+
+    private void recordMetrics(final TypedEvaluation result) {
+
+        recordMetrics(this.target, result);
+    }
 
-        if (canPushToMetrics(result)) {
+    private void recordMetrics(final Target metricsTarget, final TypedEvaluation result) {
 
-            final Variation variation = new Variation();
-            variation.setName(evaluationId);
-            variation.setValue(String.valueOf(result));
-            variation.setIdentifier(result.getIdentifier());
+        if (metricsTarget.isValid() && canPushToMetrics(result.getEvaluation())) {
 
-            if (!analyticsManager.pushToQueue(this.target, evaluationId, variation)) {
+            if (!analyticsManager.pushToQueue(result.getAnalytics(metricsTarget))) {
 
                 CfLog.OUT.e(logTag, "Error adding into the metrics queue");
             }
         }
-
-        return result;
     }
 
     public boolean boolVariation(String evaluationId, boolean defaultValue) {
 
-        final Evaluation evaluation = getEvaluationById(
+        return toBoolean(getEvaluationById(evaluationId), defaultValue);
+    }
+
+    public String stringVariation(String evaluationId, String defaultValue) {
+
+        return toString(getEvaluationById(evaluationId), defaultValue);
+    }
+
+    public double numberVariation(String evaluationId, double defaultValue) {
+
+        return toNumber(getEvaluationById(evaluationId), defaultValue);
+    }
+
+    public JSONObject jsonVariation(String evaluationId, JSONObject defaultValue) {
+
+        return toJson(evaluationId, getEvaluationById(evaluationId), defaultValue);
+    }
+
+    /**
+     * Evaluates the flag for the given target instead of the one the client has been initialized with.
+     * All targets share the client's connection, polling, realtime updates and metrics.
+     * <p>
+     * A target used for the first time is loaded in the background, until then the default value is returned.
+     * See {@link CfConfiguration.Builder#targetCacheSize(int)} for the number of targets kept.
+     *
+     * @param target       Target to evaluate for.
+     * @param evaluationId Evaluation identifier.
+     * @param defaultValue Value to use if the evaluation is not available.
+     * @return Variation value.
+     */
+    public boolean boolVariation(Target target, String evaluationId, boolean defaultValue) {
+
+        return toBoolean(getEvaluationById(target, evaluationId), defaultValue);
+    }
+
+    /**
+     * @see #boolVariation(Target, String, boolean)
+     */
+    public String stringVariation(Target target, String evaluationId, String defaultValue) {
+
+        return toString(getEvaluationById(target, evaluationId), defaultValue);
+    }
+
+    /**
+     * @see #boolVariation(Target, String, boolean)
+     */
+    public double numberVariation(Target target, String evaluationId, double defaultValue) {
+
+        return toNumber(getEvaluationById(target, evaluationId), defaultValue);
+    }
+
+    /**
+     * @see #boolVariation(Target, String, boolean)
+     */
+    public JSONObject jsonVariation(Target target, String evaluationId, JSONObject defaultValue) {
+
+        return toJson(evaluationId, getEvaluationById(target, evaluationId), defaultValue);
+    }
+
+    /**
+     * Non-blocking variant of {@link #boolVariation(String, boolean)}. Served immediately from the
+     * in-memory snapshot, the evaluation is fetched in the background only if it is not there yet.
+     *
+     * @param evaluationId Evaluation identifier.
+     * @param defaultValue Value to use if the evaluation is not available.
+     * @param callback     Receives the variation value.
+     */
+    public void boolVariationAsync(
+
+            String evaluationId,
+            boolean defaultValue,
+            VariationCallback<Boolean> callback
+    ) {
+
+        getEvaluationByIdAsync(
 
                 evaluationId,
-                target.getIdentifier(),
-                defaultValue
+                result -> callback.onVariation(toBoolean(result, defaultValue))
         );
+    }
 
-        final Object value = evaluation.getValue();
-        if (value instanceof Boolean) {
+    /**
+     * Non-blocking variant of {@link #stringVariation(String, String)}.
+     *
+     * @see #boolVariationAsync(String, boolean, VariationCallback)
+     */
+    public void stringVariationAsync(
 
-            return (Boolean) value;
-        }
-        if (value instanceof String) {
+            String evaluationId,
+            String defaultValue,
+            VariationCallback<String> callback
+    ) {
 
-            return "true".equals(value);
-        }
-        return defaultValue;
+        getEvaluationByIdAsync(
+
+                evaluationId,
+                result -> callback.onVariation(toString(result, defaultValue))
+        );
     }
 
-    public String stringVariation(String evaluationId, String defaultValue) {
+    /**
+     * Non-blocking variant of {@link #numberVariation(String, double)}.
+     *
+     * @see #boolVariationAsync(String, boolean, VariationCallback)
+     */
+    public void numberVariationAsync(
 
-        return getEvaluationById(evaluationId, target.getIdentifier(), defaultValue).getValue();
+            String evaluationId,
+            double defaultValue,
+            VariationCallback<Double> callback
+    ) {
+
+        getEvaluationByIdAsync(
+
+                evaluationId,
+                result -> callback.onVariation(toNumber(result, defaultValue))
+        );
     }
 
-    public double numberVariation(String evaluationId, double defaultValue) {
+    /**
+     * Non-blocking variant of {@link #jsonVariation(String, JSONObject)}.
+     *
+     * @see #boolVariationAsync(String, boolean, VariationCallback)
+     */
+    public void jsonVariationAsync(
+
+            String evaluationId,
+            JSONObject defaultValue,
+            VariationCallback<JSONObject> callback
+    ) {
 
-        final Evaluation evaluation = getEvaluationById(
+        getEvaluationByIdAsync(
 
                 evaluationId,
-                target.getIdentifier(),
-                defaultValue
+                result -> callback.onVariation(toJson(evaluationId, result, defaultValue))
         );
+    }
 
-        final Object value = evaluation.getValue();
-        if (value instanceof Number) {
+    /**
+     * Resolves many flags in one pass. All flags are read from the same snapshot, so the results are
+     * consistent with each other, and the metrics for all of them are recorded with a single enqueue.
+     * <p>
+     * The type of each result follows the type of its default value: {@link Boolean}, {@link Double} for
+     * any {@link Number}, {@link String} or {@link JSONObject}. Flags with a null default value are resolved
+     * to their string value.
+     *
+     * @param defaults Flag identifiers mapped to the default values.
+     * @return Resolved values, read with the accessor matching the type of each default value.
+     */
+    public Variations variations(final Map<String, ?> defaults) {
+
+        final Map<String, Object> results = new LinkedHashMap<>(defaults.size() * 2);
+
+        if (!ready.get()) {
 
-            return ((Number) value).doubleValue();
+            for (final Map.Entry<String, ?> entry : defaults.entrySet()) {
+
+                results.put(entry.getKey(), resolve(entry.getKey(), null, entry.getValue()));
+            }
+            return new Variations(results);
         }
-        if (value instanceof String) {
 
-            final String strValue = (String) value;
-            try {
+        final SnapshotHolder holder = snapshotHolder;
+        final EvaluationSnapshot snapshot = holder != null ? holder.get() : EvaluationSnapshot.EMPTY;
 
-                return Double.parseDouble(strValue);
-            } catch (NumberFormatException e) {
+        List<Analytics> metrics = null;
+        for (final Map.Entry<String, ?> entry : defaults.entrySet()) {
 
-                CfLog.OUT.e(logTag, e.getMessage(), e);
+            final String evaluationId = entry.getKey();
+            final TypedEvaluation result = snapshot.get(evaluationId);
+
+            if (result != null) {
+
+                cacheStats.recordHit();
+
+            } else {
+
+                cacheStats.recordMiss();
             }
+
+            results.put(evaluationId, resolve(evaluationId, result, entry.getValue()));
+
+            if (result != null && canPushToMetrics(result.getEvaluation())) {
+
+                if (metrics == null) {
+
+                    metrics = new ArrayList<>(defaults.size());
+                }
+
+                metrics.add(result.getAnalytics(this.target));
+            }
+        }
+
+        if (metrics != null && !analyticsManager.pushToQueue(metrics)) {
+
+            CfLog.OUT.e(logTag, "Error adding into the metrics queue");
+        }
+
+        return new Variations(results);
+    }
+
+    private Object resolve(String evaluationId, @Nullable TypedEvaluation evaluation, Object defaultValue) {
+
+        if (defaultValue instanceof Boolean) {
+
+            return toBoolean(evaluation, (Boolean) defaultValue);
+        }
+        if (defaultValue instanceof Number) {
+
+            return toNumber(evaluation, ((Number) defaultValue).doubleValue());
+        }
+        if (defaultValue instanceof JSONObject) {
+
+            return toJson(evaluationId, evaluation, (JSONObject) defaultValue);
+        }
+        if (defaultValue == null || defaultValue instanceof String) {
+
+            return toString(evaluation, (String) defaultValue);
+        }
+        return toString(evaluation, defaultValue.toString());
+    }
+
+    private static boolean toBoolean(@Nullable TypedEvaluation evaluation, boolean defaultValue) {
+
+        if (evaluation != null && evaluation.isBoolean()) {
+
+            return evaluation.getBoolean();
         }
         return defaultValue;
     }
 
-    public JSONObject jsonVariation(String evaluationId, JSONObject defaultValue) {
+    private static String toString(@Nullable TypedEvaluation evaluation, String defaultValue) {
 
-        try {
+        if (evaluation != null) {
 
-            final Evaluation e = getEvaluationById(
+            return evaluation.getString();
+        }
+        return defaultValue;
+    }
 
-                    evaluationId,
-                    target.getIdentifier(),
-                    defaultValue
-            );
+    private static double toNumber(@Nullable TypedEvaluation evaluation, double defaultValue) {
 
-            if (e.getValue() == null) {
+        if (evaluation != null && evaluation.isNumber()) {
 
-                Map<String, Object> resultMap = new HashMap<>();
-                resultMap.put(evaluationId, null);
-                return new JSONObject(resultMap);
+            return evaluation.getNumber();
+        }
+        return defaultValue;
+    }
 
-            } else {
+    private static JSONObject toJson(
 
-                if (e.getValue() instanceof JSONObject) {
+            String evaluationId,
+            @Nullable TypedEvaluation evaluation,
+            JSONObject defaultValue
+    ) {
 
-                    return e.getValue();
-                }
+        if (evaluation == null) {
 
-                return new JSONObject((String) e.getValue());
+            if (defaultValue != null) {
+
+                return defaultValue;
             }
-        } catch (JSONException e) {
+            return getNullJson(evaluationId);
+        }
 
-            CfLog.OUT.e(logTag, e.getMessage(), e);
+        if (evaluation.isNull()) {
+
+            return getNullJson(evaluationId);
         }
-        return null;
+        return evaluation.getJson();
     }
 
+    private static JSONObject getNullJson(String evaluationId) {
+
+        Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put(evaluationId, null);
+        return new JSONObject(resultMap);
+    }
 
     /**
      * Adds new listener for various SDK events. See {@link StatusEvent.EVENT_TYPE} for possible types.
@@ -767,7 +1483,8 @@ public class CfClient implements Destroyable {
     /**
      * Clears the occupied resources and shut's down the sdk.
      * After calling this method, the {@link #initialize} must be called again. It will also
-     * remove any registered event listeners.
+     * remove any registered event listeners. The cached evaluations are kept, the pending
+     * cache writes are persisted before this method returns.
      */
     @Override
     public void destroy() {
@@ -777,7 +1494,8 @@ public class CfClient implements Destroyable {
             analyticsManager.destroy();
         }
 
-        unregister();
+        unregister(false);
+        flushCache();
 
         eventsListenerSet.clear();
         evaluationListenerSet.clear();
@@ -790,6 +1508,38 @@ public class CfClient implements Destroyable {
         instance = null;
     }
 
+    /**
+     * Counters of the flag reads served from the in-memory evaluations, of the ones that missed and of the
+     * network fetches and fallbacks, with the latencies of the cache reads and writes, of the cache storage
+     * and of the evaluation requests. The stats are kept across initializations
+     * of this client, {@link CacheStats#reset()} starts over.
+     *
+     * @return Live cache stats, never null.
+     */
+    public CacheStats getCacheStats() {
+
+        return cacheStats;
+    }
+
+    /**
+     * Persist the pending cache writes, for caches that delay them.
+     */
+    private void flushCache() {
+
+        final CloudCache cache = cloudCache;
+        if (cache instanceof Flushable) {
+
+            try {
+
+                ((Flushable) cache).flush();
+
+            } catch (IOException e) {
+
+                CfLog.OUT.e(logTag, "Cache flush failed", e);
+            }
+        }
+    }
+
     @NotNull
     protected AnalyticsManager getAnalyticsManager(
 
@@ -803,10 +1553,49 @@ public class CfClient implements Destroyable {
                 environmentID,
                 cluster,
                 cloud.getAuthToken(),
-                configuration
+                configuration,
+                getMetricsSpool(configuration, environmentID)
         );
     }
 
+    /**
+     * @return Directory of the spools for the metrics not sent in the app files, null if there is no place
+     * for it or spooling is disabled by the configuration.
+     */
+    @Nullable
+    private File getMetricsSpoolDir(
+
+            @Nullable final Context context,
+            @Nullable final CfConfiguration configuration
+    ) {
+
+        if (context == null || configuration == null || configuration.getMetricsSpoolMaxBytes() <= 0) {
+
+            return null;
+        }
+
+        final File filesDir = context.getFilesDir();
+        if (filesDir == null) {
+
+            return null;
+        }
+        return new File(filesDir, METRICS_SPOOL_DIR);
+    }
+
+    /**
+     * @return Spool for the metrics of the environment not sent, null if spooling is not available.
+     */
+    @Nullable
+    private MetricsSpool getMetricsSpool(final CfConfiguration configuration, final String environmentID) {
+
+        final File dir = metricsSpoolDir;
+        if (dir == null) {
+
+            return null;
+        }
+        return MetricsSpool.forEnvironment(dir, environmentID, configuration.getMetricsSpoolMaxBytes());
+    }
+
     protected boolean canPushToMetrics(Evaluation result) {
 
         return this.target.isValid() &&
@@ -815,9 +1604,19 @@ public class CfClient implements Destroyable {
                 analyticsManager != null;
     }
 
-    private void unregister() {
+    /**
+     * @param clearCache True == Cached evaluations are cleared as well.
+     */
+    private void unregister(final boolean clearCache) {
 
         ready.set(false);
+        snapshotHolder = null;
+        evaluator = null;
+
+        if (targets != null) {
+
+            targets.clear();
+        }
 
         stopSSE();
 
@@ -826,7 +1625,7 @@ public class CfClient implements Destroyable {
             evaluationPolling.stop();
         }
 
-        if (featureRepository != null) {
+        if (clearCache && featureRepository != null) {
 
             featureRepository.clear();
         }
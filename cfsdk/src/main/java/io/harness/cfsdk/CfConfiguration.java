@@ -1,5 +1,6 @@
 package io.harness.cfsdk;
 
+import io.harness.cfsdk.cloud.analytics.MetricsOverflowPolicy;
 
 /**
  * Main configuration class used to tune the behaviour of {@link CfClient}. It uses builder pattern.
@@ -7,6 +8,9 @@ package io.harness.cfsdk;
 public class CfConfiguration {
 
     public static final int DEFAULT_METRICS_CAPACITY;
+    public static final int DEFAULT_TARGET_CACHE_SIZE;
+    public static final long DEFAULT_SCHEDULING_JITTER_IN_MILLIS;
+    public static final long DEFAULT_METRICS_SPOOL_MAX_BYTES;
     public static final int MIN_METRICS_PUBLISHING_INTERVAL_IN_SECONDS;
     public static final int DEFAULT_METRICS_PUBLISHING_ACCEPTABLE_DURATION_IN_SECONDS;
 
@@ -20,8 +24,13 @@ public class CfConfiguration {
 
     protected boolean analyticsEnabled;
     protected final boolean streamEnabled;
+    protected boolean localEvaluationEnabled;
 
     protected int metricsCapacity;
+    protected int targetCacheSize;
+    protected MetricsOverflowPolicy metricsOverflowPolicy;
+    protected long schedulingJitterInMillis;
+    protected long metricsSpoolMaxBytes;
     protected final int pollingInterval;
     protected long metricsPublishingIntervalInMillis;
     protected long metricsServiceAcceptableDurationInMillis;
@@ -29,6 +38,9 @@ public class CfConfiguration {
     static {
 
         DEFAULT_METRICS_CAPACITY = 1024;
+        DEFAULT_TARGET_CACHE_SIZE = 16;
+        DEFAULT_SCHEDULING_JITTER_IN_MILLIS = 5000L;
+        DEFAULT_METRICS_SPOOL_MAX_BYTES = 256 * 1024L;
         MIN_METRICS_PUBLISHING_INTERVAL_IN_SECONDS = 60;
         DEFAULT_METRICS_PUBLISHING_ACCEPTABLE_DURATION_IN_SECONDS = 10;
     }
@@ -37,6 +49,10 @@ public class CfConfiguration {
 
         analyticsEnabled = true;
         metricsCapacity = DEFAULT_METRICS_CAPACITY;
+        targetCacheSize = DEFAULT_TARGET_CACHE_SIZE;
+        metricsOverflowPolicy = MetricsOverflowPolicy.DROP_NEWEST;
+        schedulingJitterInMillis = DEFAULT_SCHEDULING_JITTER_IN_MILLIS;
+        metricsSpoolMaxBytes = DEFAULT_METRICS_SPOOL_MAX_BYTES;
 
         metricsPublishingIntervalInMillis =
                 MIN_METRICS_PUBLISHING_INTERVAL_IN_SECONDS * 1000L;
@@ -147,6 +163,21 @@ public class CfConfiguration {
         return analyticsEnabled;
     }
 
+    /**
+     * Is local evaluation enabled?
+     *
+     * @return True == Flags are evaluated on the device from the flag and segment configurations.
+     */
+    public boolean isLocalEvaluationEnabled() {
+
+        return localEvaluationEnabled;
+    }
+
+    public void setLocalEvaluationEnabled(boolean localEvaluationEnabled) {
+
+        this.localEvaluationEnabled = localEvaluationEnabled;
+    }
+
     public static Builder builder() {
 
         return new Builder();
@@ -163,8 +194,13 @@ public class CfConfiguration {
         private String streamURL;
         private int pollingInterval;
         private int metricsCapacity;
+        private int targetCacheSize;
+        private MetricsOverflowPolicy metricsOverflowPolicy;
+        private long schedulingJitterInMillis;
+        private long metricsSpoolMaxBytes;
         private boolean streamEnabled;
         private boolean analyticsEnabled;
+        private boolean localEvaluationEnabled;
         private long metricsPublishingIntervalInMillis;
         private long metricsPublishingAcceptableDurationInMillis;
 
@@ -172,6 +208,10 @@ public class CfConfiguration {
 
             analyticsEnabled = true;
             metricsCapacity = DEFAULT_METRICS_CAPACITY;
+            targetCacheSize = DEFAULT_TARGET_CACHE_SIZE;
+            metricsOverflowPolicy = MetricsOverflowPolicy.DROP_NEWEST;
+            schedulingJitterInMillis = DEFAULT_SCHEDULING_JITTER_IN_MILLIS;
+            metricsSpoolMaxBytes = DEFAULT_METRICS_SPOOL_MAX_BYTES;
             metricsPublishingIntervalInMillis = MIN_METRICS_PUBLISHING_INTERVAL_IN_SECONDS * 1000L;
 
             metricsPublishingAcceptableDurationInMillis =
@@ -238,6 +278,39 @@ public class CfConfiguration {
             return this;
         }
 
+        /**
+         * Configuration to enable local evaluation. If enabled, the flag and segment configurations
+         * are loaded from the server and the flags are evaluated on the device. If the configurations
+         * can't be loaded, the evaluations are requested from the server as usual.
+         *
+         * @param localEvaluationEnabled True == Local evaluation enabled.
+         * @return Builder instance.
+         */
+        public Builder enableLocalEvaluation(boolean localEvaluationEnabled) {
+
+            this.localEvaluationEnabled = localEvaluationEnabled;
+            return this;
+        }
+
+        /**
+         * Maximum number of additional targets evaluated by the client, see
+         * {@link CfClient#boolVariation(io.harness.cfsdk.cloud.model.Target, String, boolean)}.
+         * The least recently used targets are dropped first and loaded again when they are used next time.
+         *
+         * @param targetCacheSize Maximum number of additional targets, at least 1.
+         * @return Builder instance.
+         * @throws IllegalArgumentException If the size is less than 1.
+         */
+        public Builder targetCacheSize(int targetCacheSize) {
+
+            if (targetCacheSize < 1) {
+
+                throw new IllegalArgumentException("Target cache size must be at least 1: " + targetCacheSize);
+            }
+            this.targetCacheSize = targetCacheSize;
+            return this;
+        }
+
         /**
          * Polling interval to use when getting new evaluation data from server
          *
@@ -291,6 +364,61 @@ public class CfConfiguration {
             return this;
         }
 
+        public MetricsOverflowPolicy getMetricsOverflowPolicy() {
+
+            return metricsOverflowPolicy;
+        }
+
+        /**
+         * What happens to the evaluations read while the metrics capacity is reached. Sending the metrics
+         * never blocks the reading thread, whatever the policy.
+         *
+         * @param policy Overflow policy, {@link MetricsOverflowPolicy#DROP_NEWEST} by default.
+         * @return Builder instance.
+         */
+        public Builder metricsOverflowPolicy(MetricsOverflowPolicy policy) {
+
+            this.metricsOverflowPolicy = policy;
+            return this;
+        }
+
+        public long getSchedulingJitterInMillis() {
+
+            return schedulingJitterInMillis;
+        }
+
+        /**
+         * Maximum random delay added to every run of the periodic work, polling and metrics publishing,
+         * so the devices using the same configuration do not all reach the server at the same moment.
+         * The delay added is never longer than the period itself.
+         *
+         * @param jitterInMillis Maximum delay added in milliseconds, 0 for none.
+         * @return Builder instance.
+         */
+        public Builder schedulingJitterInMillis(long jitterInMillis) {
+
+            this.schedulingJitterInMillis = jitterInMillis;
+            return this;
+        }
+
+        public long getMetricsSpoolMaxBytes() {
+
+            return metricsSpoolMaxBytes;
+        }
+
+        /**
+         * Maximum disk space used by the metrics that could not be sent, kept until they can be sent,
+         * also across the app restarts. The oldest metrics are dropped first when it is full.
+         *
+         * @param maxBytes Maximum size in bytes, 0 to keep the metrics not sent in memory only.
+         * @return Builder instance.
+         */
+        public Builder metricsSpoolMaxBytes(long maxBytes) {
+
+            this.metricsSpoolMaxBytes = maxBytes;
+            return this;
+        }
+
         public String getBaseURL() {
 
             return baseURL;
@@ -321,11 +449,21 @@ public class CfConfiguration {
             return analyticsEnabled;
         }
 
+        public boolean isLocalEvaluationEnabled() {
+
+            return localEvaluationEnabled;
+        }
+
         public long getMetricsPublishingIntervalInMillis() {
 
             return metricsPublishingIntervalInMillis;
         }
 
+        public int getTargetCacheSize() {
+
+            return targetCacheSize;
+        }
+
         /**
          * Build the configuration instance.
          *
@@ -354,6 +492,11 @@ public class CfConfiguration {
             );
 
             cfConfiguration.setMetricsCapacity(metricsCapacity);
+            cfConfiguration.setTargetCacheSize(targetCacheSize);
+            cfConfiguration.setMetricsOverflowPolicy(metricsOverflowPolicy);
+            cfConfiguration.setSchedulingJitterInMillis(schedulingJitterInMillis);
+            cfConfiguration.setMetricsSpoolMaxBytes(metricsSpoolMaxBytes);
+            cfConfiguration.setLocalEvaluationEnabled(localEvaluationEnabled);
             cfConfiguration.setMetricsPublishingIntervalInMillis(metricsPublishingIntervalInMillis);
             cfConfiguration.setMetricsServiceAcceptableDurationInMillis(metricsPublishingAcceptableDurationInMillis);
 
@@ -380,6 +523,58 @@ public class CfConfiguration {
         return metricsCapacity;
     }
 
+    public void setMetricsOverflowPolicy(final MetricsOverflowPolicy policy) {
+
+        metricsOverflowPolicy = policy == null ? MetricsOverflowPolicy.DROP_NEWEST : policy;
+    }
+
+    /**
+     * @return What happens to the evaluations read while the metrics capacity is reached.
+     */
+    public MetricsOverflowPolicy getMetricsOverflowPolicy() {
+
+        return metricsOverflowPolicy;
+    }
+
+    public void setSchedulingJitterInMillis(final long jitterInMillis) {
+
+        schedulingJitterInMillis = Math.max(0L, jitterInMillis);
+    }
+
+    /**
+     * @return Maximum random delay added to every run of the periodic work.
+     */
+    public long getSchedulingJitterInMillis() {
+
+        return schedulingJitterInMillis;
+    }
+
+    public void setMetricsSpoolMaxBytes(final long maxBytes) {
+
+        metricsSpoolMaxBytes = Math.max(0L, maxBytes);
+    }
+
+    /**
+     * @return Maximum disk space used by the metrics that could not be sent, 0 if they are kept in memory only.
+     */
+    public long getMetricsSpoolMaxBytes() {
+
+        return metricsSpoolMaxBytes;
+    }
+
+    public void setTargetCacheSize(final int size) {
+
+        targetCacheSize = size;
+    }
+
+    /**
+     * @return Maximum number of additional targets evaluated by the client.
+     */
+    public int getTargetCacheSize() {
+
+        return targetCacheSize;
+    }
+
     public void setMetricsPublishingIntervalInMillis(long intervalInMillis) {
 
         metricsPublishingIntervalInMillis = intervalInMillis;
@@ -0,0 +1,104 @@
+package io.harness.cfsdk;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Results of {@link CfClient#variations(Map)}: every requested flag resolved to the type of its default value.
+ * <p>
+ * Immutable. Reading a flag that has not been requested, or reading it as another type than the one it has
+ * been resolved to, throws an {@link IllegalArgumentException}.
+ */
+public final class Variations {
+
+    private final Map<String, Object> values;
+
+    Variations(final Map<String, Object> values) {
+
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * @param flag Flag identifier.
+     * @return True if the flag has been requested.
+     */
+    public boolean contains(final String flag) {
+
+        return values.containsKey(flag);
+    }
+
+    /**
+     * @param flag Flag identifier, requested with a {@link Boolean} default value.
+     * @return Resolved value.
+     */
+    public boolean getBoolean(final String flag) {
+
+        return get(flag, Boolean.class);
+    }
+
+    /**
+     * @param flag Flag identifier, requested with a {@link Number} default value.
+     * @return Resolved value.
+     */
+    public double getNumber(final String flag) {
+
+        return get(flag, Double.class);
+    }
+
+    /**
+     * @param flag Flag identifier, requested with a {@link String} or a null default value.
+     * @return Resolved value, null if the default value is null and the flag could not be resolved.
+     */
+    @Nullable
+    public String getString(final String flag) {
+
+        return get(flag, String.class);
+    }
+
+    /**
+     * @param flag Flag identifier, requested with a {@link JSONObject} default value.
+     * @return Resolved value.
+     */
+    public JSONObject getJson(final String flag) {
+
+        return get(flag, JSONObject.class);
+    }
+
+    /**
+     * @return Flag identifiers mapped to the resolved values, in the order they have been requested.
+     */
+    public Map<String, Object> asMap() {
+
+        return values;
+    }
+
+    @Override
+    public String toString() {
+
+        return values.toString();
+    }
+
+    private <T> T get(final String flag, final Class<T> type) {
+
+        if (!values.containsKey(flag)) {
+
+            throw new IllegalArgumentException("Flag not requested: " + flag);
+        }
+
+        final Object value = values.get(flag);
+
+        // Only the string values can be null, resolved from a null default value:
+        if (value == null ? type != String.class : !type.isInstance(value)) {
+
+            throw new IllegalArgumentException(
+
+                    "Flag " + flag + " is not resolved to " + type.getSimpleName() + ": " + value
+            );
+        }
+        return type.cast(value);
+    }
+}
@@ -4,12 +4,19 @@ public class ApiResponse {
 
     private final int code;
     private final Object body;
+    private final String eTag;
     private final String rawResponse;
 
     public ApiResponse(int code, String rawResponse, Object body) {
 
+        this(code, rawResponse, body, null);
+    }
+
+    public ApiResponse(int code, String rawResponse, Object body, String eTag) {
+
         this.code = code;
         this.body = body;
+        this.eTag = eTag;
         this.rawResponse = rawResponse;
     }
 
@@ -17,6 +24,22 @@ public class ApiResponse {
         return code >= 200 && code < 300;
     }
 
+    /**
+     * @return True == The conditional request found the resource unchanged, there is no body.
+     */
+    public boolean isNotModified() {
+
+        return code == 304;
+    }
+
+    /**
+     * @return Entity tag of the response, to be sent with the next conditional request. May be null.
+     */
+    public String getETag() {
+
+        return eTag;
+    }
+
     public String getRawResponse() {
         return rawResponse;
     }
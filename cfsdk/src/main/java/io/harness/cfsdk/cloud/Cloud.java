@@ -1,9 +1,14 @@
 package io.harness.cfsdk.cloud;
 
+import java.util.List;
+import java.util.Map;
+
 import io.harness.cfsdk.cloud.core.api.DefaultApi;
+import io.harness.cfsdk.cloud.core.client.ApiCallback;
 import io.harness.cfsdk.cloud.core.client.ApiClient;
 import io.harness.cfsdk.cloud.core.client.ApiException;
 import io.harness.cfsdk.cloud.core.model.AuthenticationRequest;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
 import io.harness.cfsdk.cloud.factories.CloudFactory;
 import io.harness.cfsdk.cloud.model.AuthInfo;
 import io.harness.cfsdk.cloud.model.Target;
@@ -70,6 +75,33 @@ public class Cloud implements ICloud {
         return null;
     }
 
+    @Override
+    public ApiResponse getEvaluations(String target, String cluster, String eTag) {
+
+        try {
+
+            final io.harness.cfsdk.cloud.core.client.ApiResponse<List<Evaluation>> response =
+                    defaultApi.getEvaluationsWithHttpInfo(this.authInfo.getEnvironment(), target, cluster, eTag);
+
+            return new ApiResponse(
+
+                    response.getStatusCode(),
+                    "",
+                    response.getData(),
+                    getHeader(response.getHeaders(), "ETag")
+            );
+
+        } catch (ApiException e) {
+
+            if (e.getCode() == 304) {
+
+                return new ApiResponse(e.getCode(), "", null, eTag);
+            }
+            CfLog.OUT.e(logTag, "API, Error: " + e.getMessage(), e);
+        }
+        return null;
+    }
+
     @Override
     public ApiResponse getEvaluationForId(String identifier, String target, String cluster) {
 
@@ -93,6 +125,104 @@ public class Cloud implements ICloud {
         return null;
     }
 
+    @Override
+    public ApiResponse getFeatureConfigs(String cluster) {
+
+        try {
+
+            return new ApiResponse(
+
+                    200,
+                    "",
+                    defaultApi.getFeatureConfig(this.authInfo.getEnvironment(), cluster)
+            );
+
+        } catch (ApiException e) {
+
+            CfLog.OUT.e(logTag, "API, Error: " + e.getMessage(), e);
+        }
+        return null;
+    }
+
+    @Override
+    public ApiResponse getSegments(String cluster) {
+
+        try {
+
+            return new ApiResponse(
+
+                    200,
+                    "",
+                    defaultApi.getAllSegments(this.authInfo.getEnvironment(), cluster)
+            );
+
+        } catch (ApiException e) {
+
+            CfLog.OUT.e(logTag, "API, Error: " + e.getMessage(), e);
+        }
+        return null;
+    }
+
+    @Override
+    public void getEvaluationsAsync(String target, String cluster, FeatureServiceCallback callback) {
+
+        getEvaluationsAsync(target, cluster, null, callback);
+    }
+
+    @Override
+    public void getEvaluationsAsync(
+
+            String target,
+            String cluster,
+            String eTag,
+            FeatureServiceCallback callback
+    ) {
+
+        try {
+
+            defaultApi.getEvaluationsAsync(
+
+                    this.authInfo.getEnvironment(),
+                    target,
+                    cluster,
+                    eTag,
+                    new ResponseCallback<List<Evaluation>>(callback, eTag)
+            );
+
+        } catch (ApiException e) {
+
+            CfLog.OUT.e(logTag, "API, Error: " + e.getMessage(), e);
+            callback.onResponse(null);
+        }
+    }
+
+    @Override
+    public void getEvaluationForIdAsync(
+
+            String identifier,
+            String target,
+            String cluster,
+            FeatureServiceCallback callback
+    ) {
+
+        try {
+
+            defaultApi.getEvaluationByIdentifierAsync(
+
+                    this.authInfo.getEnvironment(),
+                    identifier,
+                    target,
+                    cluster,
+                    new ResponseCallback<Evaluation>(callback)
+            );
+
+        } catch (ApiException e) {
+
+            CfLog.OUT.e(logTag, e.getMessage(), e);
+            callback.onResponse(null);
+        }
+    }
+
     @Override
     public boolean initialize() {
 
@@ -143,7 +273,77 @@ public class Cloud implements ICloud {
         }
     }
 
+    private static String getHeader(final Map<String, List<String>> headers, final String name) {
+
+        if (headers == null) {
+
+            return null;
+        }
+
+        for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+
+            if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null && !header.getValue().isEmpty()) {
+
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
     private String buildSSEUrl() {
         return this.streamUrl;
     }
+
+    /**
+     * Adapts the generated API callback to {@link FeatureServiceCallback}. The responses carry
+     * their entity tag.
+     */
+    private class ResponseCallback<T> implements ApiCallback<T> {
+
+        private final FeatureServiceCallback callback;
+        private final String eTag;
+
+        ResponseCallback(FeatureServiceCallback callback) {
+
+            this(callback, null);
+        }
+
+        /**
+         * @param eTag Entity tag sent with a conditional request, null otherwise.
+         */
+        ResponseCallback(FeatureServiceCallback callback, String eTag) {
+
+            this.callback = callback;
+            this.eTag = eTag;
+        }
+
+        @Override
+        public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+
+            if (statusCode == 304 && eTag != null) {
+
+                callback.onResponse(new ApiResponse(statusCode, "", null, eTag));
+                return;
+            }
+            CfLog.OUT.e(logTag, "API, Error: " + e.getMessage(), e);
+            callback.onResponse(null);
+        }
+
+        @Override
+        public void onSuccess(T result, int statusCode, Map<String, List<String>> responseHeaders) {
+
+            callback.onResponse(
+
+                    new ApiResponse(statusCode, "", result, getHeader(responseHeaders, "ETag"))
+            );
+        }
+
+        @Override
+        public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+        }
+
+        @Override
+        public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+        }
+    }
 }
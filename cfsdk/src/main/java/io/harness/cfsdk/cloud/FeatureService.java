@@ -4,5 +4,53 @@ public interface FeatureService {
 
     ApiResponse getEvaluations(String target, String cluster);
 
+    /**
+     * Get all evaluations for the target unless they have not changed since the given entity tag.
+     *
+     * @param target  Target identifier.
+     * @param cluster Cluster identifier.
+     * @param eTag    Entity tag of the evaluations already loaded, null for an unconditional request.
+     * @return Response with the evaluations and their entity tag, a response that
+     * {@link ApiResponse#isNotModified()} if they have not changed, or null.
+     */
+    ApiResponse getEvaluations(String target, String cluster, String eTag);
+
     ApiResponse getEvaluationForId(String identifier, String target, String cluster);
+
+    void getEvaluationsAsync(String target, String cluster, FeatureServiceCallback callback);
+
+    /**
+     * Asynchronous {@link #getEvaluations(String, String, String)}.
+     *
+     * @param target   Target identifier.
+     * @param cluster  Cluster identifier.
+     * @param eTag     Entity tag of the evaluations already loaded, null for an unconditional request.
+     * @param callback Receives the response with the evaluations and their entity tag, a response that
+     *                 {@link ApiResponse#isNotModified()} if they have not changed, or null.
+     */
+    void getEvaluationsAsync(String target, String cluster, String eTag, FeatureServiceCallback callback);
+
+    void getEvaluationForIdAsync(
+
+            String identifier,
+            String target,
+            String cluster,
+            FeatureServiceCallback callback
+    );
+
+    /**
+     * Get the configurations of all feature flags in the environment, used for local evaluation.
+     *
+     * @param cluster Cluster identifier.
+     * @return Response with the list of {@link io.harness.cfsdk.cloud.core.model.FeatureConfig}, or null.
+     */
+    ApiResponse getFeatureConfigs(String cluster);
+
+    /**
+     * Get all target segments in the environment, used for local evaluation.
+     *
+     * @param cluster Cluster identifier.
+     * @return Response with the list of {@link io.harness.cfsdk.cloud.core.model.Segment}, or null.
+     */
+    ApiResponse getSegments(String cluster);
 }
@@ -0,0 +1,12 @@
+package io.harness.cfsdk.cloud;
+
+/**
+ * Callback for the asynchronous {@link FeatureService} calls.
+ */
+public interface FeatureServiceCallback {
+
+    /**
+     * @param apiResponse API response or null if the call has failed.
+     */
+    void onResponse(ApiResponse apiResponse);
+}
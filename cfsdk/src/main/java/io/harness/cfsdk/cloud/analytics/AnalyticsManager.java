@@ -1,28 +1,52 @@
 package io.harness.cfsdk.cloud.analytics;
 
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.Nullable;
 
 import io.harness.cfsdk.CfConfiguration;
 import io.harness.cfsdk.cloud.analytics.model.Analytics;
 import io.harness.cfsdk.cloud.core.model.Variation;
 import io.harness.cfsdk.cloud.model.Target;
 import io.harness.cfsdk.common.Destroyable;
+import io.harness.cfsdk.common.SdkScheduler;
 import io.harness.cfsdk.logging.CfLog;
 
+/**
+ * Counts the evaluations by flag and variation in {@link MetricsCounters} and publishes the counts
+ * periodically. Recording an evaluation is a counter increment, the counts are sent once per interval.
+ * <p>
+ * All sending happens one send at a time on the serial metrics executor of the {@link SdkScheduler}: when the
+ * capacity is reached the recording thread only requests an early send, and the reads that do not fit are
+ * handled by the {@link MetricsOverflowPolicy}.
+ */
 public class AnalyticsManager implements Destroyable {
 
-    protected final BlockingQueue<Analytics> queue;
+    /**
+     * One in this many overflowing reads is counted with the {@link MetricsOverflowPolicy#SAMPLE} policy.
+     */
+    public static final int OVERFLOW_SAMPLE_RATE = 10;
+
+    protected final MetricsCounters counters;
 
-    private final Timer timer;
     private final String logTag;
+    private final Executor sending;
+    private final AtomicLong overflows;
+    private final AtomicBoolean destroyed;
+    private final AtomicBoolean flushRequested;
+    private final SdkScheduler.Cancellable publishing;
+    private final MetricsOverflowPolicy overflowPolicy;
     private final AnalyticsPublisherService analyticsPublisherService;
 
     {
 
-        timer = new Timer();
+        overflows = new AtomicLong();
+        destroyed = new AtomicBoolean();
+        flushRequested = new AtomicBoolean();
+        sending = SdkScheduler.getInstance().newSerialExecutor();
         logTag = AnalyticsManager.class.getSimpleName();
     }
 
@@ -34,33 +58,48 @@ public class AnalyticsManager implements Destroyable {
             final CfConfiguration config
     ) {
 
-        queue = new LinkedBlockingQueue<>(config.getMetricsCapacity());
+        this(environmentID, cluster, authToken, config, null);
+    }
 
-        analyticsPublisherService = new AnalyticsPublisherService(
+    /**
+     * @param spool Spool keeping the metrics batches that could not be sent on disk, replayed with
+     *              a backoff. Null to keep the counts in memory only.
+     */
+    public AnalyticsManager(
+
+            final String environmentID,
+            final String cluster,
+            final String authToken,
+            final CfConfiguration config,
+            @Nullable final MetricsSpool spool
+    ) {
+
+        overflowPolicy = config.getMetricsOverflowPolicy();
+        counters = new MetricsCounters(
 
-                authToken, config, environmentID, cluster
+                overflowPolicy == MetricsOverflowPolicy.AGGREGATE_ONLY ? 0 : config.getMetricsCapacity()
         );
 
-        final long frequency = config.getMetricsPublishingIntervalInMillis();
+        analyticsPublisherService = new AnalyticsPublisherService(
 
-        timer.schedule(
+                authToken, config, environmentID, cluster, spool
+        );
 
-                new TimerTask() {
+        final long frequency = config.getMetricsPublishingIntervalInMillis();
 
-                    @Override
-                    public void run() {
+        final long jitter = config.getSchedulingJitterInMillis();
 
-                        analyticsPublisherService.sendDataAndResetQueue(queue, getSendingCallback());
-                    }
-                },
+        // Nothing is counted yet, the first send is one period away:
+        publishing = SdkScheduler.getInstance().schedulePeriodic(
 
-                0L,
-                frequency
+                () -> sending.execute(this::send),
+                frequency,
+                jitter
         );
 
         final String msg = String.format(
 
-                "Metrics sending scheduled with frequency of: %s", frequency
+                "Metrics sending scheduled with frequency of: %s, jitter: %s", frequency, jitter
         );
 
         CfLog.OUT.v(logTag, msg);
@@ -73,11 +112,6 @@ public class AnalyticsManager implements Destroyable {
             final Variation variation
     ) {
 
-        if (queue.remainingCapacity() == 0) {
-
-            analyticsPublisherService.sendDataAndResetQueue(queue, getSendingCallback());
-        }
-
         CfLog.OUT.v(logTag, "pushToQueue: Variation=" + variation);
 
         final Analytics analytics = new AnalyticsBuilder()
@@ -86,17 +120,78 @@ public class AnalyticsManager implements Destroyable {
                 .variation(variation)
                 .build();
 
-        try {
+        return pushToQueue(analytics);
+    }
 
-            queue.put(analytics);
-            return queue.contains(analytics);
+    /**
+     * Count the prepared metrics entry. Counting an entry that has been counted before does not allocate.
+     * If there are as many distinct entries as the metrics capacity, an early send is requested in the
+     * background and the entry is handled by the overflow policy. Never blocks on sending.
+     *
+     * @param analytics Metrics entry to count.
+     * @return True == Metrics entry has been counted, false if dropped by the overflow policy.
+     */
+    public boolean pushToQueue(final Analytics analytics) {
 
-        } catch (final InterruptedException e) {
+        final SummaryMetrics key = analytics.getSummaryMetrics();
+        if (counters.increment(key)) {
 
-            CfLog.OUT.e(logTag, "Error", e);
+            return true;
         }
 
-        return false;
+        requestFlush();
+        return countOverflow(key);
+    }
+
+    /**
+     * Count the metrics of several evaluations in one pass. An early send is requested at most once,
+     * after the whole batch, if any entry did not fit into the capacity. Never blocks on sending.
+     *
+     * @param batch Metrics to count.
+     * @return True == All metrics have been counted.
+     */
+    public boolean pushToQueue(final Collection<Analytics> batch) {
+
+        CfLog.OUT.v(logTag, "pushToQueue: batch size=" + batch.size());
+
+        boolean overflow = false;
+        boolean success = true;
+        for (final Analytics analytics : batch) {
+
+            final SummaryMetrics key = analytics.getSummaryMetrics();
+            if (!counters.increment(key)) {
+
+                overflow = true;
+                success &= countOverflow(key);
+            }
+        }
+
+        if (overflow) {
+
+            requestFlush();
+        }
+        return success;
+    }
+
+    /**
+     * Use the new auth token for the following sends, for example after authenticating again.
+     * The counts recorded so far are kept.
+     *
+     * @param authToken Auth token.
+     */
+    public void setAuthToken(final String authToken) {
+
+        analyticsPublisherService.setAuthToken(authToken);
+    }
+
+    /**
+     * Send the counts and the spooled metrics without waiting for the backoff, for example once
+     * the network is available again.
+     */
+    public void retryNow() {
+
+        analyticsPublisherService.retryNow();
+        requestFlush();
     }
 
     @Override
@@ -104,9 +199,54 @@ public class AnalyticsManager implements Destroyable {
 
         CfLog.OUT.v(logTag, "destroying");
 
-        analyticsPublisherService.sendDataAndResetQueue(queue, getSendingCallback());
-        timer.cancel();
-        timer.purge();
+        if (!destroyed.compareAndSet(false, true)) {
+
+            CfLog.OUT.w(logTag, "Already destroyed");
+            return;
+        }
+
+        // The last send runs on the metrics executor too, after any send in progress:
+        publishing.cancel();
+        sending.execute(this::send);
+    }
+
+    /**
+     * Handle an entry that does not fit into the capacity with the overflow policy.
+     *
+     * @return True == Counted anyway, as a sample of the overflowing reads.
+     */
+    private boolean countOverflow(final SummaryMetrics key) {
+
+        if (overflowPolicy == MetricsOverflowPolicy.SAMPLE
+                && overflows.incrementAndGet() % OVERFLOW_SAMPLE_RATE == 0) {
+
+            counters.add(key, OVERFLOW_SAMPLE_RATE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Send the counts on the metrics executor as soon as possible. Requests made before the send starts
+     * are served by the same send.
+     */
+    protected void requestFlush() {
+
+        if (destroyed.get() || !flushRequested.compareAndSet(false, true)) {
+
+            return;
+        }
+
+        sending.execute(() -> {
+
+            flushRequested.set(false);
+            send();
+        });
+    }
+
+    private void send() {
+
+        analyticsPublisherService.sendDataAndResetCounters(counters, getSendingCallback());
     }
 
     protected AnalyticsPublisherServiceCallback getSendingCallback() {
@@ -1,16 +1,16 @@
 package io.harness.cfsdk.cloud.analytics;
 
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
+
+import androidx.annotation.Nullable;
 
 import io.harness.cfsdk.CfConfiguration;
 import io.harness.cfsdk.cloud.analytics.api.MetricsApi;
-import io.harness.cfsdk.cloud.analytics.model.Analytics;
 import io.harness.cfsdk.cloud.analytics.model.KeyValue;
 import io.harness.cfsdk.cloud.analytics.model.Metrics;
 import io.harness.cfsdk.cloud.analytics.model.MetricsData;
@@ -22,6 +22,16 @@ import io.harness.cfsdk.logging.CfLog;
  */
 public class AnalyticsPublisherService {
 
+    /**
+     * Delay of the next attempt after the first failure when spooling, doubled with every further failure.
+     */
+    public static final long RETRY_BASE_DELAY_MILLIS = 30_000L;
+
+    /**
+     * Maximum delay between the attempts when spooling.
+     */
+    public static final long RETRY_MAX_DELAY_MILLIS = 30 * 60_000L;
+
     private static final String CLIENT;
     private static final String SDK_TYPE;
     private static final String SDK_VERSION;
@@ -45,13 +55,20 @@ public class AnalyticsPublisherService {
 
     private final String logTag;
     private final String cluster;
-    private final String authToken;
     private final String environmentID;
     private final CfConfiguration config;
+    private final MetricsSpool spool;
+    private final RetryBackoff backoff;
+
+    private volatile String authToken;
+    private MetricsApi metricsApi;
+    private String metricsApiToken;
+    private MetricsApiFactoryRecipe metricsApiRecipe;
 
     {
 
         logTag = AnalyticsPublisherService.class.getSimpleName();
+        backoff = new RetryBackoff(RETRY_BASE_DELAY_MILLIS, RETRY_MAX_DELAY_MILLIS);
     }
 
     public AnalyticsPublisherService(
@@ -62,6 +79,23 @@ public class AnalyticsPublisherService {
             final String cluster
     ) {
 
+        this(authToken, config, environmentID, cluster, null);
+    }
+
+    /**
+     * @param spool Spool of the batches that could not be sent, null to add the counts back to the counters
+     *              instead.
+     */
+    public AnalyticsPublisherService(
+
+            final String authToken,
+            final CfConfiguration config,
+            final String environmentID,
+            final String cluster,
+            @Nullable final MetricsSpool spool
+    ) {
+
+        this.spool = spool;
         this.config = config;
         this.cluster = cluster;
         this.authToken = authToken;
@@ -69,187 +103,215 @@ public class AnalyticsPublisherService {
     }
 
     /**
-     * This method sends the metrics data to the analytics server and resets the cache
+     * Token to authorize the metrics requests with. The metrics client is rebuilt with the next send
+     * if the token is different, otherwise it is kept with its connections.
      *
-     * @param queue    Queue that contains data to be sent.
-     * @param callback Sending results callback.
+     * @param authToken Auth token.
      */
-    public void sendDataAndResetQueue(
-
-            final BlockingQueue<Analytics> queue,
-            final AnalyticsPublisherServiceCallback callback
-    ) {
-
-        CfLog.OUT.d(logTag, "Reading from queue and building cache");
+    public void setAuthToken(final String authToken) {
 
-        final Map<Analytics, Integer> all = new HashMap<>();
-
-        for (Analytics analytics : queue) {
-
-            if (analytics != null) {
-
-                Integer count = all.get(analytics);
-                if (count == null) {
+        this.authToken = authToken;
+    }
 
-                    count = 0;
-                    all.put(analytics, count);
+    /**
+     * Attempt the next send without waiting for the backoff, for example once the network is back.
+     */
+    public void retryNow() {
 
-                } else {
+        backoff.reset();
+    }
 
-                    count++;
-                    all.put(analytics, count);
-                }
+    /**
+     * This method sends the counted metrics data to the analytics server and resets the counters.
+     * If sending fails the counts are added back, to be sent with the next attempt. A batch rejected with
+     * a non-retryable status is dropped, see {@link MetricsSpool#isRetryable(ApiException)}.
+     * <p>
+     * With a spool, the batches spooled before are sent first, and a batch that could not be sent is
+     * spooled instead. After a failure nothing is sent until the backoff delay has passed, the new batches
+     * are spooled meanwhile.
+     *
+     * @param counters Counters that contain data to be sent.
+     * @param callback Sending results callback.
+     */
+    public void sendDataAndResetCounters(
 
-                CfLog.OUT.v(
+            final MetricsCounters counters,
+            final AnalyticsPublisherServiceCallback callback
+    ) {
 
-                        logTag,
-                        String.format(
+        CfLog.OUT.d(logTag, "Draining the metrics counters");
 
-                                Locale.getDefault(),
-                                "Preparing metrics: metric='%s', count=%d",
-                                analytics.getEvaluationId(),
-                                count
-                        )
-                );
-            }
-        }
+        final Map<SummaryMetrics, Long> all = counters.drain();
 
-        if (all.isEmpty()) {
+        if (all.isEmpty() && (spool == null || spool.isEmpty())) {
 
             CfLog.OUT.d(logTag, "Cache is empty");
             callback.onAnalyticsSent(true);
+            return;
+        }
 
-        } else {
-
-            CfLog.OUT.d(
-
-                    logTag,
-                    String.format(
+        CfLog.OUT.d(
 
-                            Locale.getDefault(),
-                            "Cache contains the metrics data, size=%d",
-                            all.size()
-                    )
-            );
+                logTag,
+                String.format(
 
-            try {
-
-                final Metrics metrics = prepareSummaryMetricsBody(all);
-                if (metrics.getMetricsData() != null && !metrics.getMetricsData().isEmpty()) {
+                        Locale.getDefault(),
+                        "Cache contains the metrics data, size=%d",
+                        all.size()
+                )
+        );
 
-                    long startTime = System.currentTimeMillis();
+        final Metrics metrics = all.isEmpty() ? null : prepareSummaryMetricsBody(all);
 
-                    CfLog.OUT.v(logTag, "Sending metrics");
+        if (spool == null) {
 
-                    final MetricsApi metricsAPI = MetricsApiFactory.create(authToken, config);
-                    metricsAPI.postMetrics(environmentID, cluster, metrics);
+            try {
 
-                    long endTime = System.currentTimeMillis();
+                post(metrics);
+                callback.onAnalyticsSent(true);
 
-                    if ((endTime - startTime) > config.getMetricsServiceAcceptableDurationInMillis()) {
+            } catch (ApiException e) {
 
-                        CfLog.OUT.w(logTag, "Metrics service API duration=" + (endTime - startTime));
-                    }
+                if (MetricsSpool.isRetryable(e)) {
 
-                    CfLog.OUT.v(logTag, "Successfully sent analytics data to the server");
+                    CfLog.OUT.e(logTag, "Error sending metrics", e);
+                    counters.addAll(all);
 
                 } else {
 
-                    CfLog.OUT.v(logTag, "No analytics data to send the server");
+                    CfLog.OUT.e(logTag, "Metrics batch dropped, rejected: " + e.getCode(), e);
                 }
+                callback.onAnalyticsSent(false);
+            }
+            return;
+        }
 
-                boolean queueCleared = true;
-                for (final Analytics analytics : all.keySet()) {
-
-                    while (queue.contains(analytics)) {
-
-                        if (queue.remove(analytics)) {
+        final long now = System.currentTimeMillis();
+        if (backoff.isWaiting(now)) {
 
-                            CfLog.OUT.v(
+            CfLog.OUT.v(logTag, "Metrics sending deferred by the backoff");
+            spool(metrics, counters, all);
+            callback.onAnalyticsSent(false);
+            return;
+        }
 
-                                    logTag,
-                                    "Metrics item was removed from the queue: "
-                                            + analytics.getEvaluationId()
-                            );
+        try {
 
-                        } else {
+            final int replayed = spool.replay(this::post);
+            if (replayed > 0) {
 
-                            CfLog.OUT.e(
+                CfLog.OUT.v(logTag, "Spooled metrics batches sent: " + replayed);
+            }
 
-                                    logTag,
-                                    "Metrics item was not removed from the queue: "
-                                            + analytics.getEvaluationId()
-                            );
+        } catch (ApiException e) {
 
-                            queueCleared = false;
-                        }
-                    }
-                }
+            final long delay = backoff.onFailure(now);
+            CfLog.OUT.e(logTag, "Error sending spooled metrics, next attempt in " + delay + " ms", e);
+            spool(metrics, counters, all);
+            callback.onAnalyticsSent(false);
+            return;
+        }
 
-                if (queueCleared) {
+        try {
 
-                    CfLog.OUT.v(logTag, "Queue is cleared, size=" + queue.size());
-                }
+            post(metrics);
+            backoff.reset();
+            callback.onAnalyticsSent(true);
 
-                callback.onAnalyticsSent(true);
+        } catch (ApiException e) {
 
-            } catch (ApiException e) {
+            if (!MetricsSpool.isRetryable(e)) {
 
-                CfLog.OUT.e(logTag, "Error sending metrics", e);
+                CfLog.OUT.e(logTag, "Metrics batch dropped, rejected: " + e.getCode(), e);
+                backoff.reset();
                 callback.onAnalyticsSent(false);
+                return;
             }
+
+            final long delay = backoff.onFailure(now);
+            CfLog.OUT.e(logTag, "Error sending metrics, next attempt in " + delay + " ms", e);
+            spool(metrics, counters, all);
+            callback.onAnalyticsSent(false);
         }
     }
 
+    private void post(@Nullable final Metrics metrics) throws ApiException {
 
-    private Metrics prepareSummaryMetricsBody(Map<Analytics, Integer> data) {
+        if (metrics != null && metrics.getMetricsData() != null && !metrics.getMetricsData().isEmpty()) {
 
-        CfLog.OUT.v(logTag, "Data size: " + data.size());
+            long startTime = System.currentTimeMillis();
 
-        final Metrics metrics = new Metrics();
-        final Map<SummaryMetrics, Integer> summaryMetricsData = new HashMap<>();
+            CfLog.OUT.v(logTag, "Sending metrics");
 
-        for (Analytics analytics : data.keySet()) {
+            final MetricsApi metricsAPI = getMetricsApi();
+            metricsAPI.postMetrics(environmentID, cluster, metrics);
 
-            Integer count = data.get(analytics);
+            long endTime = System.currentTimeMillis();
 
-            if (count == null) {
+            if ((endTime - startTime) > config.getMetricsServiceAcceptableDurationInMillis()) {
 
-                count = 0;
+                CfLog.OUT.w(logTag, "Metrics service API duration=" + (endTime - startTime));
             }
 
-            final SummaryMetrics summaryMetrics = prepareSummaryMetricsKey(analytics);
-            final Integer summaryCount = summaryMetricsData.get(summaryMetrics);
+            CfLog.OUT.v(logTag, "Successfully sent analytics data to the server");
+
+        } else {
+
+            CfLog.OUT.v(logTag, "No analytics data to send the server");
+        }
+    }
 
-            if (summaryCount == null) {
+    /**
+     * Spool the batch not sent, the counts are added back to the counters if it can't be spooled.
+     */
+    private void spool(
 
-                summaryMetricsData.put(summaryMetrics, count);
-            } else {
+            @Nullable final Metrics metrics,
+            final MetricsCounters counters,
+            final Map<SummaryMetrics, Long> all
+    ) {
 
-                summaryMetricsData.put(summaryMetrics, summaryCount + count);
-            }
+        if (metrics != null && !spool.offer(metrics)) {
+
+            counters.addAll(all);
+        }
+    }
+
+    /**
+     * The metrics client is kept between sends so its connections and TLS sessions are reused. It is
+     * created again only when the auth token or the factory recipe changes.
+     */
+    private synchronized MetricsApi getMetricsApi() {
 
-            CfLog.OUT.v(
+        final String token = authToken;
+        final MetricsApiFactoryRecipe recipe = MetricsApiFactory.getDefaultMetricsApiFactoryRecipe();
 
-                    logTag,
-                    String.format(
+        if (metricsApi == null || recipe != metricsApiRecipe || !Objects.equals(token, metricsApiToken)) {
 
-                            "Summary metrics appended: %s, %s",
-                            summaryMetrics,
-                            summaryMetricsData.get(summaryMetrics)
-                    )
-            );
+            CfLog.OUT.v(logTag, "Creating the metrics API client");
+
+            metricsApi = MetricsApiFactory.create(token, config);
+            metricsApiToken = token;
+            metricsApiRecipe = recipe;
         }
+        return metricsApi;
+    }
+
+    private Metrics prepareSummaryMetricsBody(Map<SummaryMetrics, Long> summaryMetricsData) {
+
+        CfLog.OUT.v(logTag, "Data size: " + summaryMetricsData.size());
+
+        final Metrics metrics = new Metrics();
 
         CfLog.OUT.v(logTag, "Summary metrics size: " + summaryMetricsData.size());
 
-        final Set<Map.Entry<SummaryMetrics, Integer>> summaryEntrySet = summaryMetricsData.entrySet();
+        final Set<Map.Entry<SummaryMetrics, Long>> summaryEntrySet = summaryMetricsData.entrySet();
 
-        for (Map.Entry<SummaryMetrics, Integer> entry : summaryEntrySet) {
+        for (Map.Entry<SummaryMetrics, Long> entry : summaryEntrySet) {
 
             MetricsData metricsData = new MetricsData();
             metricsData.setTimestamp(System.currentTimeMillis());
-            metricsData.count(entry.getValue());
+            metricsData.count((int) Math.min(Integer.MAX_VALUE, entry.getValue()));
             metricsData.setMetricsType(MetricsData.MetricsTypeEnum.FFMETRICS);
 
             setMetricsAttributes(metricsData, FEATURE_NAME_ATTRIBUTE, entry.getKey().getFeatureName());
@@ -276,16 +338,6 @@ public class AnalyticsPublisherService {
         return metrics;
     }
 
-    private SummaryMetrics prepareSummaryMetricsKey(Analytics key) {
-
-        return new SummaryMetrics(
-
-                key.getVariation().getName(),
-                key.getVariation().getValue(),
-                key.getVariation().getIdentifier()
-        );
-    }
-
     private void setMetricsAttributes(
 
             final MetricsData metricsData,
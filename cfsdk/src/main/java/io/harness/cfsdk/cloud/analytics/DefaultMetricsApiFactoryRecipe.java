@@ -10,8 +10,14 @@ import io.harness.cfsdk.cloud.core.client.ApiClient;
 import io.harness.cfsdk.logging.CfLog;
 import io.harness.cfsdk.utils.CfUtils;
 
+/**
+ * Creates the metrics API with its own {@link ApiClient}, so the client and its connection pool can be
+ * kept for as long as the auth token is valid without touching the shared default client.
+ */
 public class DefaultMetricsApiFactoryRecipe implements MetricsApiFactoryRecipe {
 
+    private static volatile String hostname;
+
     private final String logTag;
 
     {
@@ -22,30 +28,39 @@ public class DefaultMetricsApiFactoryRecipe implements MetricsApiFactoryRecipe {
     @Override
     public MetricsApi create(String authToken, CfConfiguration config) {
 
-        final DefaultApi metricsAPI = new DefaultApi();
+        final ApiClient apiClient = new ApiClient();
 
         if (!CfUtils.Text.isEmpty(config.getEventURL())) {
 
-            ApiClient apiClient = metricsAPI.getApiClient();
             apiClient.setBasePath(config.getEventURL());
             apiClient.addDefaultHeader("Authorization", "Bearer " + authToken);
             apiClient.setUserAgent("android 1.0.9");
-            String hostname = "UnknownHost";
+            apiClient.addDefaultHeader("Hostname", getHostname());
+        }
+
+        return new DefaultApi(apiClient);
+    }
 
+    /**
+     * The host name lookup may block, it is done once per process.
+     */
+    private String getHostname() {
+
+        String name = hostname;
+        if (name == null) {
+
+            name = "UnknownHost";
             try {
 
-                hostname = InetAddress.getLocalHost().getHostName();
-                CfLog.OUT.v(logTag, "Hostname: " + hostname);
+                name = InetAddress.getLocalHost().getHostName();
+                CfLog.OUT.v(logTag, "Hostname: " + name);
 
             } catch (UnknownHostException e) {
 
                 CfLog.OUT.w(logTag, "Unable to get hostname");
             }
-
-            apiClient.addDefaultHeader("Hostname", hostname);
-            metricsAPI.setApiClient(apiClient);
+            hostname = name;
         }
-
-        return metricsAPI;
+        return name;
     }
 }
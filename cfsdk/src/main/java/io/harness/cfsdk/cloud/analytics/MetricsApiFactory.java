@@ -12,7 +12,7 @@ import io.harness.cfsdk.cloud.analytics.api.MetricsApi;
  */
 public class MetricsApiFactory {
 
-    private static MetricsApiFactoryRecipe recipe;
+    private static volatile MetricsApiFactoryRecipe recipe;
 
     static {
 
@@ -28,6 +28,11 @@ public class MetricsApiFactory {
         return recipe.create(authToken, config);
     }
 
+    public static MetricsApiFactoryRecipe getDefaultMetricsApiFactoryRecipe() {
+
+        return recipe;
+    }
+
     public static void setDefaultMetricsApiFactoryRecipe(
 
             final MetricsApiFactoryRecipe metricsApiRecipe
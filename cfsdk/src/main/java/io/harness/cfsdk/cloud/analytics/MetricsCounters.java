@@ -0,0 +1,209 @@
+package io.harness.cfsdk.cloud.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluation counters keyed by flag and variation, aggregated when the evaluation is recorded.
+ * <p>
+ * The counters are split into stripes by the key hash, each stripe guarded by its own lock, so concurrent
+ * readers of different flags rarely contend. Recording an already known key is a hash lookup and an
+ * increment and does not allocate. {@link #drain()} swaps out the table of each stripe and returns the
+ * counts recorded until then, recording continues into the new tables meanwhile.
+ */
+public final class MetricsCounters {
+
+    private static final int STRIPES = 16;
+
+    private final int capacity;
+    private final Stripe[] stripes;
+    private final AtomicInteger keys;
+
+    {
+
+        keys = new AtomicInteger();
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @param capacity Maximum number of distinct keys counted, 0 or less for no limit.
+     */
+    public MetricsCounters(final int capacity) {
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * Count one evaluation.
+     *
+     * @param key Flag and variation evaluated.
+     * @return True == Counted. False if the key is not counted yet and there are as many keys as the capacity.
+     */
+    public boolean increment(final SummaryMetrics key) {
+
+        final Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+
+            final Counter counter = stripe.counters.get(key);
+            if (counter != null) {
+
+                counter.value++;
+                return true;
+            }
+
+            if (capacity > 0 && keys.get() >= capacity) {
+
+                return false;
+            }
+
+            keys.incrementAndGet();
+            stripe.counters.put(key, new Counter(1L));
+            return true;
+        }
+    }
+
+    /**
+     * Add counts back, for example the drained counts that could not be sent. The capacity is not enforced,
+     * so no count is lost.
+     *
+     * @param counts Counts to add.
+     */
+    public void addAll(final Map<SummaryMetrics, Long> counts) {
+
+        for (final Map.Entry<SummaryMetrics, Long> entry : counts.entrySet()) {
+
+            add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Add to the count of the key regardless of the capacity.
+     *
+     * @param key   Flag and variation.
+     * @param count Count to add.
+     */
+    public void add(final SummaryMetrics key, final long count) {
+
+        final Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+
+            final Counter counter = stripe.counters.get(key);
+            if (counter != null) {
+
+                counter.value += count;
+
+            } else {
+
+                keys.incrementAndGet();
+                stripe.counters.put(key, new Counter(count));
+            }
+        }
+    }
+
+    /**
+     * Take all counts recorded so far and start counting from zero.
+     *
+     * @return Counts by flag and variation.
+     */
+    public Map<SummaryMetrics, Long> drain() {
+
+        final Map<SummaryMetrics, Long> drained = new HashMap<>();
+        for (final Stripe stripe : stripes) {
+
+            final Map<SummaryMetrics, Counter> counters;
+            synchronized (stripe) {
+
+                counters = stripe.counters;
+                if (counters.isEmpty()) {
+
+                    continue;
+                }
+                stripe.counters = new HashMap<>();
+                keys.addAndGet(-counters.size());
+            }
+
+            for (final Map.Entry<SummaryMetrics, Counter> entry : counters.entrySet()) {
+
+                drained.put(entry.getKey(), entry.getValue().value);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * @return Number of distinct keys counted.
+     */
+    public int size() {
+
+        return keys.get();
+    }
+
+    public boolean isEmpty() {
+
+        return keys.get() == 0;
+    }
+
+    /**
+     * @return Sum of all counts.
+     */
+    public long getTotal() {
+
+        long total = 0L;
+        for (final Stripe stripe : stripes) {
+
+            synchronized (stripe) {
+
+                for (final Counter counter : stripe.counters.values()) {
+
+                    total += counter.value;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @param key Flag and variation.
+     * @return Count of the key, 0 if not counted.
+     */
+    public long get(final SummaryMetrics key) {
+
+        final Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+
+            final Counter counter = stripe.counters.get(key);
+            return counter == null ? 0L : counter.value;
+        }
+    }
+
+    private Stripe stripeOf(final SummaryMetrics key) {
+
+        final int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+
+        private Map<SummaryMetrics, Counter> counters;
+
+        {
+
+            counters = new HashMap<>();
+        }
+    }
+
+    private static final class Counter {
+
+        private long value;
+
+        Counter(final long value) {
+
+            this.value = value;
+        }
+    }
+}
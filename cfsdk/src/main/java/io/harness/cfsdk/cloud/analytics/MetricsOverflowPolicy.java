@@ -0,0 +1,28 @@
+package io.harness.cfsdk.cloud.analytics;
+
+/**
+ * What happens to the evaluations read while the metrics counters are at their capacity, that is
+ * while there are as many distinct flag and variation pairs counted as the metrics capacity. Reads of
+ * the pairs counted already are always counted. Recording never waits for the counts to be sent.
+ */
+public enum MetricsOverflowPolicy {
+
+    /**
+     * Reads of the pairs not counted yet are dropped until the counts are sent, which is requested
+     * in the background as soon as the capacity is reached.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Like {@link #DROP_NEWEST}, but one in {@link AnalyticsManager#OVERFLOW_SAMPLE_RATE} of the
+     * overflowing reads is counted, weighted by the rate, past the capacity. The pair it belongs to is
+     * then counted as any other until the counts are sent.
+     */
+    SAMPLE,
+
+    /**
+     * The capacity is ignored, all reads are counted and sent with the next scheduled publishing.
+     * The counters are bounded by the number of flag variations only.
+     */
+    AGGREGATE_ONLY
+}
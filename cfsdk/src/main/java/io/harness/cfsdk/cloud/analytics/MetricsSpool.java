@@ -0,0 +1,281 @@
+package io.harness.cfsdk.cloud.analytics;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import io.harness.cfsdk.cloud.analytics.model.Metrics;
+import io.harness.cfsdk.cloud.core.client.ApiException;
+import io.harness.cfsdk.logging.CfLog;
+
+/**
+ * Metrics batches that could not be sent, kept on disk so they survive the process, one file per batch.
+ * <p>
+ * The spool is bounded by the total size of its files: when a new batch does not fit, the oldest batches
+ * are dropped first. {@link #replay(Sender)} sends the batches oldest first and removes each one once sent.
+ * The batches are sent to the environment of the spool, see {@link #forEnvironment(File, String, long)}.
+ */
+public class MetricsSpool {
+
+    private static final String SUFFIX = ".json";
+
+    private final File dir;
+    private final Gson gson;
+    private final long maxBytes;
+    private final String logTag;
+    private final Charset charset;
+
+    private long sequence;
+
+    {
+
+        gson = new Gson();
+        charset = Charset.forName("UTF-8");
+        logTag = MetricsSpool.class.getSimpleName();
+    }
+
+    /**
+     * @param dir      Directory of the spool, created with the first batch if it doesn't exist.
+     * @param maxBytes Maximum size of all spooled batches together.
+     */
+    public MetricsSpool(final File dir, final long maxBytes) {
+
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Spool of the batches of a single environment, so the batches spooled with another API key or environment
+     * are never replayed to this one.
+     *
+     * @param root          Directory holding the spools of all environments.
+     * @param environmentID Environment the batches are sent to.
+     * @param maxBytes      Maximum size of all spooled batches of the environment together.
+     * @return Spool in its own subdirectory of the root.
+     */
+    public static MetricsSpool forEnvironment(final File root, final String environmentID, final long maxBytes) {
+
+        final String name = String.valueOf(environmentID).replaceAll("[^A-Za-z0-9_-]", "_");
+        return new MetricsSpool(new File(root, name), maxBytes);
+    }
+
+    /**
+     * @param e Sending failure.
+     * @return True if the batch may be accepted when sent again: the network and server failures, timeouts,
+     * rate limiting and authorization failures, as the token is renewed. Any other client error rejects the
+     * batch itself.
+     */
+    public static boolean isRetryable(final ApiException e) {
+
+        final int code = e.getCode();
+        return code < 400 || code >= 500 || code == 401 || code == 403 || code == 408 || code == 429;
+    }
+
+    /**
+     * Sends one spooled batch.
+     */
+    public interface Sender {
+
+        void send(Metrics metrics) throws ApiException;
+    }
+
+    /**
+     * Keep the batch until it is replayed, dropping the oldest batches if the spool is full.
+     *
+     * @param metrics Batch that could not be sent.
+     * @return True == Batch spooled.
+     */
+    public synchronized boolean offer(final Metrics metrics) {
+
+        final byte[] bytes = gson.toJson(metrics).getBytes(charset);
+        if (bytes.length > maxBytes) {
+
+            CfLog.OUT.w(logTag, "Metrics batch dropped, larger than the spool: " + bytes.length);
+            return false;
+        }
+
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+
+            CfLog.OUT.e(logTag, "Spool directory could not be created: " + dir);
+            return false;
+        }
+
+        final List<File> files = files();
+        long total = bytes.length;
+        for (final File file : files) {
+
+            total += file.length();
+        }
+
+        for (final File oldest : files) {
+
+            if (total <= maxBytes) {
+
+                break;
+            }
+
+            total -= oldest.length();
+            CfLog.OUT.w(logTag, "Spool full, dropping the oldest metrics batch: " + oldest.getName());
+            delete(oldest);
+        }
+
+        final File file = new File(dir, nextName(files));
+        final File temporary = new File(file.getPath() + ".tmp");
+        try {
+
+            try (final FileOutputStream out = new FileOutputStream(temporary)) {
+
+                out.write(bytes);
+            }
+
+            if (!temporary.renameTo(file)) {
+
+                CfLog.OUT.e(logTag, "Spool file could not be written: " + file);
+                delete(temporary);
+                return false;
+            }
+            return true;
+
+        } catch (IOException e) {
+
+            CfLog.OUT.e(logTag, "Spool file write failed", e);
+            delete(temporary);
+            return false;
+        }
+    }
+
+    /**
+     * Send the spooled batches oldest first, each one is removed once sent. A batch rejected with a
+     * non-retryable status, see {@link #isRetryable(ApiException)}, is dropped. Stops at the first retryable
+     * failure, the failed batch and the following ones stay spooled.
+     *
+     * @param sender Sends a batch.
+     * @return Number of batches sent.
+     * @throws ApiException The retryable sending failure.
+     */
+    public synchronized int replay(final Sender sender) throws ApiException {
+
+        int sent = 0;
+        for (final File file : files()) {
+
+            final Metrics metrics = read(file);
+            if (metrics != null) {
+
+                try {
+
+                    sender.send(metrics);
+                    sent++;
+
+                } catch (ApiException e) {
+
+                    if (isRetryable(e)) {
+
+                        throw e;
+                    }
+                    CfLog.OUT.e(logTag, "Spooled metrics batch dropped, rejected: " + e.getCode(), e);
+                }
+            }
+            delete(file);
+        }
+        return sent;
+    }
+
+    /**
+     * @return Number of spooled batches.
+     */
+    public synchronized int size() {
+
+        return files().size();
+    }
+
+    public synchronized boolean isEmpty() {
+
+        return files().isEmpty();
+    }
+
+    /**
+     * @return Size of all spooled batches together.
+     */
+    public synchronized long getBytes() {
+
+        long total = 0L;
+        for (final File file : files()) {
+
+            total += file.length();
+        }
+        return total;
+    }
+
+    /**
+     * Spooled batch files, oldest first.
+     */
+    private List<File> files() {
+
+        final File[] found = dir.listFiles((directory, name) -> name.endsWith(SUFFIX));
+        if (found == null || found.length == 0) {
+
+            return Collections.emptyList();
+        }
+
+        final List<File> files = new ArrayList<>(Arrays.asList(found));
+        Collections.sort(files, (first, second) -> first.getName().compareTo(second.getName()));
+        return files;
+    }
+
+    /**
+     * File names sort in the spooling order, also across the processes.
+     */
+    private String nextName(final List<File> files) {
+
+        long next = Math.max(System.currentTimeMillis() * 1000L, sequence + 1);
+        if (!files.isEmpty()) {
+
+            final String newest = files.get(files.size() - 1).getName();
+            try {
+
+                next = Math.max(next, Long.parseLong(newest.substring(0, newest.length() - SUFFIX.length())) + 1);
+
+            } catch (NumberFormatException e) {
+
+                CfLog.OUT.w(logTag, "Unexpected spool file: " + newest);
+            }
+        }
+
+        sequence = next;
+        return String.format(Locale.US, "%020d%s", next, SUFFIX);
+    }
+
+    private Metrics read(final File file) {
+
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+
+            final byte[] bytes = new byte[(int) file.length()];
+            in.readFully(bytes);
+            return gson.fromJson(new String(bytes, charset), Metrics.class);
+
+        } catch (IOException | JsonParseException e) {
+
+            CfLog.OUT.e(logTag, "Spooled metrics batch dropped, unreadable: " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private void delete(final File file) {
+
+        if (file.exists() && !file.delete()) {
+
+            CfLog.OUT.w(logTag, "Spool file could not be deleted: " + file);
+        }
+    }
+}
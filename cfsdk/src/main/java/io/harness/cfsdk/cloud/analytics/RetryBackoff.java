@@ -0,0 +1,66 @@
+package io.harness.cfsdk.cloud.analytics;
+
+/**
+ * Exponential backoff between sending attempts: the delay doubles with every consecutive failure, up to
+ * the maximum, and is cleared by the first success.
+ */
+public class RetryBackoff {
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private int failures;
+    private long retryAt;
+
+    /**
+     * @param baseDelayMillis Delay after the first failure.
+     * @param maxDelayMillis  Maximum delay.
+     */
+    public RetryBackoff(final long baseDelayMillis, final long maxDelayMillis) {
+
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * @param now Current time in milliseconds.
+     * @return True == The next attempt is not due yet.
+     */
+    public synchronized boolean isWaiting(final long now) {
+
+        return now < retryAt;
+    }
+
+    /**
+     * @param now Time of the failure in milliseconds.
+     * @return Delay until the next attempt.
+     */
+    public synchronized long onFailure(final long now) {
+
+        failures++;
+
+        long delay = baseDelayMillis;
+        for (int i = 1; i < failures && delay < maxDelayMillis; i++) {
+
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxDelayMillis);
+
+        retryAt = now + delay;
+        return delay;
+    }
+
+    /**
+     * Clear the backoff, the next attempt is due immediately.
+     */
+    public synchronized void reset() {
+
+        failures = 0;
+        retryAt = 0L;
+    }
+
+    public synchronized int getFailures() {
+
+        return failures;
+    }
+}
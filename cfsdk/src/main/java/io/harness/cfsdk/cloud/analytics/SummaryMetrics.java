@@ -1,5 +1,9 @@
 package io.harness.cfsdk.cloud.analytics;
 
+/**
+ * Flag and variation the evaluations are counted by. Equal when all fields are equal, hashing does not
+ * allocate. Must not be modified while used as a {@link MetricsCounters} key.
+ */
 public class SummaryMetrics {
 
     private String featureName;
@@ -43,6 +47,33 @@ public class SummaryMetrics {
         this.variationValue = variationValue;
     }
 
+    @Override
+    public boolean equals(Object o) {
+
+        if (this == o) {
+
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+
+            return false;
+        }
+
+        final SummaryMetrics other = (SummaryMetrics) o;
+        return equal(featureName, other.featureName) &&
+                equal(variationValue, other.variationValue) &&
+                equal(variationIdentifier, other.variationIdentifier);
+    }
+
+    @Override
+    public int hashCode() {
+
+        int result = featureName != null ? featureName.hashCode() : 0;
+        result = 31 * result + (variationValue != null ? variationValue.hashCode() : 0);
+        result = 31 * result + (variationIdentifier != null ? variationIdentifier.hashCode() : 0);
+        return result;
+    }
+
     @Override
     public String toString() {
 
@@ -52,4 +83,9 @@ public class SummaryMetrics {
                 ", variationIdentifier='" + variationIdentifier + '\'' +
                 '}';
     }
+
+    private static boolean equal(final String a, final String b) {
+
+        return a == null ? b == null : a.equals(b);
+    }
 }
@@ -2,6 +2,7 @@ package io.harness.cfsdk.cloud.analytics.model;
 
 import java.util.Objects;
 
+import io.harness.cfsdk.cloud.analytics.SummaryMetrics;
 import io.harness.cfsdk.cloud.core.model.Variation;
 import io.harness.cfsdk.cloud.model.Target;
 
@@ -10,6 +11,7 @@ public class Analytics {
     private Target target;
     private String evaluationId;
     private Variation variation;
+    private volatile SummaryMetrics summaryMetrics;
 
     public Analytics(
 
@@ -51,6 +53,27 @@ public class Analytics {
     public void setVariation(Variation variation) {
 
         this.variation = variation;
+        this.summaryMetrics = null;
+    }
+
+    /**
+     * @return Flag and variation this entry is counted by. Created on first use and reused, so counting
+     * the same entry again does not allocate.
+     */
+    public SummaryMetrics getSummaryMetrics() {
+
+        SummaryMetrics key = summaryMetrics;
+        if (key == null) {
+
+            key = new SummaryMetrics(
+
+                    variation.getName(),
+                    variation.getValue(),
+                    variation.getIdentifier()
+            );
+            summaryMetrics = key;
+        }
+        return key;
     }
 
     @Override
@@ -0,0 +1,203 @@
+package io.harness.cfsdk.cloud.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms of the evaluations cache, shared by the cache and the repository
+ * using it. All values are cumulative since creation or the last {@link #reset()}.
+ * <p>
+ * <ul>
+ *     <li>Hits and misses count the flag reads of the variation methods that have, or have not, been
+ *     served from the in-memory evaluations.</li>
+ *     <li>Network fetches count the flag reads that have missed and requested the evaluation from the server.</li>
+ *     <li>Network fallbacks count the reads served from the cache because the network was unavailable
+ *     or the request failed.</li>
+ *     <li>Storage hits and misses count the reads of the {@link CloudCache} that have, or have not, found
+ *     the evaluations, mostly seeding the in-memory evaluations.</li>
+ *     <li>{@link #getLoad()} and {@link #getSave()} time the cache reads and writes as seen by the caller.</li>
+ *     <li>{@link #getRestore()} and {@link #getPersist()} time the storage work of caches reporting it,
+ *     see {@link Instrumented}. {@link DefaultCache} does it on its own thread.</li>
+ *     <li>{@link #getFetch()} times the evaluation requests made to the server.</li>
+ * </ul>
+ */
+public final class CacheStats {
+
+    /**
+     * Implemented by caches that report the timings of their own storage work.
+     */
+    public interface Instrumented {
+
+        /**
+         * @param stats Stats to report to, null to stop reporting.
+         */
+        void setCacheStats(CacheStats stats);
+    }
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong networkFetches;
+    private final AtomicLong networkFallbacks;
+    private final AtomicLong storageHits;
+    private final AtomicLong storageMisses;
+    private final LatencyHistogram load;
+    private final LatencyHistogram save;
+    private final LatencyHistogram restore;
+    private final LatencyHistogram persist;
+    private final LatencyHistogram fetch;
+
+    {
+
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        networkFetches = new AtomicLong();
+        networkFallbacks = new AtomicLong();
+        storageHits = new AtomicLong();
+        storageMisses = new AtomicLong();
+        load = new LatencyHistogram("load");
+        save = new LatencyHistogram("save");
+        restore = new LatencyHistogram("restore");
+        persist = new LatencyHistogram("persist");
+        fetch = new LatencyHistogram("fetch");
+    }
+
+    public void recordHit() {
+
+        hits.incrementAndGet();
+    }
+
+    public void recordMiss() {
+
+        misses.incrementAndGet();
+    }
+
+    public void recordNetworkFetch() {
+
+        networkFetches.incrementAndGet();
+    }
+
+    public void recordNetworkFallback() {
+
+        networkFallbacks.incrementAndGet();
+    }
+
+    public void recordStorageHit() {
+
+        storageHits.incrementAndGet();
+    }
+
+    public void recordStorageMiss() {
+
+        storageMisses.incrementAndGet();
+    }
+
+    public long getHitCount() {
+
+        return hits.get();
+    }
+
+    public long getMissCount() {
+
+        return misses.get();
+    }
+
+    /**
+     * @return Share of the flag reads served from the in-memory evaluations, 0 if there were no reads.
+     */
+    public double getHitRate() {
+
+        final long found = hits.get();
+        final long reads = found + misses.get();
+        return reads == 0 ? 0d : (double) found / reads;
+    }
+
+    public long getNetworkFetchCount() {
+
+        return networkFetches.get();
+    }
+
+    public long getNetworkFallbackCount() {
+
+        return networkFallbacks.get();
+    }
+
+    public long getStorageHitCount() {
+
+        return storageHits.get();
+    }
+
+    public long getStorageMissCount() {
+
+        return storageMisses.get();
+    }
+
+    /**
+     * @return Latency of the cache reads.
+     */
+    public LatencyHistogram getLoad() {
+
+        return load;
+    }
+
+    /**
+     * @return Latency of the cache writes, as seen by the caller.
+     */
+    public LatencyHistogram getSave() {
+
+        return save;
+    }
+
+    /**
+     * @return Latency of loading the persisted cache from the storage.
+     */
+    public LatencyHistogram getRestore() {
+
+        return restore;
+    }
+
+    /**
+     * @return Latency of writing the cache to the storage.
+     */
+    public LatencyHistogram getPersist() {
+
+        return persist;
+    }
+
+    /**
+     * @return Latency of the evaluation requests.
+     */
+    public LatencyHistogram getFetch() {
+
+        return fetch;
+    }
+
+    public void reset() {
+
+        hits.set(0L);
+        misses.set(0L);
+        networkFetches.set(0L);
+        networkFallbacks.set(0L);
+        storageHits.set(0L);
+        storageMisses.set(0L);
+        load.reset();
+        save.reset();
+        restore.reset();
+        persist.reset();
+        fetch.reset();
+    }
+
+    @Override
+    public String toString() {
+
+        return "CacheStats{hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", networkFetches=" + getNetworkFetchCount() +
+                ", networkFallbacks=" + getNetworkFallbackCount() +
+                ", storageHits=" + getStorageHitCount() +
+                ", storageMisses=" + getStorageMissCount() +
+                ", " + load +
+                ", " + save +
+                ", " + restore +
+                ", " + persist +
+                ", " + fetch + "}";
+    }
+}
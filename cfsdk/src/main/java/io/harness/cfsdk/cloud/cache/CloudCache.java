@@ -1,11 +1,39 @@
 package io.harness.cfsdk.cloud.cache;
 
+import androidx.annotation.Nullable;
+
 import java.util.List;
 
 import io.harness.cfsdk.cloud.core.model.Evaluation;
 
 public interface CloudCache {
 
+    /**
+     * Implemented by caches that persist the entity tag of the evaluations saved from a full reload
+     * next to them, so the first reload after a restart can be a conditional request.
+     * <p>
+     * The tag of an environment is dropped by any other change of its evaluations, by evicting them and
+     * by clearing the cache, as the evaluations no longer match the server version it stands for.
+     */
+    interface ETagged {
+
+        /**
+         * @param env Environment and target key.
+         * @return Entity tag of the cached evaluations, null if unknown.
+         */
+        @Nullable
+        String getETag(String env);
+
+        /**
+         * Save all evaluations of a full reload together with its entity tag.
+         *
+         * @param env         Environment and target key.
+         * @param evaluations All evaluations.
+         * @param eTag        Entity tag of the reload response, null if unknown.
+         */
+        void saveAllEvaluations(String env, List<Evaluation> evaluations, @Nullable String eTag);
+    }
+
     Evaluation getEvaluation(String env, String key);
 
     void saveEvaluation(String env, String key, Evaluation evaluation);
@@ -5,38 +5,477 @@ import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.google.gson.Gson;
 import com.orhanobut.hawk.Hawk;
 
+import java.io.File;
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.common.SdkScheduler;
+import io.harness.cfsdk.logging.CfLog;
 
-public class DefaultCache implements CloudCache {
+/**
+ * Default {@link CloudCache} implementation keeping the evaluations in memory and persisting them with Hawk.
+ * <p>
+ * By default every change persists the whole cache. In the journaled mode each change is appended to an
+ * {@link EvaluationJournal} instead, costing as much as the changed entries, and the whole cache is persisted
+ * only when the journal is compacted, after {@link #COMPACTION_THRESHOLD} changes, or after a change that
+ * could not be appended. The journal is not encrypted, so the journaled mode is off unless enabled. Persisting
+ * always happens on a background thread.
+ * <p>
+ * Whole cache writes are coalesced: a change marks the cache dirty and the cache is persisted once the write
+ * delay has passed, together with all changes made in the meantime. {@link #flush()} persists the pending
+ * changes immediately, the client calls it when it is destroyed.
+ * <p>
+ * The constructor returns immediately, Hawk is initialized and the persisted cache loaded on the cache executor.
+ * Reads and changes wait for the load only while it is still in progress. If the load fails the cache starts
+ * empty, and if Hawk can't be initialized the cache is kept in memory only.
+ * <p>
+ * The evaluations are kept as an immutable copy-on-write map published through a volatile reference: reads
+ * never lock and always see a whole change, and a change is visible as soon as the call making it returns.
+ * Only persisting the change is left to the cache executor, a serial executor on the threads shared by
+ * the SDK.
+ * <p>
+ * The cache is bounded per environment and target key: keys not used for longer than the maximum age are
+ * evicted, and the least recently used keys are evicted once there are more than the maximum number of them.
+ * Both limits are configured with the {@link Builder}.
+ * <p>
+ * The entity tag of the evaluations saved from a full reload is persisted with them, see {@link CloudCache.ETagged}.
+ * <p>
+ * The time spent loading the persisted cache and persisting it is reported to the {@link CacheStats}
+ * set with {@link #setCacheStats(CacheStats)}.
+ */
+public class DefaultCache implements CloudCache, CloudCache.ETagged, Flushable, CacheStats.Instrumented {
 
+    /**
+     * Default delay of a whole cache write after the first change not persisted yet.
+     */
+    public static final long DEFAULT_WRITE_DELAY_MILLIS = 500L;
+
+    /**
+     * Default maximum number of environment and target keys kept.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+
+    /**
+     * Default maximum age of an environment and target key since its last use.
+     */
+    public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    /**
+     * Number of journal records after which the journal is compacted into the persisted cache.
+     */
+    public static final int COMPACTION_THRESHOLD = 256;
+
+    private static final String JOURNAL_FILE = "cf_evaluations.journal";
+
+    private final String logTag;
     private final String key_all;
-    private final Executor executor;
-    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Evaluation>> evaluations;
+    private final String key_access;
+    private final String key_etag;
+    private final int maxEntries;
+    private final long maxAgeMillis;
+    private final AtomicBoolean dirty;
+    private final long writeDelayMillis;
+    private final AtomicBoolean writeScheduled;
+    private final AtomicBoolean restoreReported;
+    private final boolean journaled;
+    private final CountDownLatch loaded;
+    private final SdkScheduler.SerialExecutor executor;
+    private final ConcurrentHashMap<String, Long> lastUsed;
+    private final ConcurrentHashMap<String, String> eTags;
+    private final Object writeLock;
+    private final Storage storage;
+    private final Gson gson;
+
+    /**
+     * Set by the load, accessed on the cache executor only.
+     */
+    private EvaluationJournal journal;
+
+    /**
+     * Set by the load once the storage is initialized, accessed on the cache executor only.
+     * The changes are not persisted without it.
+     */
+    private boolean storageReady;
+
+    /**
+     * Never modified once published, changes publish a modified copy while holding the write lock.
+     */
+    private volatile Map<String, Map<String, Evaluation>> evaluations;
+
+    private volatile CacheStats stats;
+    private volatile long restoreNanos;
+
+    {
+
+        restoreNanos = -1L;
+        restoreReported = new AtomicBoolean();
+
+        loaded = new CountDownLatch(1);
+        lastUsed = new ConcurrentHashMap<>();
+        eTags = new ConcurrentHashMap<>();
+        writeLock = new Object();
+        evaluations = Collections.emptyMap();
+        dirty = new AtomicBoolean();
+        writeScheduled = new AtomicBoolean();
+        logTag = DefaultCache.class.getSimpleName();
+    }
 
     public DefaultCache(final Context appContext) {
 
-        Hawk.init(appContext).build();
+        this(appContext, false);
+    }
+
+    /**
+     * @param appContext Application context.
+     * @param journaled  True == Changes are appended to a journal, compacted in the background,
+     *                   instead of persisting the whole cache on every change. The journal is not encrypted.
+     */
+    public DefaultCache(final Context appContext, final boolean journaled) {
+
+        this(appContext, journaled, DEFAULT_WRITE_DELAY_MILLIS);
+    }
+
+    /**
+     * @param appContext       Application context.
+     * @param journaled        True == Changes are appended to a journal, compacted in the background,
+     *                         instead of persisting the whole cache on every change. The journal is not
+     *                         encrypted.
+     * @param writeDelayMillis Delay of a whole cache write after the first change not persisted yet,
+     *                         the changes made during the delay are written together.
+     */
+    public DefaultCache(final Context appContext, final boolean journaled, final long writeDelayMillis) {
+
+        this(appContext, journaled, writeDelayMillis, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    private DefaultCache(
+
+            final Context appContext,
+            final boolean journaled,
+            final long writeDelayMillis,
+            final int maxEntries,
+            final long maxAgeMillis
+    ) {
 
+        this(appContext, journaled, writeDelayMillis, maxEntries, maxAgeMillis, new HawkStorage());
+    }
+
+    DefaultCache(
+
+            final Context appContext,
+            final boolean journaled,
+            final long writeDelayMillis,
+            final int maxEntries,
+            final long maxAgeMillis,
+            final Storage storage
+    ) {
+
+        this.storage = storage;
+        gson = new Gson();
         key_all = "all_evaluations";
-        executor = Executors.newSingleThreadExecutor();
-        evaluations = new ConcurrentHashMap<>(Hawk.get(key_all, new ConcurrentHashMap<>()));
+        key_access = "evaluations_last_used";
+        key_etag = "evaluations_etag";
+        this.journaled = journaled;
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAgeMillis;
+        this.writeDelayMillis = Math.max(0L, writeDelayMillis);
+        executor = SdkScheduler.getInstance().newSerialExecutor();
+        executor.execute(() -> load(appContext));
+    }
+
+    public static Builder builder(final Context appContext) {
+
+        return new Builder(appContext);
+    }
+
+    @Override
+    public void setCacheStats(final CacheStats stats) {
+
+        this.stats = stats;
+        reportRestore();
+    }
+
+    /**
+     * Initialize the storage and load the persisted cache, replaying the journal if enabled. Runs on the cache
+     * executor before any other task.
+     */
+    private void load(final Context appContext) {
+
+        final long start = System.nanoTime();
+        try {
+
+            storage.init(appContext);
+            storageReady = true;
+
+            final Map<String, Map<String, Evaluation>> restored = new HashMap<>();
+            final Map<String, ?> persisted = storage.get(key_all, new HashMap<String, Object>());
+            for (final Map.Entry<String, ?> entry : persisted.entrySet()) {
+
+                if (entry.getValue() instanceof Map) {
+
+                    restored.put(entry.getKey(), restore((Map<?, ?>) entry.getValue()));
+                }
+            }
+
+            final Map<String, ?> persistedUse = storage.get(key_access, new HashMap<String, Long>());
+            for (final Map.Entry<String, ?> entry : persistedUse.entrySet()) {
+
+                if (entry.getValue() instanceof Number) {
+
+                    lastUsed.put(entry.getKey(), ((Number) entry.getValue()).longValue());
+                }
+            }
+
+            final Map<String, ?> persistedETags = storage.get(key_etag, new HashMap<String, String>());
+            for (final Map.Entry<String, ?> entry : persistedETags.entrySet()) {
+
+                if (entry.getValue() instanceof String) {
+
+                    eTags.put(entry.getKey(), (String) entry.getValue());
+                }
+            }
+
+            if (journaled) {
+
+                CfLog.OUT.w(logTag, "Journaling enabled, the changes since the last compaction are stored unencrypted");
+
+                journal = new EvaluationJournal(new File(appContext.getFilesDir(), JOURNAL_FILE));
+                final int replayed = journal.replay(new EvaluationJournal.Visitor() {
+
+                    @Override
+                    public void onSave(final String env, final String key, final Evaluation evaluation) {
+
+                        save(restored, env, key, evaluation);
+                        eTags.remove(env);
+                    }
+
+                    @Override
+                    public void onSaveAll(
+
+                            final String env,
+                            final List<Evaluation> newEvaluations,
+                            @Nullable final String eTag
+                    ) {
+
+                        restored.put(env, index(newEvaluations));
+                        putETag(env, eTag);
+                    }
+
+                    @Override
+                    public void onRemove(final String env, final String key) {
+
+                        remove(restored, env, key);
+                        eTags.remove(env);
+                    }
+
+                    @Override
+                    public void onClear() {
+
+                        restored.clear();
+                        eTags.clear();
+                    }
+                });
+
+                CfLog.OUT.v(logTag, "Journal records replayed: " + replayed);
+            }
+
+            // A tag stands for the evaluations it has been saved with only:
+            eTags.keySet().retainAll(restored.keySet());
+
+            // Keys without a recorded use, for example persisted by an older version, start their age now:
+            final long now = System.currentTimeMillis();
+            for (final String env : restored.keySet()) {
+
+                if (!lastUsed.containsKey(env)) {
+
+                    lastUsed.put(env, now);
+                }
+            }
+
+            synchronized (writeLock) {
+
+                evaluations = restored;
+            }
+            persistChange(null);
+
+        } catch (RuntimeException e) {
+
+            CfLog.OUT.e(logTag, "Cache load failed, starting empty", e);
+            onLoadFailed();
+
+        } finally {
+
+            loaded.countDown();
+            restoreNanos = System.nanoTime() - start;
+            reportRestore();
+        }
+    }
+
+    /**
+     * Hawk keeps the class of the outer map only, so the persisted evaluations come back as generic
+     * maps. Converts them back, skipping the ones that can't be converted.
+     */
+    private Map<String, Evaluation> restore(final Map<?, ?> persisted) {
+
+        final Map<String, Evaluation> items = new HashMap<>();
+        for (final Map.Entry<?, ?> item : persisted.entrySet()) {
+
+            final Object value = item.getValue();
+            if (value instanceof Evaluation) {
+
+                items.put(String.valueOf(item.getKey()), (Evaluation) value);
+                continue;
+            }
+
+            try {
+
+                final Evaluation evaluation = gson.fromJson(gson.toJsonTree(value), Evaluation.class);
+                if (evaluation != null) {
+
+                    items.put(String.valueOf(item.getKey()), evaluation);
+                }
+
+            } catch (RuntimeException e) {
+
+                CfLog.OUT.e(logTag, "Persisted evaluation skipped: " + item.getKey(), e);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Start empty after a failed load. A journal that can't be replayed is dropped, without the storage
+     * the changes are kept in memory only. Runs on the cache executor.
+     */
+    private void onLoadFailed() {
+
+        synchronized (writeLock) {
+
+            evaluations = Collections.emptyMap();
+        }
+        lastUsed.clear();
+        eTags.clear();
+
+        if (journal != null) {
+
+            try {
+
+                journal.reset();
+
+            } catch (RuntimeException e) {
+
+                CfLog.OUT.e(logTag, "Journal reset failed, persisting the whole cache instead", e);
+                journal = null;
+            }
+        }
+
+        if (!storageReady) {
+
+            CfLog.OUT.w(logTag, "Storage not available, the cache is kept in memory only");
+            return;
+        }
+
+        // Overwrite what could not be loaded, so it is not loaded again together with the new changes:
+        try {
+
+            persistAll();
+
+        } catch (RuntimeException e) {
+
+            CfLog.OUT.e(logTag, "Storage not writable, the cache is kept in memory only", e);
+            storageReady = false;
+            journal = null;
+        }
+    }
+
+    /**
+     * Report the load time once, the stats may be set before or after the load completes.
+     */
+    private void reportRestore() {
+
+        final CacheStats current = stats;
+        if (current != null && restoreNanos >= 0 && restoreReported.compareAndSet(false, true)) {
+
+            current.getRestore().record(restoreNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Write the whole cache to the storage. Runs on the cache executor.
+     *
+     * @return True if written.
+     */
+    private boolean persistAll() {
+
+        if (!storageReady) {
+
+            return false;
+        }
+
+        final long start = System.nanoTime();
+        final boolean persisted = storage.put(key_all, evaluations)
+                && storage.put(key_etag, new HashMap<>(eTags))
+                && persistLastUsed();
+        recordPersist(start);
+        return persisted;
+    }
+
+    private void recordPersist(final long startNanos) {
+
+        final CacheStats current = stats;
+        if (current != null) {
+
+            current.getPersist().recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Wait for the load of the persisted cache if it is still in progress.
+     */
+    private void awaitLoad() {
+
+        // The load is the first task of the cache executor, its tasks never need to wait:
+        if (loaded.getCount() == 0 || executor.isCurrentThread()) {
+
+            return;
+        }
+
+        try {
+
+            loaded.await();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
     }
 
     @Override
     @Nullable
     public Evaluation getEvaluation(final String env, final String key) {
 
-        final ConcurrentHashMap<String, Evaluation> items = evaluations.get(env);
+        awaitLoad();
+        final Map<String, Evaluation> items = evaluations.get(env);
         if (items != null) {
 
+            touch(env);
             return items.get(key);
         }
         return null;
@@ -45,79 +484,571 @@ public class DefaultCache implements CloudCache {
     @Override
     public void saveEvaluation(final String env, final String key, final Evaluation evaluation) {
 
-        final Runnable action = () -> {
+        awaitLoad();
+        synchronized (writeLock) {
 
-            ConcurrentHashMap<String, Evaluation> items = evaluations.get(env);
-            if (items == null) {
+            final Map<String, Map<String, Evaluation>> next = new HashMap<>(evaluations);
+            save(next, env, key, evaluation);
+            evaluations = next;
+            eTags.remove(env);
+            touch(env);
 
-                items = new ConcurrentHashMap<>();
-                evaluations.put(env, items);
-            }
-            items.put(key, evaluation);
-
-            Hawk.put(key_all, evaluations);
-        };
-
-        executor.execute(action);
+            // Queued while holding the lock, so changes are persisted in the order they were published:
+            executor.execute(() -> persistChange(records -> records.appendSave(env, key, evaluation)));
+        }
     }
 
     @Override
     @NonNull
     public List<Evaluation> getAllEvaluations(final String env) {
 
-        final ConcurrentHashMap<String, Evaluation> items = evaluations.get(env);
+        awaitLoad();
+        final Map<String, Evaluation> items = evaluations.get(env);
         if (items != null) {
 
+            touch(env);
             return new LinkedList<>(items.values());
         }
         return new LinkedList<>();
     }
 
+    @Override
+    @Nullable
+    public String getETag(final String env) {
+
+        awaitLoad();
+        return eTags.get(env);
+    }
+
     @Override
     public void saveAllEvaluations(final String env, final List<Evaluation> newEvaluations) {
 
-        final Runnable action = () -> {
+        saveAllEvaluations(env, newEvaluations, null);
+    }
+
+    @Override
+    public void saveAllEvaluations(
 
-            final ConcurrentHashMap<String, Evaluation> items = new ConcurrentHashMap<>();
-            for (final Evaluation item : newEvaluations) {
+            final String env,
+            final List<Evaluation> newEvaluations,
+            @Nullable final String eTag
+    ) {
 
-                items.put(item.getIdentifier(), item);
-            }
+        final Map<String, Evaluation> items = index(newEvaluations);
+
+        awaitLoad();
+        synchronized (writeLock) {
+
+            if (isUnchanged(evaluations.get(env), items) && Objects.equals(eTags.get(env), eTag)) {
 
-            evaluations.put(env, items);
+                // Nothing changed, such as a reload returning the same evaluations, nothing to persist:
+                touch(env);
+                return;
+            }
 
-            Hawk.put(key_all, evaluations);
-        };
+            final Map<String, Map<String, Evaluation>> next = new HashMap<>(evaluations);
+            next.put(env, items);
+            evaluations = next;
+            putETag(env, eTag);
+            touch(env);
 
-        executor.execute(action);
+            executor.execute(() -> persistChange(records -> records.appendSaveAll(env, newEvaluations, eTag)));
+        }
     }
 
     @Override
     public void removeEvaluation(final String env, final String key) {
 
-        final Runnable action = () -> {
+        awaitLoad();
+        synchronized (writeLock) {
+
+            final Map<String, Map<String, Evaluation>> next = new HashMap<>(evaluations);
+            remove(next, env, key);
+            evaluations = next;
+            eTags.remove(env);
+
+            executor.execute(() -> persistChange(records -> records.appendRemove(env, key)));
+        }
+    }
+
+    @Override
+    public void clear() {
+
+        awaitLoad();
+        synchronized (writeLock) {
+
+            evaluations = Collections.emptyMap();
+            lastUsed.clear();
+            eTags.clear();
+
+            executor.execute(this::persistClear);
+        }
+    }
+
+    /**
+     * Persist the cleared cache. Runs on the cache executor.
+     */
+    private void persistClear() {
+
+        if (!storageReady) {
+
+            return;
+        }
+
+        if (journal != null) {
+
+            dirty.set(false);
+            if (persistAll()) {
+
+                // The cleared state is persisted already, older records must not be replayed:
+                journal.reset();
 
-            final ConcurrentHashMap<String, Evaluation> items = evaluations.get(env);
-            if (items != null) {
+            } else if (!journal.appendClear()) {
 
-                items.remove(key);
+                markDirty();
             }
 
-            Hawk.put(key_all, evaluations);
-        };
+        } else {
 
-        executor.execute(action);
+            markDirty();
+        }
     }
 
+    /**
+     * Persist the pending changes now, blocking until they are written. Called from a task of the cache
+     * executor, the changes are persisted in place.
+     */
     @Override
-    public void clear() {
+    public void flush() {
+
+        final FutureTask<Void> task = new FutureTask<>(() -> {
+
+            persistIfDirty();
+            if (journal != null && storageReady) {
+
+                persistLastUsed();
+            }
+        }, null);
+
+        if (executor.isCurrentThread()) {
+
+            task.run();
+
+        } else {
+
+            executor.execute(task);
+        }
+        try {
+
+            task.get();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        } catch (ExecutionException e) {
+
+            CfLog.OUT.e(logTag, "Flush failed", e);
+        }
+    }
+
+    /**
+     * Save into the given map, replacing the environment's evaluations with a modified copy so that
+     * the published ones are not modified.
+     */
+    private static void save(
+
+            final Map<String, Map<String, Evaluation>> target,
+            final String env,
+            final String key,
+            final Evaluation evaluation
+    ) {
+
+        final Map<String, Evaluation> current = target.get(env);
+        final Map<String, Evaluation> items = current == null ? new HashMap<>() : new HashMap<>(current);
+        items.put(key, evaluation);
+        target.put(env, items);
+    }
+
+    private static void remove(
+
+            final Map<String, Map<String, Evaluation>> target,
+            final String env,
+            final String key
+    ) {
+
+        final Map<String, Evaluation> current = target.get(env);
+        if (current != null && current.containsKey(key)) {
+
+            final Map<String, Evaluation> items = new HashMap<>(current);
+            items.remove(key);
+            target.put(env, items);
+        }
+    }
+
+    private static Map<String, Evaluation> index(final List<Evaluation> newEvaluations) {
+
+        final Map<String, Evaluation> items = new HashMap<>();
+        for (final Evaluation item : newEvaluations) {
+
+            items.put(item.getFlag(), item);
+        }
+        return items;
+    }
+
+    /**
+     * Evaluations are equal by flag and value only, the variation and kind are compared as well.
+     */
+    private static boolean isUnchanged(
+
+            @Nullable final Map<String, Evaluation> current,
+            final Map<String, Evaluation> items
+    ) {
+
+        if (current == null || current.size() != items.size()) {
+
+            return false;
+        }
+
+        for (final Map.Entry<String, Evaluation> entry : items.entrySet()) {
+
+            final Evaluation item = entry.getValue();
+            final Evaluation existing = current.get(entry.getKey());
+            if (existing == null
+                    || !existing.equals(item)
+                    || !Objects.equals(existing.getIdentifier(), item.getIdentifier())
+                    || !Objects.equals(existing.getKind(), item.getKind())) {
+
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void putETag(final String env, @Nullable final String eTag) {
+
+        if (eTag != null) {
+
+            eTags.put(env, eTag);
+
+        } else {
+
+            eTags.remove(env);
+        }
+    }
+
+    private void touch(final String env) {
+
+        lastUsed.put(env, System.currentTimeMillis());
+    }
+
+    /**
+     * Evict what is over the limits and persist the change: appended to the journal if journaled,
+     * by a coalesced whole cache write otherwise. Runs on the cache executor.
+     *
+     * @param journalAppend Appends the change to the journal, null if there's no change to append.
+     */
+    private void persistChange(@Nullable final JournalAppend journalAppend) {
+
+        final boolean evicted = evict();
+
+        if (!storageReady) {
+
+            return;
+        }
+
+        if (journal != null) {
+
+            if (journalAppend != null) {
+
+                final long start = System.nanoTime();
+                final boolean appended = journalAppend.append(journal);
+                recordPersist(start);
+
+                if (!appended) {
+
+                    // The change is missing from the journal, only a whole cache write persists it:
+                    markDirty();
+                }
+            }
+            // The journal can't express evictions, compact so that replaying it can't restore them:
+            compactIfNeeded(evicted || dirty.get());
+
+        } else if (journalAppend != null || evicted) {
+
+            markDirty();
+        }
+    }
+
+    /**
+     * Evict the keys not used for longer than the maximum age, then the least recently used keys over
+     * the maximum number of keys. Publishes the remaining keys only if anything has been evicted.
+     *
+     * @return True if anything has been evicted.
+     */
+    private boolean evict() {
+
+        synchronized (writeLock) {
+
+            final Map<String, Map<String, Evaluation>> next = new HashMap<>(evaluations);
+            if (!evict(next)) {
+
+                return false;
+            }
+            evaluations = next;
+            return true;
+        }
+    }
+
+    private boolean evict(final Map<String, Map<String, Evaluation>> target) {
+
+        boolean evicted = false;
+
+        if (maxAgeMillis > 0) {
+
+            final long now = System.currentTimeMillis();
+            for (final String env : new ArrayList<>(target.keySet())) {
+
+                final Long used = lastUsed.get(env);
+                if (used != null && now - used > maxAgeMillis) {
+
+                    target.remove(env);
+                    lastUsed.remove(env);
+                    eTags.remove(env);
+                    evicted = true;
+
+                    CfLog.OUT.v(logTag, "Evicted, not used for too long: " + env);
+                }
+            }
+        }
 
-        final Runnable action = () -> {
+        if (maxEntries > 0 && target.size() > maxEntries) {
 
-            evaluations.clear();
-            Hawk.put(key_all, evaluations);
-        };
+            final List<String> keys = new ArrayList<>(target.keySet());
+            Collections.sort(keys, new Comparator<String>() {
 
-        executor.execute(action);
+                @Override
+                public int compare(final String a, final String b) {
+
+                    final long usedA = getLastUsed(a);
+                    final long usedB = getLastUsed(b);
+                    return usedA < usedB ? -1 : (usedA == usedB ? 0 : 1);
+                }
+            });
+
+            for (int i = 0; i < keys.size() - maxEntries; i++) {
+
+                target.remove(keys.get(i));
+                lastUsed.remove(keys.get(i));
+                eTags.remove(keys.get(i));
+                evicted = true;
+
+                CfLog.OUT.v(logTag, "Evicted, least recently used: " + keys.get(i));
+            }
+        }
+        return evicted;
+    }
+
+    private long getLastUsed(final String env) {
+
+        final Long used = lastUsed.get(env);
+        return used == null ? 0L : used;
+    }
+
+    private boolean persistLastUsed() {
+
+        if (!storageReady) {
+
+            return false;
+        }
+        return storage.put(key_access, new HashMap<>(lastUsed));
+    }
+
+    /**
+     * Schedule a whole cache write unless one is scheduled already. Runs on the cache executor.
+     */
+    private void markDirty() {
+
+        dirty.set(true);
+        if (writeScheduled.compareAndSet(false, true)) {
+
+            SdkScheduler.getInstance().schedule(
+
+                    () -> executor.execute(() -> {
+
+                        writeScheduled.set(false);
+                        persistIfDirty();
+                    }),
+                    writeDelayMillis
+            );
+        }
+    }
+
+    private void persistIfDirty() {
+
+        if (!dirty.compareAndSet(true, false)) {
+
+            return;
+        }
+
+        if (!persistAll()) {
+
+            CfLog.OUT.e(logTag, "Cache write failed");
+            dirty.set(true);
+            return;
+        }
+
+        if (journal != null) {
+
+            // All changes are persisted, including those missing from the journal:
+            journal.reset();
+        }
+    }
+
+    /**
+     * Persist the whole cache and drop the journal once it has grown past the threshold. Runs on the
+     * cache executor, after the change that has triggered it.
+     *
+     * @param force Compact regardless of the journal size.
+     */
+    private void compactIfNeeded(final boolean force) {
+
+        if (!force && journal.size() < COMPACTION_THRESHOLD) {
+
+            return;
+        }
+
+        if (!persistAll()) {
+
+            CfLog.OUT.e(logTag, "Journal compaction failed, keeping the journal");
+            markDirty();
+            return;
+        }
+        dirty.set(false);
+        journal.reset();
+
+        CfLog.OUT.v(logTag, "Journal compacted");
+    }
+
+    /**
+     * Appends a change to the journal.
+     */
+    private interface JournalAppend {
+
+        /**
+         * @return False if the change could not be appended.
+         */
+        boolean append(EvaluationJournal journal);
+    }
+
+    /**
+     * Storage the cache is persisted to.
+     */
+    interface Storage {
+
+        /**
+         * Prepare the storage, called on the cache executor before any other call.
+         */
+        void init(Context appContext);
+
+        <T> T get(String key, T defaultValue);
+
+        /**
+         * @return True if stored.
+         */
+        boolean put(String key, Object value);
+    }
+
+    private static final class HawkStorage implements Storage {
+
+        @Override
+        public void init(final Context appContext) {
+
+            Hawk.init(appContext).build();
+        }
+
+        @Override
+        public <T> T get(final String key, final T defaultValue) {
+
+            return Hawk.get(key, defaultValue);
+        }
+
+        @Override
+        public boolean put(final String key, final Object value) {
+
+            return Hawk.put(key, value);
+        }
+    }
+
+    /**
+     * Builds {@link DefaultCache} instances, all options default to the values of the constructors.
+     */
+    public static class Builder {
+
+        private final Context appContext;
+
+        private boolean journaled;
+        private long writeDelayMillis;
+        private int maxEntries;
+        private long maxAgeMillis;
+
+        {
+
+            maxEntries = DEFAULT_MAX_ENTRIES;
+            maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+            writeDelayMillis = DEFAULT_WRITE_DELAY_MILLIS;
+        }
+
+        private Builder(final Context appContext) {
+
+            this.appContext = appContext;
+        }
+
+        /**
+         * @param journaled True == Changes are appended to a journal instead of persisting the whole cache.
+         *                  The journal is stored unencrypted in the app's files directory until it is
+         *                  compacted, enable it only if the evaluations are not sensitive. Off by default.
+         * @return This builder.
+         */
+        public Builder journaled(final boolean journaled) {
+
+            this.journaled = journaled;
+            return this;
+        }
+
+        /**
+         * @param writeDelayMillis Delay of a whole cache write after the first change not persisted yet.
+         * @return This builder.
+         */
+        public Builder writeDelayMillis(final long writeDelayMillis) {
+
+            this.writeDelayMillis = writeDelayMillis;
+            return this;
+        }
+
+        /**
+         * @param maxEntries Maximum number of environment and target keys kept, 0 for no limit.
+         * @return This builder.
+         */
+        public Builder maxEntries(final int maxEntries) {
+
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param maxAgeMillis Maximum age of an environment and target key since its last use, 0 for no limit.
+         * @return This builder.
+         */
+        public Builder maxAgeMillis(final long maxAgeMillis) {
+
+            this.maxAgeMillis = maxAgeMillis;
+            return this;
+        }
+
+        public DefaultCache build() {
+
+            return new DefaultCache(appContext, journaled, writeDelayMillis, maxEntries, maxAgeMillis);
+        }
     }
 }
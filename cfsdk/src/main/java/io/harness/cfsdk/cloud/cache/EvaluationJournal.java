@@ -0,0 +1,267 @@
+package io.harness.cfsdk.cloud.cache;
+
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.logging.CfLog;
+
+/**
+ * Append-only log of the changes made to the cached evaluations.
+ * <p>
+ * Every change is written as a single JSON line, so persisting it costs as much as the changed entries
+ * and not as much as the whole cache. The journal is replayed on top of the last compacted state when
+ * the cache is loaded. Replaying is idempotent: each record overwrites the entries it touches, so a journal
+ * that has already been compacted but not reset yet leads to the same state.
+ * <p>
+ * The records are written in plain text to the app's private files directory, unlike the compacted cache
+ * that Hawk encrypts. Journaling trades that protection for cheaper writes and is therefore used only when
+ * enabled explicitly, see {@link DefaultCache.Builder#journaled(boolean)}.
+ * <p>
+ * Not thread safe, the owner serializes the access.
+ */
+class EvaluationJournal implements Closeable {
+
+    /**
+     * Applies the replayed records.
+     */
+    interface Visitor {
+
+        void onSave(String env, String key, Evaluation evaluation);
+
+        void onSaveAll(String env, List<Evaluation> evaluations, @Nullable String eTag);
+
+        void onRemove(String env, String key);
+
+        void onClear();
+    }
+
+    private static final String OP_SAVE = "save";
+    private static final String OP_SAVE_ALL = "save_all";
+    private static final String OP_REMOVE = "remove";
+    private static final String OP_CLEAR = "clear";
+
+    private final Gson gson;
+    private final File file;
+    private final String logTag;
+    private final Charset charset;
+
+    private int records;
+    private Writer writer;
+
+    {
+
+        gson = new Gson();
+        charset = Charset.forName("UTF-8");
+        logTag = EvaluationJournal.class.getSimpleName();
+    }
+
+    EvaluationJournal(final File file) {
+
+        this.file = file;
+    }
+
+    /**
+     * Replay all records in the order they have been appended. A record that can't be read, such as the
+     * last one when the process died while writing it, ends the replay.
+     *
+     * @return Number of records replayed.
+     */
+    int replay(final Visitor visitor) {
+
+        records = 0;
+        if (!file.exists()) {
+
+            return 0;
+        }
+
+        try (final BufferedReader reader = new BufferedReader(
+
+                new InputStreamReader(new FileInputStream(file), charset)
+        )) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+
+                final Record record = gson.fromJson(line, Record.class);
+                if (record == null || !apply(record, visitor)) {
+
+                    CfLog.OUT.w(logTag, "Journal record skipped: " + records);
+                    break;
+                }
+                records++;
+            }
+
+        } catch (IOException | JsonParseException e) {
+
+            CfLog.OUT.e(logTag, "Journal replay stopped after records: " + records, e);
+        }
+        return records;
+    }
+
+    boolean appendSave(final String env, final String key, final Evaluation evaluation) {
+
+        final Record record = new Record(OP_SAVE, env);
+        record.key = key;
+        record.value = evaluation;
+        return append(record);
+    }
+
+    boolean appendSaveAll(final String env, final List<Evaluation> evaluations, @Nullable final String eTag) {
+
+        final Record record = new Record(OP_SAVE_ALL, env);
+        record.values = evaluations;
+        record.eTag = eTag;
+        return append(record);
+    }
+
+    boolean appendRemove(final String env, final String key) {
+
+        final Record record = new Record(OP_REMOVE, env);
+        record.key = key;
+        return append(record);
+    }
+
+    boolean appendClear() {
+
+        return append(new Record(OP_CLEAR, null));
+    }
+
+    /**
+     * @return Number of records since the last reset.
+     */
+    int size() {
+
+        return records;
+    }
+
+    /**
+     * Drop all records, to be called once their effect has been persisted elsewhere.
+     */
+    void reset() {
+
+        close();
+        if (file.exists() && !file.delete()) {
+
+            CfLog.OUT.w(logTag, "Journal could not be deleted: " + file);
+        }
+        records = 0;
+    }
+
+    @Override
+    public void close() {
+
+        if (writer != null) {
+
+            try {
+
+                writer.close();
+
+            } catch (IOException e) {
+
+                CfLog.OUT.w(logTag, "Journal close failed: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * @return False if the record could not be written, the change it describes is then missing from
+     * the journal.
+     */
+    private boolean append(final Record record) {
+
+        try {
+
+            if (writer == null) {
+
+                writer = new BufferedWriter(
+
+                        new OutputStreamWriter(new FileOutputStream(file, true), charset)
+                );
+            }
+
+            writer.write(gson.toJson(record));
+            writer.write('\n');
+            writer.flush();
+            records++;
+            return true;
+
+        } catch (IOException e) {
+
+            CfLog.OUT.e(logTag, "Journal append failed", e);
+            close();
+            return false;
+        }
+    }
+
+    private static boolean apply(final Record record, final Visitor visitor) {
+
+        if (record.op == null || (record.env == null && !OP_CLEAR.equals(record.op))) {
+
+            return false;
+        }
+
+        switch (record.op) {
+
+            case OP_SAVE:
+
+                visitor.onSave(record.env, record.key, record.value);
+                return true;
+
+            case OP_SAVE_ALL:
+
+                if (record.values == null) {
+
+                    return false;
+                }
+                visitor.onSaveAll(record.env, record.values, record.eTag);
+                return true;
+
+            case OP_REMOVE:
+
+                visitor.onRemove(record.env, record.key);
+                return true;
+
+            case OP_CLEAR:
+
+                visitor.onClear();
+                return true;
+
+            default:
+
+                return false;
+        }
+    }
+
+    private static final class Record {
+
+        private String op;
+        private String env;
+        private String key;
+        private Evaluation value;
+        private List<Evaluation> values;
+        private String eTag;
+
+        Record(final String op, final String env) {
+
+            this.op = op;
+            this.env = env;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.harness.cfsdk.cloud.cache;
+
+import androidx.annotation.Nullable;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.List;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+
+/**
+ * {@link CloudCache} decorator recording the storage hits, misses and latencies of the wrapped cache into
+ * {@link CacheStats}. Works with any cache implementation, caches that are {@link CacheStats.Instrumented}
+ * additionally report the timings of their own storage work. The entity tags are kept only if the wrapped cache
+ * is {@link CloudCache.ETagged}.
+ */
+public class InstrumentedCloudCache implements CloudCache, CloudCache.ETagged, Flushable {
+
+    private final CloudCache cache;
+    private final CacheStats stats;
+
+    public InstrumentedCloudCache(final CloudCache cache, final CacheStats stats) {
+
+        this.cache = cache;
+        this.stats = stats;
+
+        if (cache instanceof CacheStats.Instrumented) {
+
+            ((CacheStats.Instrumented) cache).setCacheStats(stats);
+        }
+    }
+
+    /**
+     * @return Wrapped cache.
+     */
+    public CloudCache getCache() {
+
+        return cache;
+    }
+
+    public CacheStats getStats() {
+
+        return stats;
+    }
+
+    @Override
+    public Evaluation getEvaluation(final String env, final String key) {
+
+        final long start = System.nanoTime();
+        final Evaluation evaluation = cache.getEvaluation(env, key);
+        stats.getLoad().recordSince(start);
+
+        if (evaluation != null) {
+
+            stats.recordStorageHit();
+
+        } else {
+
+            stats.recordStorageMiss();
+        }
+        return evaluation;
+    }
+
+    @Override
+    public void saveEvaluation(final String env, final String key, final Evaluation evaluation) {
+
+        final long start = System.nanoTime();
+        cache.saveEvaluation(env, key, evaluation);
+        stats.getSave().recordSince(start);
+    }
+
+    @Override
+    public void removeEvaluation(final String env, final String key) {
+
+        final long start = System.nanoTime();
+        cache.removeEvaluation(env, key);
+        stats.getSave().recordSince(start);
+    }
+
+    @Override
+    public List<Evaluation> getAllEvaluations(final String env) {
+
+        final long start = System.nanoTime();
+        final List<Evaluation> evaluations = cache.getAllEvaluations(env);
+        stats.getLoad().recordSince(start);
+
+        if (evaluations != null && !evaluations.isEmpty()) {
+
+            stats.recordStorageHit();
+
+        } else {
+
+            stats.recordStorageMiss();
+        }
+        return evaluations;
+    }
+
+    @Override
+    public void saveAllEvaluations(final String env, final List<Evaluation> evaluations) {
+
+        final long start = System.nanoTime();
+        cache.saveAllEvaluations(env, evaluations);
+        stats.getSave().recordSince(start);
+    }
+
+    @Override
+    @Nullable
+    public String getETag(final String env) {
+
+        return cache instanceof ETagged ? ((ETagged) cache).getETag(env) : null;
+    }
+
+    @Override
+    public void saveAllEvaluations(final String env, final List<Evaluation> evaluations, @Nullable final String eTag) {
+
+        final long start = System.nanoTime();
+        if (cache instanceof ETagged) {
+
+            ((ETagged) cache).saveAllEvaluations(env, evaluations, eTag);
+
+        } else {
+
+            cache.saveAllEvaluations(env, evaluations);
+        }
+        stats.getSave().recordSince(start);
+    }
+
+    @Override
+    public void clear() {
+
+        cache.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+
+        if (cache instanceof Flushable) {
+
+            ((Flushable) cache).flush();
+        }
+    }
+}
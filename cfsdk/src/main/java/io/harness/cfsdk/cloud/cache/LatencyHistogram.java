@@ -0,0 +1,192 @@
+package io.harness.cfsdk.cloud.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram with fixed, exponentially growing buckets.
+ * <p>
+ * Recording costs a few atomic increments and never allocates, so it can be used on the flag read path.
+ * Reads are not atomic across the buckets, a histogram read while being recorded to may be off by the
+ * samples recorded in the meantime.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Upper bounds of the buckets in microseconds, inclusive. The last bucket holds everything above
+     * the last bound.
+     */
+    private static final long[] BOUNDS_MICROS = {
+
+            100L, 250L, 500L,
+            1_000L, 2_500L, 5_000L,
+            10_000L, 25_000L, 50_000L,
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L
+    };
+
+    private final String name;
+    private final AtomicLong count;
+    private final AtomicLong totalMicros;
+    private final AtomicLong maxMicros;
+    private final AtomicLongArray buckets;
+
+    {
+
+        count = new AtomicLong();
+        totalMicros = new AtomicLong();
+        maxMicros = new AtomicLong();
+        buckets = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+    }
+
+    public LatencyHistogram(final String name) {
+
+        this.name = name;
+    }
+
+    /**
+     * @param startNanos Start time as returned by {@link System#nanoTime()}, the sample ends now.
+     */
+    public void recordSince(final long startNanos) {
+
+        record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void record(final long duration, final TimeUnit unit) {
+
+        final long micros = Math.max(0L, unit.toMicros(duration));
+
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        buckets.incrementAndGet(bucketOf(micros));
+
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+
+            max = maxMicros.get();
+        }
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    /**
+     * @return Number of samples recorded.
+     */
+    public long getCount() {
+
+        return count.get();
+    }
+
+    /**
+     * @return Mean of the samples in milliseconds, 0 if there are none.
+     */
+    public double getMeanMillis() {
+
+        final long samples = count.get();
+        return samples == 0 ? 0d : totalMicros.get() / (samples * 1000d);
+    }
+
+    /**
+     * @return Longest sample in milliseconds.
+     */
+    public double getMaxMillis() {
+
+        return maxMicros.get() / 1000d;
+    }
+
+    /**
+     * Approximate percentile, the upper bound of the bucket the percentile falls into. Samples above the
+     * last bucket bound are reported as the longest sample.
+     *
+     * @param percentile Percentile, from 0 to 100.
+     * @return Percentile in milliseconds, 0 if there are no samples.
+     */
+    public double getPercentileMillis(final double percentile) {
+
+        final long[] counts = getBucketCounts();
+        long total = 0;
+        for (final long bucket : counts) {
+
+            total += bucket;
+        }
+        if (total == 0) {
+
+            return 0d;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(total * Math.min(100d, Math.max(0d, percentile)) / 100d));
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+
+            seen += counts[i];
+            if (seen >= rank) {
+
+                return BOUNDS_MICROS[i] / 1000d;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * @return Upper bounds of the buckets in milliseconds. The last bucket, not listed, is unbounded.
+     */
+    public double[] getBucketBoundsMillis() {
+
+        final double[] bounds = new double[BOUNDS_MICROS.length];
+        for (int i = 0; i < bounds.length; i++) {
+
+            bounds[i] = BOUNDS_MICROS[i] / 1000d;
+        }
+        return bounds;
+    }
+
+    /**
+     * @return Number of samples in each bucket, one more item than {@link #getBucketBoundsMillis()}.
+     */
+    public long[] getBucketCounts() {
+
+        final long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    public void reset() {
+
+        for (int i = 0; i < buckets.length(); i++) {
+
+            buckets.set(i, 0L);
+        }
+        count.set(0L);
+        totalMicros.set(0L);
+        maxMicros.set(0L);
+    }
+
+    @Override
+    public String toString() {
+
+        return name + "{count=" + getCount() +
+                ", mean=" + getMeanMillis() +
+                "ms, p50=" + getPercentileMillis(50) +
+                "ms, p99=" + getPercentileMillis(99) +
+                "ms, max=" + getMaxMillis() + "ms}";
+    }
+
+    private static int bucketOf(final long micros) {
+
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+
+            if (micros <= BOUNDS_MICROS[i]) {
+
+                return i;
+            }
+        }
+        return BOUNDS_MICROS.length;
+    }
+}
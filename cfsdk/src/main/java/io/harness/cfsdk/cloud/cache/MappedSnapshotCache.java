@@ -0,0 +1,580 @@
+package io.harness.cfsdk.cloud.cache;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.Flushable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.common.SdkScheduler;
+import io.harness.cfsdk.logging.CfLog;
+
+/**
+ * {@link CloudCache} implementation backed by a compact binary snapshot file, read through a memory mapping.
+ * <p>
+ * Creating the cache maps the file and reads the list of stored environments only. The entries of an
+ * environment are indexed by their key when it is accessed for the first time and each value is decoded
+ * when it is read for the first time, so the start of the application doesn't pay for decoding the whole cache.
+ * <p>
+ * Changes are applied in memory and the snapshot file is rewritten in the background. Changes arriving while
+ * a rewrite is pending are written by the same rewrite. The new file replaces the old one atomically.
+ * {@link #flush()} writes the pending changes immediately, the client calls it when it is destroyed.
+ * <p>
+ * File layout, all integers big-endian, strings as length prefixed UTF-8 with -1 for null:
+ * <pre>
+ * header:  magic, environment count, per environment: name, entry count, entry index offset
+ * index:   per entry: key, record offset
+ * records: flag, kind, identifier, value type, value
+ * </pre>
+ * Values that are not strings are stored as their JSON and restored as the JSON string, the form the
+ * evaluations of the network have.
+ */
+public class MappedSnapshotCache implements CloudCache, Flushable {
+
+    private static final int MAGIC = 0x43465331;
+    private static final String SNAPSHOT_FILE = "cf_evaluations.snapshot";
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_JSON = 2;
+
+    /**
+     * Marks an entry removed from an environment that is still backed by the file.
+     */
+    private static final Evaluation REMOVED = new Evaluation();
+
+    private final Gson gson;
+    private final File file;
+    private final String logTag;
+    private final Charset charset;
+    private final Executor executor;
+    private final Object persistLock;
+    private final AtomicBoolean persistScheduled;
+    private final ConcurrentHashMap<String, Bucket> buckets;
+
+    private volatile MappedFile mapped;
+
+    {
+
+        gson = new Gson();
+        persistLock = new Object();
+        buckets = new ConcurrentHashMap<>();
+        charset = Charset.forName("UTF-8");
+        persistScheduled = new AtomicBoolean();
+        logTag = MappedSnapshotCache.class.getSimpleName();
+    }
+
+    public MappedSnapshotCache(final Context appContext) {
+
+        this(new File(appContext.getFilesDir(), SNAPSHOT_FILE));
+    }
+
+    /**
+     * @param file Snapshot file, created on the first change if it doesn't exist.
+     */
+    public MappedSnapshotCache(final File file) {
+
+        this(file, SdkScheduler.getInstance().newSerialExecutor());
+    }
+
+    MappedSnapshotCache(final File file, final Executor executor) {
+
+        this.file = file;
+        this.executor = executor;
+        this.mapped = MappedFile.open(file, charset, logTag);
+    }
+
+    @Override
+    @Nullable
+    public Evaluation getEvaluation(final String env, final String key) {
+
+        return bucket(env).get(key);
+    }
+
+    @Override
+    public void saveEvaluation(final String env, final String key, final Evaluation evaluation) {
+
+        bucket(env).values.put(key, evaluation);
+        schedulePersist();
+    }
+
+    @Override
+    public void removeEvaluation(final String env, final String key) {
+
+        bucket(env).values.put(key, REMOVED);
+        schedulePersist();
+    }
+
+    @Override
+    @NonNull
+    public List<Evaluation> getAllEvaluations(final String env) {
+
+        return new LinkedList<>(bucket(env).getAll().values());
+    }
+
+    @Override
+    public void saveAllEvaluations(final String env, final List<Evaluation> evaluations) {
+
+        final Bucket bucket = new Bucket(null, Collections.<String, Integer>emptyMap());
+        for (final Evaluation item : evaluations) {
+
+            bucket.values.put(item.getFlag(), item);
+        }
+
+        buckets.put(env, bucket);
+        schedulePersist();
+    }
+
+    @Override
+    public void clear() {
+
+        mapped = null;
+        buckets.clear();
+        schedulePersist();
+    }
+
+    /**
+     * Write the pending changes now, blocking until they are written.
+     */
+    @Override
+    public void flush() {
+
+        persistIfScheduled();
+    }
+
+    private Bucket bucket(final String env) {
+
+        Bucket bucket = buckets.get(env);
+        if (bucket == null) {
+
+            final MappedFile source = mapped;
+            final Bucket created = source == null ?
+                    new Bucket(null, Collections.<String, Integer>emptyMap()) :
+                    new Bucket(source, source.index(env));
+
+            bucket = buckets.putIfAbsent(env, created);
+            if (bucket == null) {
+
+                bucket = created;
+            }
+        }
+        return bucket;
+    }
+
+    private void schedulePersist() {
+
+        if (persistScheduled.compareAndSet(false, true)) {
+
+            executor.execute(this::persistIfScheduled);
+        }
+    }
+
+    private void persistIfScheduled() {
+
+        synchronized (persistLock) {
+
+            if (persistScheduled.compareAndSet(true, false)) {
+
+                persist();
+            }
+        }
+    }
+
+    /**
+     * Write the current state to a temporary file and move it over the snapshot file.
+     */
+    private void persist() {
+
+        final Map<String, Map<String, Evaluation>> state = new LinkedHashMap<>();
+
+        final Set<String> environments = new LinkedHashSet<>(buckets.keySet());
+        final MappedFile source = mapped;
+        if (source != null) {
+
+            environments.addAll(source.environments());
+        }
+
+        for (final String env : environments) {
+
+            state.put(env, bucket(env).getAll());
+        }
+
+        final File temporary = new File(file.getPath() + ".tmp");
+        try {
+
+            write(temporary, state);
+            if (!temporary.renameTo(file)) {
+
+                CfLog.OUT.e(logTag, "Snapshot file could not be replaced: " + file);
+            }
+
+        } catch (IOException e) {
+
+            CfLog.OUT.e(logTag, "Snapshot file write failed", e);
+        }
+    }
+
+    private void write(final File target, final Map<String, Map<String, Evaluation>> state) throws IOException {
+
+        final List<byte[]> names = new ArrayList<>(state.size());
+        final List<List<byte[]>> keys = new ArrayList<>(state.size());
+        final List<List<byte[]>> records = new ArrayList<>(state.size());
+
+        int headerSize = 8;
+        int indexSize = 0;
+
+        for (final Map.Entry<String, Map<String, Evaluation>> environment : state.entrySet()) {
+
+            final byte[] name = encode(environment.getKey());
+            names.add(name);
+            headerSize += 4 + name.length + 8;
+
+            final List<byte[]> environmentKeys = new ArrayList<>(environment.getValue().size());
+            final List<byte[]> environmentRecords = new ArrayList<>(environment.getValue().size());
+            for (final Map.Entry<String, Evaluation> entry : environment.getValue().entrySet()) {
+
+                final byte[] key = encode(entry.getKey());
+                environmentKeys.add(key);
+                environmentRecords.add(encode(entry.getValue()));
+                indexSize += 4 + key.length + 4;
+            }
+            keys.add(environmentKeys);
+            records.add(environmentRecords);
+        }
+
+        try (final DataOutputStream out = new DataOutputStream(
+
+                new BufferedOutputStream(new FileOutputStream(target))
+        )) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(names.size());
+
+            int indexOffset = headerSize;
+            for (int i = 0; i < names.size(); i++) {
+
+                writeBytes(out, names.get(i));
+                out.writeInt(keys.get(i).size());
+                out.writeInt(indexOffset);
+
+                for (final byte[] key : keys.get(i)) {
+
+                    indexOffset += 4 + key.length + 4;
+                }
+            }
+
+            int recordOffset = headerSize + indexSize;
+            for (int i = 0; i < names.size(); i++) {
+
+                final List<byte[]> environmentKeys = keys.get(i);
+                final List<byte[]> environmentRecords = records.get(i);
+                for (int j = 0; j < environmentKeys.size(); j++) {
+
+                    writeBytes(out, environmentKeys.get(j));
+                    out.writeInt(recordOffset);
+                    recordOffset += environmentRecords.get(j).length;
+                }
+            }
+
+            for (final List<byte[]> environmentRecords : records) {
+
+                for (final byte[] record : environmentRecords) {
+
+                    out.write(record);
+                }
+            }
+        }
+    }
+
+    private byte[] encode(final Evaluation evaluation) throws IOException {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        writeBytes(out, encode(evaluation.getFlag()));
+        writeBytes(out, encode(evaluation.getKind()));
+        writeBytes(out, encode(evaluation.getIdentifier()));
+
+        final Object value = evaluation.getValue();
+        if (value == null) {
+
+            out.writeByte(VALUE_NULL);
+            writeBytes(out, null);
+
+        } else if (value instanceof String) {
+
+            out.writeByte(VALUE_STRING);
+            writeBytes(out, encode((String) value));
+
+        } else {
+
+            out.writeByte(VALUE_JSON);
+            writeBytes(out, encode(value instanceof JSONObject ? value.toString() : gson.toJson(value)));
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @Nullable
+    private byte[] encode(@Nullable final String value) {
+
+        return value == null ? null : value.getBytes(charset);
+    }
+
+    private static void writeBytes(final DataOutputStream out, @Nullable final byte[] value) throws IOException {
+
+        if (value == null) {
+
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    /**
+     * Entries of one environment: the values decoded from the file or changed since it has been written,
+     * on top of the index of the file entries.
+     */
+    private final class Bucket {
+
+        private final MappedFile source;
+        private final Map<String, Integer> index;
+        private final ConcurrentHashMap<String, Evaluation> values;
+
+        Bucket(@Nullable final MappedFile source, final Map<String, Integer> index) {
+
+            this.source = source;
+            this.index = index;
+            this.values = new ConcurrentHashMap<>();
+        }
+
+        @Nullable
+        Evaluation get(final String key) {
+
+            final Evaluation value = values.get(key);
+            if (value != null) {
+
+                return value == REMOVED ? null : value;
+            }
+
+            final Integer offset = index.get(key);
+            if (offset == null || source == null) {
+
+                return null;
+            }
+
+            final Evaluation decoded = source.decode(offset);
+            if (decoded == null) {
+
+                return null;
+            }
+
+            final Evaluation existing = values.putIfAbsent(key, decoded);
+            if (existing != null) {
+
+                return existing == REMOVED ? null : existing;
+            }
+            return decoded;
+        }
+
+        Map<String, Evaluation> getAll() {
+
+            final Set<String> keys = new LinkedHashSet<>(index.keySet());
+            keys.addAll(values.keySet());
+
+            final Map<String, Evaluation> all = new LinkedHashMap<>();
+            for (final String key : keys) {
+
+                final Evaluation value = get(key);
+                if (value != null) {
+
+                    all.put(key, value);
+                }
+            }
+            return all;
+        }
+    }
+
+    /**
+     * Read only view of the snapshot file. All reads use absolute positions, so it is safe for concurrent use.
+     */
+    private static final class MappedFile {
+
+        private final String logTag;
+        private final Charset charset;
+        private final ByteBuffer buffer;
+        private final Map<String, int[]> environments;
+
+        private MappedFile(
+
+                final ByteBuffer buffer,
+                final Charset charset,
+                final String logTag
+        ) {
+
+            this.buffer = buffer;
+            this.charset = charset;
+            this.logTag = logTag;
+
+            if (buffer.getInt(0) != MAGIC) {
+
+                throw new IllegalArgumentException("Not a snapshot file");
+            }
+
+            final int count = buffer.getInt(4);
+            final Map<String, int[]> items = new HashMap<>(count * 2);
+
+            int position = 8;
+            for (int i = 0; i < count; i++) {
+
+                final String name = readString(position);
+                position += 4 + length(position);
+                items.put(name, new int[]{buffer.getInt(position), buffer.getInt(position + 4)});
+                position += 8;
+            }
+            environments = items;
+        }
+
+        @Nullable
+        static MappedFile open(final File file, final Charset charset, final String logTag) {
+
+            if (!file.exists() || file.length() == 0) {
+
+                return null;
+            }
+
+            try (final RandomAccessFile access = new RandomAccessFile(file, "r")) {
+
+                final FileChannel channel = access.getChannel();
+                final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return new MappedFile(buffer, charset, logTag);
+
+            } catch (IOException | RuntimeException e) {
+
+                CfLog.OUT.e(logTag, "Snapshot file could not be read, starting empty", e);
+                return null;
+            }
+        }
+
+        Set<String> environments() {
+
+            return environments.keySet();
+        }
+
+        /**
+         * @return Keys of the environment entries mapped to the offsets of their records.
+         */
+        Map<String, Integer> index(final String env) {
+
+            final int[] environment = environments.get(env);
+            if (environment == null) {
+
+                return Collections.emptyMap();
+            }
+
+            final int count = environment[0];
+            final Map<String, Integer> index = new HashMap<>(count * 2);
+            try {
+
+                int position = environment[1];
+                for (int i = 0; i < count; i++) {
+
+                    final String key = readString(position);
+                    position += 4 + length(position);
+                    index.put(key, buffer.getInt(position));
+                    position += 4;
+                }
+
+            } catch (IndexOutOfBoundsException e) {
+
+                CfLog.OUT.e(logTag, "Snapshot index is corrupted, environment: " + env, e);
+            }
+            return index;
+        }
+
+        /**
+         * @return Decoded evaluation, its value is the string as written or the JSON of other values.
+         */
+        @Nullable
+        Evaluation decode(final int offset) {
+
+            try {
+
+                int position = offset;
+
+                final String flag = readString(position);
+                position += 4 + length(position);
+                final String kind = readString(position);
+                position += 4 + length(position);
+                final String identifier = readString(position);
+                position += 4 + length(position);
+
+                // The value type byte is not needed, all values are restored as strings:
+                final String value = readString(position + 1);
+
+                return new Evaluation()
+                        .flag(flag)
+                        .kind(kind)
+                        .identifier(identifier)
+                        .value(value);
+
+            } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+
+                CfLog.OUT.e(logTag, "Snapshot record is corrupted, offset: " + offset, e);
+                return null;
+            }
+        }
+
+        private int length(final int position) {
+
+            return Math.max(0, buffer.getInt(position));
+        }
+
+        @Nullable
+        private String readString(final int position) {
+
+            final int length = buffer.getInt(position);
+            if (length < 0) {
+
+                return null;
+            }
+
+            final byte[] bytes = new byte[length];
+            final ByteBuffer view = buffer.duplicate();
+            view.position(position + 4);
+            view.get(bytes);
+            return new String(bytes, charset);
+        }
+    }
+}
@@ -30,6 +30,8 @@ import io.harness.cfsdk.cloud.core.client.Pair;
 import io.harness.cfsdk.cloud.core.model.AuthenticationRequest;
 import io.harness.cfsdk.cloud.core.model.AuthenticationResponse;
 import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.core.model.FeatureConfig;
+import io.harness.cfsdk.cloud.core.model.Segment;
 import io.harness.cfsdk.logging.CfLog;
 
 public class DefaultApi {
@@ -356,6 +358,30 @@ public class DefaultApi {
             String cluster,
             final ApiCallback _callback
 
+    ) throws ApiException {
+
+        return getEvaluationsCall(environmentUUID, target, cluster, null, _callback);
+    }
+
+    /**
+     * Build conditional call for getEvaluations
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param target          Unique identifier for the target object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @param eTag            Entity tag of the evaluations already loaded, sent as If-None-Match. (optional)
+     * @param _callback       Callback for upload/download progress
+     * @return Call to execute
+     * @throws ApiException If fail to serialize the request body object
+     */
+    public okhttp3.Call getEvaluationsCall(
+
+            String environmentUUID,
+            String target,
+            String cluster,
+            String eTag,
+            final ApiCallback _callback
+
     ) throws ApiException {
 
         Object localVarPostBody = null;
@@ -386,6 +412,11 @@ public class DefaultApi {
             localVarHeaderParams.put("Accept", localVarAccept);
         }
 
+        if (eTag != null) {
+
+            localVarHeaderParams.put("If-None-Match", eTag);
+        }
+
         final String[] localVarContentTypes = {
 
         };
@@ -402,6 +433,7 @@ public class DefaultApi {
             String environmentUUID,
             String target,
             String cluster,
+            String eTag,
             final ApiCallback _callback
 
     ) throws ApiException {
@@ -422,7 +454,7 @@ public class DefaultApi {
 
         return getEvaluationsCall(
 
-                environmentUUID, target, cluster, _callback
+                environmentUUID, target, cluster, eTag, _callback
         );
 
     }
@@ -473,11 +505,34 @@ public class DefaultApi {
             String target,
             String cluster
 
+    ) throws ApiException {
+
+        return getEvaluationsWithHttpInfo(environmentUUID, target, cluster, null);
+    }
+
+    /**
+     * Get feature evaluations for target, unless they have not changed since the given entity tag.
+     * The unchanged evaluations are reported as {@link ApiException} with the 304 status code.
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param target          Unique identifier for the target object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @param eTag            Entity tag of the evaluations already loaded, sent as If-None-Match. (optional)
+     * @return ApiResponse&lt;List&lt;Evaluation&gt;&gt;
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public ApiResponse<List<Evaluation>> getEvaluationsWithHttpInfo(
+
+            String environmentUUID,
+            String target,
+            String cluster,
+            String eTag
+
     ) throws ApiException {
 
         okhttp3.Call localVarCall = getEvaluationsValidateBeforeCall(
 
-                environmentUUID, target, cluster, null
+                environmentUUID, target, cluster, eTag, null
         );
 
         Type localVarReturnType = new TypeToken<List<Evaluation>>() {
@@ -503,11 +558,36 @@ public class DefaultApi {
             String cluster,
             final ApiCallback<List<Evaluation>> _callback
 
+    ) throws ApiException {
+
+        return getEvaluationsAsync(environmentUUID, target, cluster, null, _callback);
+    }
+
+    /**
+     * Get feature evaluations for target unless they have not changed since the given entity tag
+     * (asynchronously). The unchanged evaluations are reported as a failure with the 304 status code.
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param target          Unique identifier for the target object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @param eTag            Entity tag of the evaluations already loaded, sent as If-None-Match. (optional)
+     * @param _callback       The callback to be executed when the API call finishes
+     * @return The request call
+     * @throws ApiException If fail to process the API call, e.g. serializing the request body object
+     */
+    public okhttp3.Call getEvaluationsAsync(
+
+            String environmentUUID,
+            String target,
+            String cluster,
+            String eTag,
+            final ApiCallback<List<Evaluation>> _callback
+
     ) throws ApiException {
 
         okhttp3.Call localVarCall = getEvaluationsValidateBeforeCall(
 
-                environmentUUID, target, cluster, _callback
+                environmentUUID, target, cluster, eTag, _callback
         );
         Type localVarReturnType = new TypeToken<List<Evaluation>>() {
         }.getType();
@@ -515,6 +595,288 @@ public class DefaultApi {
         return localVarCall;
     }
 
+    /**
+     * Build call for getFeatureConfig
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @param _callback       Callback for upload/download progress
+     * @return Call to execute
+     * @throws ApiException If fail to serialize the request body object
+     */
+    public okhttp3.Call getFeatureConfigCall(
+
+            String environmentUUID,
+            String cluster,
+            final ApiCallback _callback
+
+    ) throws ApiException {
+
+        Object localVarPostBody = null;
+
+        // create path and map variables
+        String localVarPath = "/client/env/{environmentUUID}/feature-configs"
+                .replaceAll("\\{" + "environmentUUID" + "\\}", localVarApiClient.escapeString(environmentUUID.toString()));
+
+        List<Pair> localVarQueryParams = new ArrayList<>(
+
+                localVarApiClient.parameterToPair("cluster", cluster)
+        );
+
+        List<Pair> localVarCollectionQueryParams = new ArrayList<Pair>();
+
+        Map<String, String> localVarHeaderParams = new HashMap<String, String>();
+        Map<String, String> localVarCookieParams = new HashMap<String, String>();
+        Map<String, Object> localVarFormParams = new HashMap<String, Object>();
+
+        final String[] localVarAccepts = {
+                "application/json"
+        };
+        final String localVarAccept = localVarApiClient.selectHeaderAccept(localVarAccepts);
+
+        if (localVarAccept != null) {
+
+            localVarHeaderParams.put("Accept", localVarAccept);
+        }
+
+        final String[] localVarContentTypes = {
+
+        };
+        final String localVarContentType = localVarApiClient.selectHeaderContentType(localVarContentTypes);
+        localVarHeaderParams.put("Content-Type", localVarContentType);
+
+        String[] localVarAuthNames = new String[]{};
+        return localVarApiClient.buildCall(localVarPath, "GET", localVarQueryParams, localVarCollectionQueryParams, localVarPostBody, localVarHeaderParams, localVarCookieParams, localVarFormParams, localVarAuthNames, _callback);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private okhttp3.Call getFeatureConfigValidateBeforeCall(
+
+            String environmentUUID,
+            String cluster,
+            final ApiCallback _callback
+
+    ) throws ApiException {
+
+        // verify the required parameter 'environmentUUID' is set
+        if (environmentUUID == null) {
+
+            throw new ApiException("Missing the required parameter 'environmentUUID' when " +
+                    "calling getFeatureConfig(Async)");
+        }
+
+        return getFeatureConfigCall(environmentUUID, cluster, _callback);
+    }
+
+    /**
+     * Get all feature flag configurations for the environment
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @return List&lt;FeatureConfig&gt;
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public List<FeatureConfig> getFeatureConfig(String environmentUUID, String cluster) throws ApiException {
+
+        ApiResponse<List<FeatureConfig>> response = getFeatureConfigWithHttpInfo(environmentUUID, cluster);
+
+        CfLog.OUT.v(
+
+                logTag,
+                String.format("API, getFeatureConfig: %s", response.getStatusCode())
+        );
+
+        return response.getData();
+    }
+
+    /**
+     * Get all feature flag configurations for the environment
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @return ApiResponse&lt;List&lt;FeatureConfig&gt;&gt;
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public ApiResponse<List<FeatureConfig>> getFeatureConfigWithHttpInfo(
+
+            String environmentUUID,
+            String cluster
+
+    ) throws ApiException {
+
+        okhttp3.Call localVarCall = getFeatureConfigValidateBeforeCall(environmentUUID, cluster, null);
+
+        Type localVarReturnType = new TypeToken<List<FeatureConfig>>() {
+        }.getType();
+
+        return localVarApiClient.execute(localVarCall, localVarReturnType);
+    }
+
+    /**
+     * Get all feature flag configurations for the environment (asynchronously)
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @param _callback       The callback to be executed when the API call finishes
+     * @return The request call
+     * @throws ApiException If fail to process the API call, e.g. serializing the request body object
+     */
+    public okhttp3.Call getFeatureConfigAsync(
+
+            String environmentUUID,
+            String cluster,
+            final ApiCallback<List<FeatureConfig>> _callback
+
+    ) throws ApiException {
+
+        okhttp3.Call localVarCall = getFeatureConfigValidateBeforeCall(environmentUUID, cluster, _callback);
+        Type localVarReturnType = new TypeToken<List<FeatureConfig>>() {
+        }.getType();
+        localVarApiClient.executeAsync(localVarCall, localVarReturnType, _callback);
+        return localVarCall;
+    }
+
+    /**
+     * Build call for getAllSegments
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @param _callback       Callback for upload/download progress
+     * @return Call to execute
+     * @throws ApiException If fail to serialize the request body object
+     */
+    public okhttp3.Call getAllSegmentsCall(
+
+            String environmentUUID,
+            String cluster,
+            final ApiCallback _callback
+
+    ) throws ApiException {
+
+        Object localVarPostBody = null;
+
+        // create path and map variables
+        String localVarPath = "/client/env/{environmentUUID}/target-segments"
+                .replaceAll("\\{" + "environmentUUID" + "\\}", localVarApiClient.escapeString(environmentUUID.toString()));
+
+        List<Pair> localVarQueryParams = new ArrayList<>(
+
+                localVarApiClient.parameterToPair("cluster", cluster)
+        );
+
+        List<Pair> localVarCollectionQueryParams = new ArrayList<Pair>();
+
+        Map<String, String> localVarHeaderParams = new HashMap<String, String>();
+        Map<String, String> localVarCookieParams = new HashMap<String, String>();
+        Map<String, Object> localVarFormParams = new HashMap<String, Object>();
+
+        final String[] localVarAccepts = {
+                "application/json"
+        };
+        final String localVarAccept = localVarApiClient.selectHeaderAccept(localVarAccepts);
+
+        if (localVarAccept != null) {
+
+            localVarHeaderParams.put("Accept", localVarAccept);
+        }
+
+        final String[] localVarContentTypes = {
+
+        };
+        final String localVarContentType = localVarApiClient.selectHeaderContentType(localVarContentTypes);
+        localVarHeaderParams.put("Content-Type", localVarContentType);
+
+        String[] localVarAuthNames = new String[]{};
+        return localVarApiClient.buildCall(localVarPath, "GET", localVarQueryParams, localVarCollectionQueryParams, localVarPostBody, localVarHeaderParams, localVarCookieParams, localVarFormParams, localVarAuthNames, _callback);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private okhttp3.Call getAllSegmentsValidateBeforeCall(
+
+            String environmentUUID,
+            String cluster,
+            final ApiCallback _callback
+
+    ) throws ApiException {
+
+        // verify the required parameter 'environmentUUID' is set
+        if (environmentUUID == null) {
+
+            throw new ApiException("Missing the required parameter 'environmentUUID' when " +
+                    "calling getAllSegments(Async)");
+        }
+
+        return getAllSegmentsCall(environmentUUID, cluster, _callback);
+    }
+
+    /**
+     * Get all target segments for the environment
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @return List&lt;Segment&gt;
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public List<Segment> getAllSegments(String environmentUUID, String cluster) throws ApiException {
+
+        ApiResponse<List<Segment>> response = getAllSegmentsWithHttpInfo(environmentUUID, cluster);
+
+        CfLog.OUT.v(
+
+                logTag,
+                String.format("API, getAllSegments: %s", response.getStatusCode())
+        );
+
+        return response.getData();
+    }
+
+    /**
+     * Get all target segments for the environment
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @return ApiResponse&lt;List&lt;Segment&gt;&gt;
+     * @throws ApiException If fail to call the API, e.g. server error or cannot deserialize the response body
+     */
+    public ApiResponse<List<Segment>> getAllSegmentsWithHttpInfo(
+
+            String environmentUUID,
+            String cluster
+
+    ) throws ApiException {
+
+        okhttp3.Call localVarCall = getAllSegmentsValidateBeforeCall(environmentUUID, cluster, null);
+
+        Type localVarReturnType = new TypeToken<List<Segment>>() {
+        }.getType();
+
+        return localVarApiClient.execute(localVarCall, localVarReturnType);
+    }
+
+    /**
+     * Get all target segments for the environment (asynchronously)
+     *
+     * @param environmentUUID Unique identifier for the environment object in the API. (required)
+     * @param cluster         Cluster identifier.
+     * @param _callback       The callback to be executed when the API call finishes
+     * @return The request call
+     * @throws ApiException If fail to process the API call, e.g. serializing the request body object
+     */
+    public okhttp3.Call getAllSegmentsAsync(
+
+            String environmentUUID,
+            String cluster,
+            final ApiCallback<List<Segment>> _callback
+
+    ) throws ApiException {
+
+        okhttp3.Call localVarCall = getAllSegmentsValidateBeforeCall(environmentUUID, cluster, _callback);
+        Type localVarReturnType = new TypeToken<List<Segment>>() {
+        }.getType();
+        localVarApiClient.executeAsync(localVarCall, localVarReturnType, _callback);
+        return localVarCall;
+    }
+
     /**
      * Build call for stream
      *
@@ -0,0 +1,91 @@
+package io.harness.cfsdk.cloud.evaluator;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns targets to percentage rollout buckets the same way the Feature Flags service does:
+ * MurmurHash3 of the UTF-8 encoded "bucketBy:value", mapped into range 1..100.
+ * <p>
+ * The hash is computed without allocating and the bucket of every value is cached per bucketBy
+ * attribute, so repeated evaluations for the same target do not hash again. The bucket does not depend
+ * on the flag configuration, a single instance is shared by all evaluators of the environment.
+ */
+public class Bucketer {
+
+    public static final int BUCKETS = 100;
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Integer>> buckets;
+
+    {
+
+        buckets = new ConcurrentHashMap<>();
+    }
+
+    public Bucketer() {
+
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Maximum number of cached buckets per bucketBy attribute.
+     */
+    public Bucketer(final int capacity) {
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param bucketBy Attribute the distribution is bucketed by.
+     * @param value    Value of the attribute for the target.
+     * @return Bucket in range 1..100.
+     */
+    public int getBucket(final String bucketBy, final String value) {
+
+        ConcurrentHashMap<String, Integer> cached = buckets.get(bucketBy);
+        if (cached == null) {
+
+            final ConcurrentHashMap<String, Integer> created = new ConcurrentHashMap<>();
+            cached = buckets.putIfAbsent(bucketBy, created);
+            if (cached == null) {
+
+                cached = created;
+            }
+        }
+
+        // Buckets fit the Integer cache, the lookup and the boxing do not allocate:
+        final Integer bucket = cached.get(value);
+        if (bucket != null) {
+
+            return bucket;
+        }
+
+        final int computed = computeBucket(bucketBy, value);
+        if (cached.size() >= capacity) {
+
+            cached.clear();
+        }
+        cached.put(value, computed);
+        return computed;
+    }
+
+    /**
+     * @return Number of cached buckets, for all bucketBy attributes.
+     */
+    public int size() {
+
+        int size = 0;
+        for (final ConcurrentHashMap<String, Integer> cached : buckets.values()) {
+
+            size += cached.size();
+        }
+        return size;
+    }
+
+    static int computeBucket(final String bucketBy, final String value) {
+
+        final long hash = MurmurHash3.hash32Utf8(bucketBy, ':', value, 0) & 0xffffffffL;
+        return (int) (hash % BUCKETS) + 1;
+    }
+}
@@ -0,0 +1,10 @@
+package io.harness.cfsdk.cloud.evaluator;
+
+/**
+ * {@link io.harness.cfsdk.cloud.core.model.Clause} compiled into a matcher specialised for its operator,
+ * see {@link ClauseMatchers#compile}.
+ */
+interface ClauseMatcher {
+
+    boolean matches(EvaluationContext context);
+}
@@ -0,0 +1,234 @@
+package io.harness.cfsdk.cloud.evaluator;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import io.harness.cfsdk.cloud.core.model.Clause;
+import io.harness.cfsdk.logging.CfLog;
+
+/**
+ * Compiles {@link Clause} instances into {@link ClauseMatcher}s.
+ * <p>
+ * All the work that does not depend on the target is done once, at compile time: value lists are
+ * turned into hash sets, match patterns are compiled and numbers are parsed. Matching then costs
+ * the same regardless of the number of clause values.
+ */
+final class ClauseMatchers {
+
+    private static final String LOG_TAG;
+    private static final ClauseMatcher NEVER;
+
+    static {
+
+        LOG_TAG = ClauseMatchers.class.getSimpleName();
+        NEVER = context -> false;
+    }
+
+    private ClauseMatchers() {
+    }
+
+    /**
+     * @param clause        Clause to compile.
+     * @param allowSegments False if the clause can't reference segments.
+     * @return Matcher for the clause.
+     */
+    static ClauseMatcher compile(final Clause clause, final boolean allowSegments) {
+
+        final ClauseMatcher matcher = compileOperator(clause, allowSegments);
+        if (Boolean.TRUE.equals(clause.getNegate())) {
+
+            return context -> !matcher.matches(context);
+        }
+        return matcher;
+    }
+
+    private static ClauseMatcher compileOperator(final Clause clause, final boolean allowSegments) {
+
+        final String op = clause.getOp();
+        final List<String> values = clause.getValues();
+
+        if (op == null || values == null || values.isEmpty()) {
+
+            return NEVER;
+        }
+
+        final String attribute = clause.getAttribute();
+        final String value = values.get(0);
+
+        switch (op) {
+
+            case Evaluator.OP_SEGMENT_MATCH:
+                return allowSegments ? new SegmentMatcher(values) : NEVER;
+
+            case Evaluator.OP_IN:
+                return new InMatcher(attribute, new HashSet<>(values));
+
+            case Evaluator.OP_EQUAL:
+                return new EqualIgnoreCaseMatcher(attribute, value);
+
+            case Evaluator.OP_EQUAL_SENSITIVE:
+                return new InMatcher(attribute, Collections.singleton(value));
+
+            case Evaluator.OP_STARTS_WITH:
+                return context -> {
+
+                    final String actual = context.getAttribute(attribute);
+                    return actual != null && actual.startsWith(value);
+                };
+
+            case Evaluator.OP_ENDS_WITH:
+                return context -> {
+
+                    final String actual = context.getAttribute(attribute);
+                    return actual != null && actual.endsWith(value);
+                };
+
+            case Evaluator.OP_CONTAINS:
+                return context -> {
+
+                    final String actual = context.getAttribute(attribute);
+                    return actual != null && actual.contains(value);
+                };
+
+            case Evaluator.OP_GT:
+                return new GreaterThanMatcher(attribute, value);
+
+            case Evaluator.OP_MATCH:
+                try {
+
+                    final Pattern pattern = Pattern.compile(value);
+                    return context -> {
+
+                        final String actual = context.getAttribute(attribute);
+                        return actual != null && pattern.matcher(actual).find();
+                    };
+
+                } catch (PatternSyntaxException e) {
+
+                    CfLog.OUT.w(LOG_TAG, "Invalid match pattern: " + value);
+                    return NEVER;
+                }
+
+            default:
+                CfLog.OUT.w(LOG_TAG, "Unsupported clause operator: " + op);
+                return NEVER;
+        }
+    }
+
+    private static final class InMatcher implements ClauseMatcher {
+
+        private final String attribute;
+        private final Set<String> values;
+
+        InMatcher(final String attribute, final Set<String> values) {
+
+            this.attribute = attribute;
+            this.values = values;
+        }
+
+        @Override
+        public boolean matches(final EvaluationContext context) {
+
+            final String actual = context.getAttribute(attribute);
+            return actual != null && values.contains(actual);
+        }
+    }
+
+    private static final class EqualIgnoreCaseMatcher implements ClauseMatcher {
+
+        private final String attribute;
+        private final String value;
+
+        EqualIgnoreCaseMatcher(final String attribute, final String value) {
+
+            this.attribute = attribute;
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(final EvaluationContext context) {
+
+            final String actual = context.getAttribute(attribute);
+            return actual != null && actual.equalsIgnoreCase(value);
+        }
+    }
+
+    private static final class GreaterThanMatcher implements ClauseMatcher {
+
+        private final String attribute;
+        private final String value;
+        private final double number;
+        private final boolean numeric;
+
+        GreaterThanMatcher(final String attribute, final String value) {
+
+            this.attribute = attribute;
+            this.value = value;
+
+            double parsed = 0;
+            boolean isNumber = false;
+            try {
+
+                parsed = Double.parseDouble(value);
+                isNumber = true;
+
+            } catch (NumberFormatException | NullPointerException e) {
+
+                // Compared as text.
+            }
+
+            number = parsed;
+            numeric = isNumber;
+        }
+
+        @Override
+        public boolean matches(final EvaluationContext context) {
+
+            final String actual = context.getAttribute(attribute);
+            if (actual == null || value == null) {
+
+                return false;
+            }
+
+            if (numeric) {
+
+                try {
+
+                    return Double.parseDouble(actual) > number;
+
+                } catch (NumberFormatException e) {
+
+                    // Compared as text.
+                }
+            }
+            return actual.compareTo(value) > 0;
+        }
+    }
+
+    private static final class SegmentMatcher implements ClauseMatcher {
+
+        private final String[] segments;
+
+        SegmentMatcher(final List<String> segments) {
+
+            this.segments = segments.toArray(new String[0]);
+        }
+
+        @Override
+        public boolean matches(final EvaluationContext context) {
+
+            for (final String segment : segments) {
+
+                if (context.isInSegment(segment)) {
+
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.harness.cfsdk.cloud.evaluator;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.harness.cfsdk.cloud.core.model.Clause;
+import io.harness.cfsdk.cloud.core.model.Segment;
+
+/**
+ * {@link Segment} prepared for evaluation: the included and excluded targets are indexed
+ * and the rules are compiled into matchers.
+ */
+final class CompiledSegment {
+
+    private final Set<String> included;
+    private final Set<String> excluded;
+    private final ClauseMatcher[] rules;
+
+    CompiledSegment(final Segment segment) {
+
+        included = toSet(segment.getIncluded());
+        excluded = toSet(segment.getExcluded());
+
+        final List<Clause> clauses = segment.getRules();
+        if (clauses == null) {
+
+            rules = new ClauseMatcher[0];
+
+        } else {
+
+            rules = new ClauseMatcher[clauses.size()];
+            for (int i = 0; i < rules.length; i++) {
+
+                // Segment rules never reference other segments:
+                rules[i] = ClauseMatchers.compile(clauses.get(i), false);
+            }
+        }
+    }
+
+    /**
+     * Excluded targets are never in the segment, included targets always are, the others are
+     * in the segment if any of its rules matches.
+     */
+    boolean contains(final EvaluationContext context) {
+
+        final String identifier = context.getTarget().getIdentifier();
+
+        if (excluded.contains(identifier)) {
+
+            return false;
+        }
+
+        if (included.contains(identifier)) {
+
+            return true;
+        }
+
+        for (final ClauseMatcher rule : rules) {
+
+            if (rule.matches(context)) {
+
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Set<String> toSet(final List<String> values) {
+
+        if (values == null || values.isEmpty()) {
+
+            return Collections.emptySet();
+        }
+        return new HashSet<>(values);
+    }
+}
@@ -0,0 +1,99 @@
+package io.harness.cfsdk.cloud.evaluator;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.harness.cfsdk.cloud.model.Target;
+
+/**
+ * State of a single evaluation of a target. Attribute values and segment memberships are
+ * resolved once and reused by all clauses evaluated for the target.
+ * <p>
+ * Not thread safe, every evaluation uses its own context.
+ */
+final class EvaluationContext {
+
+    private static final String MISSING;
+
+    static {
+
+        // Distinct instance, marks the attributes the target does not carry:
+        MISSING = new String("");
+    }
+
+    private final Target target;
+    private final Map<String, String> attributes;
+    private final Map<String, Boolean> memberships;
+    private final Map<String, CompiledSegment> segments;
+
+    EvaluationContext(final Target target, final Map<String, CompiledSegment> segments) {
+
+        this.target = target;
+        this.segments = segments;
+        this.attributes = new HashMap<>();
+        this.memberships = new HashMap<>();
+    }
+
+    Target getTarget() {
+
+        return target;
+    }
+
+    /**
+     * @param attribute Attribute name, the identifier and name of the target are available as
+     *                  "identifier" and "name".
+     * @return String value of the attribute or null if the target does not carry it.
+     */
+    @Nullable
+    String getAttribute(final String attribute) {
+
+        if (attribute == null) {
+
+            return null;
+        }
+
+        String value = attributes.get(attribute);
+        if (value == null) {
+
+            value = resolve(attribute);
+            attributes.put(attribute, value == null ? MISSING : value);
+            return value;
+        }
+        return value == MISSING ? null : value;
+    }
+
+    /**
+     * @param segment Segment identifier.
+     * @return True if the target is a member of the segment.
+     */
+    boolean isInSegment(final String segment) {
+
+        Boolean member = memberships.get(segment);
+        if (member == null) {
+
+            final CompiledSegment compiled = segments.get(segment);
+            member = compiled != null && compiled.contains(this);
+            memberships.put(segment, member);
+        }
+        return member;
+    }
+
+    @Nullable
+    private String resolve(final String attribute) {
+
+        if (Evaluator.ATTRIBUTE_IDENTIFIER.equals(attribute)) {
+
+            return target.getIdentifier();
+        }
+
+        if (Evaluator.ATTRIBUTE_NAME.equals(attribute)) {
+
+            return target.getName();
+        }
+
+        final Object value = target.getAttributes().get(attribute);
+        return value == null ? null : value.toString();
+    }
+}
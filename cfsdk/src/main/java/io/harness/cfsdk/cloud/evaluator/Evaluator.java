@@ -0,0 +1,477 @@
+package io.harness.cfsdk.cloud.evaluator;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.harness.cfsdk.cloud.core.model.Clause;
+import io.harness.cfsdk.cloud.core.model.Distribution;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.core.model.FeatureConfig;
+import io.harness.cfsdk.cloud.core.model.FeatureState;
+import io.harness.cfsdk.cloud.core.model.Prerequisite;
+import io.harness.cfsdk.cloud.core.model.Segment;
+import io.harness.cfsdk.cloud.core.model.Serve;
+import io.harness.cfsdk.cloud.core.model.ServingRule;
+import io.harness.cfsdk.cloud.core.model.Variation;
+import io.harness.cfsdk.cloud.core.model.VariationMap;
+import io.harness.cfsdk.cloud.core.model.WeightedVariation;
+import io.harness.cfsdk.cloud.model.Target;
+import io.harness.cfsdk.logging.CfLog;
+
+/**
+ * Evaluates feature flags on the device from the flag and segment configurations of an environment.
+ * <p>
+ * The evaluation follows the order the Feature Flags service uses:
+ * <ol>
+ *     <li>A flag that is turned off serves its off variation.</li>
+ *     <li>A flag with an unsatisfied prerequisite serves its off variation.</li>
+ *     <li>Targets and segments mapped directly to a variation get that variation.</li>
+ *     <li>Serving rules are matched by priority, the first rule with all clauses matching serves.</li>
+ *     <li>Otherwise the default serve applies.</li>
+ * </ol>
+ * The configurations are compiled when the evaluator is created: rules are sorted, clauses are turned
+ * into {@link ClauseMatcher}s and target lists into hash sets.
+ * <p>
+ * Instances are immutable, a new one is created for every configuration load. Any number of
+ * targets can be evaluated with the same instance, concurrently.
+ */
+public class Evaluator {
+
+    public static final String OP_IN = "in";
+    public static final String OP_GT = "gt";
+    public static final String OP_EQUAL = "equal";
+    public static final String OP_MATCH = "match";
+    public static final String OP_CONTAINS = "contains";
+    public static final String OP_ENDS_WITH = "ends_with";
+    public static final String OP_STARTS_WITH = "starts_with";
+    public static final String OP_SEGMENT_MATCH = "segmentMatch";
+    public static final String OP_EQUAL_SENSITIVE = "equal_sensitive";
+
+    public static final String ATTRIBUTE_NAME = "name";
+    public static final String ATTRIBUTE_IDENTIFIER = "identifier";
+
+    private static final int MAX_PREREQUISITE_DEPTH = 16;
+
+    private final String logTag;
+    private final Bucketer bucketer;
+    private final Map<String, CompiledFlag> flags;
+    private final Map<String, CompiledSegment> segments;
+
+    {
+
+        logTag = Evaluator.class.getSimpleName();
+    }
+
+    /**
+     * @param flags    Configurations of all flags in the environment.
+     * @param segments All target segments in the environment.
+     */
+    public Evaluator(
+
+            final Collection<FeatureConfig> flags,
+            final Collection<Segment> segments
+    ) {
+
+        this(flags, segments, new Bucketer());
+    }
+
+    /**
+     * @param flags    Configurations of all flags in the environment.
+     * @param segments All target segments in the environment.
+     * @param bucketer Percentage rollout bucketer, shared with the previous evaluators of the environment
+     *                 to keep the cached buckets.
+     */
+    public Evaluator(
+
+            final Collection<FeatureConfig> flags,
+            final Collection<Segment> segments,
+            final Bucketer bucketer
+    ) {
+
+        this.bucketer = bucketer;
+
+        final Map<String, CompiledFlag> flagItems = new HashMap<>();
+        if (flags != null) {
+
+            for (final FeatureConfig flag : flags) {
+
+                if (flag != null && flag.getFeature() != null) {
+
+                    flagItems.put(flag.getFeature(), new CompiledFlag(flag));
+                }
+            }
+        }
+
+        final Map<String, CompiledSegment> segmentItems = new HashMap<>();
+        if (segments != null) {
+
+            for (final Segment segment : segments) {
+
+                if (segment != null && segment.getIdentifier() != null) {
+
+                    segmentItems.put(segment.getIdentifier(), new CompiledSegment(segment));
+                }
+            }
+        }
+
+        this.flags = Collections.unmodifiableMap(flagItems);
+        this.segments = Collections.unmodifiableMap(segmentItems);
+    }
+
+    /**
+     * @return Number of flags this evaluator knows.
+     */
+    public int size() {
+
+        return flags.size();
+    }
+
+    /**
+     * Evaluate a single flag for the target.
+     *
+     * @param flag   Flag identifier.
+     * @param target Target to evaluate for.
+     * @return Evaluation, or null if the flag is unknown or its configuration is not valid.
+     */
+    @Nullable
+    public Evaluation evaluate(final String flag, final Target target) {
+
+        return evaluate(flag, new EvaluationContext(target, segments));
+    }
+
+    /**
+     * Evaluate all flags for the target. The target attributes and segment memberships are resolved
+     * once and shared by all flags.
+     *
+     * @param target Target to evaluate for.
+     * @return Evaluations of all flags with a valid configuration.
+     */
+    public List<Evaluation> evaluateAll(final Target target) {
+
+        final EvaluationContext context = new EvaluationContext(target, segments);
+        final List<Evaluation> evaluations = new ArrayList<>(flags.size());
+
+        for (final String flag : flags.keySet()) {
+
+            final Evaluation evaluation = evaluate(flag, context);
+            if (evaluation != null) {
+
+                evaluations.add(evaluation);
+            }
+        }
+        return evaluations;
+    }
+
+    @Nullable
+    private Evaluation evaluate(final String flag, final EvaluationContext context) {
+
+        final CompiledFlag compiled = flags.get(flag);
+        if (compiled == null) {
+
+            return null;
+        }
+
+        final Variation variation = evaluateVariation(compiled, context, 0);
+        if (variation == null) {
+
+            CfLog.OUT.w(logTag, "No variation to serve, flag: " + flag);
+            return null;
+        }
+
+        return new Evaluation()
+                .flag(compiled.config.getFeature())
+                .kind(compiled.config.getKind())
+                .identifier(variation.getIdentifier())
+                .value(variation.getValue());
+    }
+
+    @Nullable
+    private Variation evaluateVariation(
+
+            final CompiledFlag flag,
+            final EvaluationContext context,
+            final int depth
+    ) {
+
+        final FeatureConfig config = flag.config;
+
+        if (config.getState() == FeatureState.OFF) {
+
+            return flag.getVariation(config.getOffVariation());
+        }
+
+        if (!arePrerequisitesSatisfied(config, context, depth)) {
+
+            return flag.getVariation(config.getOffVariation());
+        }
+
+        final String mapped = getMappedVariation(flag, context);
+        if (mapped != null) {
+
+            return flag.getVariation(mapped);
+        }
+
+        for (final CompiledRule rule : flag.rules) {
+
+            if (rule.matches(context)) {
+
+                return flag.getVariation(serve(config, rule.serve, context));
+            }
+        }
+
+        if (config.getDefaultServe() != null) {
+
+            return flag.getVariation(serve(config, config.getDefaultServe(), context));
+        }
+        return null;
+    }
+
+    private boolean arePrerequisitesSatisfied(
+
+            final FeatureConfig config,
+            final EvaluationContext context,
+            final int depth
+    ) {
+
+        final List<Prerequisite> prerequisites = config.getPrerequisites();
+        if (prerequisites == null || prerequisites.isEmpty()) {
+
+            return true;
+        }
+
+        if (depth >= MAX_PREREQUISITE_DEPTH) {
+
+            CfLog.OUT.w(logTag, "Prerequisites nested too deep, flag: " + config.getFeature());
+            return false;
+        }
+
+        for (final Prerequisite prerequisite : prerequisites) {
+
+            final CompiledFlag parent = flags.get(prerequisite.getFeature());
+            if (parent == null) {
+
+                CfLog.OUT.w(logTag, "Prerequisite flag not found: " + prerequisite.getFeature());
+                continue;
+            }
+
+            final Variation variation = evaluateVariation(parent, context, depth + 1);
+            if (variation == null ||
+                    prerequisite.getVariations() == null ||
+                    !prerequisite.getVariations().contains(variation.getIdentifier())) {
+
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private String getMappedVariation(final CompiledFlag flag, final EvaluationContext context) {
+
+        final String identifier = context.getTarget().getIdentifier();
+        for (final CompiledTargetMap targetMap : flag.targetMaps) {
+
+            if (targetMap.targets.contains(identifier)) {
+
+                return targetMap.variation;
+            }
+
+            for (final String segment : targetMap.segments) {
+
+                if (context.isInSegment(segment)) {
+
+                    return targetMap.variation;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private String serve(final FeatureConfig config, final Serve serve, final EvaluationContext context) {
+
+        if (serve.getVariation() != null) {
+
+            return serve.getVariation();
+        }
+
+        final Distribution distribution = serve.getDistribution();
+        if (distribution == null || distribution.getVariations() == null) {
+
+            CfLog.OUT.w(logTag, "Serve without variation and distribution, flag: " + config.getFeature());
+            return null;
+        }
+
+        final int bucket = getBucket(context, distribution.getBucketBy());
+
+        int total = 0;
+        WeightedVariation last = null;
+        for (final WeightedVariation weighted : distribution.getVariations()) {
+
+            last = weighted;
+            total += weighted.getWeight() == null ? 0 : weighted.getWeight();
+            if (bucket <= total) {
+
+                return weighted.getVariation();
+            }
+        }
+        // Weights not adding up to 100, the remaining buckets go to the last variation:
+        return last == null ? null : last.getVariation();
+    }
+
+    private int getBucket(final EvaluationContext context, final String bucketBy) {
+
+        final String value = context.getAttribute(bucketBy);
+        if (value == null) {
+
+            // The target does not carry the attribute, bucket by identifier instead:
+            return bucketer.getBucket(ATTRIBUTE_IDENTIFIER, context.getTarget().getIdentifier());
+        }
+        return bucketer.getBucket(bucketBy, value);
+    }
+
+    /**
+     * {@link FeatureConfig} prepared for evaluation.
+     */
+    private static final class CompiledFlag {
+
+        private final FeatureConfig config;
+        private final List<CompiledRule> rules;
+        private final Map<String, Variation> variations;
+        private final List<CompiledTargetMap> targetMaps;
+
+        CompiledFlag(final FeatureConfig config) {
+
+            this.config = config;
+
+            final Map<String, Variation> variationItems = new HashMap<>();
+            if (config.getVariations() != null) {
+
+                for (final Variation variation : config.getVariations()) {
+
+                    if (variation != null && variation.getIdentifier() != null) {
+
+                        variationItems.put(variation.getIdentifier(), variation);
+                    }
+                }
+            }
+            variations = variationItems;
+
+            final List<CompiledTargetMap> targetMapItems = new ArrayList<>();
+            if (config.getVariationToTargetMap() != null) {
+
+                for (final VariationMap variationMap : config.getVariationToTargetMap()) {
+
+                    targetMapItems.add(new CompiledTargetMap(variationMap));
+                }
+            }
+            targetMaps = targetMapItems;
+
+            final List<CompiledRule> ruleItems = new ArrayList<>();
+            for (final ServingRule rule : sortByPriority(config.getRules())) {
+
+                if (rule.getServe() != null) {
+
+                    ruleItems.add(new CompiledRule(rule));
+                }
+            }
+            rules = ruleItems;
+        }
+
+        @Nullable
+        Variation getVariation(@Nullable final String identifier) {
+
+            return identifier == null ? null : variations.get(identifier);
+        }
+    }
+
+    /**
+     * {@link ServingRule} with its clauses compiled.
+     */
+    private static final class CompiledRule {
+
+        private final Serve serve;
+        private final ClauseMatcher[] clauses;
+
+        CompiledRule(final ServingRule rule) {
+
+            serve = rule.getServe();
+
+            final List<Clause> items = rule.getClauses();
+            clauses = new ClauseMatcher[items == null ? 0 : items.size()];
+            for (int i = 0; i < clauses.length; i++) {
+
+                clauses[i] = ClauseMatchers.compile(items.get(i), true);
+            }
+        }
+
+        boolean matches(final EvaluationContext context) {
+
+            for (final ClauseMatcher clause : clauses) {
+
+                if (!clause.matches(context)) {
+
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * {@link VariationMap} with its targets indexed.
+     */
+    private static final class CompiledTargetMap {
+
+        private final String variation;
+        private final Set<String> targets;
+        private final List<String> segments;
+
+        CompiledTargetMap(final VariationMap variationMap) {
+
+            variation = variationMap.getVariation();
+            targets = CompiledSegment.toSet(variationMap.getTargets());
+
+            final List<String> targetSegments = variationMap.getTargetSegments();
+            segments = targetSegments == null ? Collections.<String>emptyList() : targetSegments;
+        }
+    }
+
+    private static List<ServingRule> sortByPriority(final List<ServingRule> servingRules) {
+
+        if (servingRules == null || servingRules.isEmpty()) {
+
+            return Collections.emptyList();
+        }
+
+        final List<ServingRule> sorted = new LinkedList<>(servingRules);
+        Collections.sort(sorted, new Comparator<ServingRule>() {
+
+            @Override
+            public int compare(final ServingRule a, final ServingRule b) {
+
+                return compareInts(priority(a), priority(b));
+            }
+        });
+        return sorted;
+    }
+
+    private static int priority(final ServingRule rule) {
+
+        return rule.getPriority() == null ? Integer.MAX_VALUE : rule.getPriority();
+    }
+
+    private static int compareInts(final int a, final int b) {
+
+        return a < b ? -1 : (a == b ? 0 : 1);
+    }
+}
@@ -0,0 +1,184 @@
+package io.harness.cfsdk.cloud.evaluator;
+
+/**
+ * 32-bit MurmurHash3 (x86 variant), the hash the Feature Flags service uses to bucket targets
+ * for percentage rollouts.
+ */
+public final class MurmurHash3 {
+
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private MurmurHash3() {
+    }
+
+    /**
+     * @param data   Data to hash.
+     * @param offset Offset of the first byte to hash.
+     * @param length Number of bytes to hash.
+     * @param seed   Hash seed.
+     * @return 32-bit hash.
+     */
+    public static int hash32(final byte[] data, final int offset, final int length, final int seed) {
+
+        int h1 = seed;
+        final int end = offset + (length & 0xfffffffc);
+
+        for (int i = offset; i < end; i += 4) {
+
+            final int k1 = (data[i] & 0xff) |
+                    ((data[i + 1] & 0xff) << 8) |
+                    ((data[i + 2] & 0xff) << 16) |
+                    (data[i + 3] << 24);
+
+            h1 = mixH1(h1, mixK1(k1));
+        }
+
+        int k1 = 0;
+        switch (length & 0x03) {
+
+            case 3:
+                k1 = (data[end + 2] & 0xff) << 16;
+                // fall through
+            case 2:
+                k1 |= (data[end + 1] & 0xff) << 8;
+                // fall through
+            case 1:
+                k1 |= (data[end] & 0xff);
+                h1 ^= mixK1(k1);
+        }
+
+        return fmix(h1, length);
+    }
+
+    /**
+     * Hash the UTF-8 encoding of "prefix + separator + suffix" without allocating: the characters are
+     * encoded and hashed on the fly. Equal to {@link #hash32(byte[], int, int, int)} over the encoded bytes.
+     *
+     * @param prefix    Text before the separator.
+     * @param separator Separator character, must not be a surrogate.
+     * @param suffix    Text after the separator.
+     * @param seed      Hash seed.
+     * @return 32-bit hash.
+     */
+    public static int hash32Utf8(
+
+            final String prefix,
+            final char separator,
+            final String suffix,
+            final int seed
+    ) {
+
+        final int prefixLength = prefix.length();
+        final int total = prefixLength + 1 + suffix.length();
+
+        int h1 = seed;
+        int k1 = 0;
+        int shift = 0;
+        int length = 0;
+
+        for (int i = 0; i < total; i++) {
+
+            final char c = charAt(prefix, separator, suffix, i);
+
+            int encoded;
+            int count;
+
+            if (c < 0x80) {
+
+                encoded = c;
+                count = 1;
+
+            } else if (c < 0x800) {
+
+                encoded = (0xc0 | (c >> 6)) | ((0x80 | (c & 0x3f)) << 8);
+                count = 2;
+
+            } else if (Character.isHighSurrogate(c) && i + 1 < total &&
+                    Character.isLowSurrogate(charAt(prefix, separator, suffix, i + 1))) {
+
+                final int codePoint = Character.toCodePoint(c, charAt(prefix, separator, suffix, ++i));
+                encoded = (0xf0 | (codePoint >> 18)) |
+                        ((0x80 | ((codePoint >> 12) & 0x3f)) << 8) |
+                        ((0x80 | ((codePoint >> 6) & 0x3f)) << 16) |
+                        ((0x80 | (codePoint & 0x3f)) << 24);
+                count = 4;
+
+            } else if (Character.isSurrogate(c)) {
+
+                // Unpaired surrogate, encoded as '?' the same way String.getBytes does:
+                encoded = '?';
+                count = 1;
+
+            } else {
+
+                encoded = (0xe0 | (c >> 12)) |
+                        ((0x80 | ((c >> 6) & 0x3f)) << 8) |
+                        ((0x80 | (c & 0x3f)) << 16);
+                count = 3;
+            }
+
+            for (int b = 0; b < count; b++) {
+
+                k1 |= (encoded & 0xff) << shift;
+                encoded >>>= 8;
+                shift += 8;
+                length++;
+
+                if (shift == 32) {
+
+                    h1 = mixH1(h1, mixK1(k1));
+                    k1 = 0;
+                    shift = 0;
+                }
+            }
+        }
+
+        if (shift > 0) {
+
+            h1 ^= mixK1(k1);
+        }
+        return fmix(h1, length);
+    }
+
+    private static char charAt(final String prefix, final char separator, final String suffix, final int index) {
+
+        final int prefixLength = prefix.length();
+        if (index < prefixLength) {
+
+            return prefix.charAt(index);
+        }
+        if (index == prefixLength) {
+
+            return separator;
+        }
+        return suffix.charAt(index - prefixLength - 1);
+    }
+
+    static int mixK1(int k1) {
+
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        k1 *= C2;
+        return k1;
+    }
+
+    static int mixH1(int h1, final int k1) {
+
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        h1 = h1 * 5 + 0xe6546b64;
+        return h1;
+    }
+
+    static int fmix(int h1, final int length) {
+
+        h1 ^= length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+}
@@ -2,7 +2,14 @@ package io.harness.cfsdk.cloud.events;
 
 import io.harness.cfsdk.cloud.core.model.Evaluation;
 
+/**
+ * Observes the changes of a single evaluation, see {@link io.harness.cfsdk.CfClient#registerEvaluationListener}.
+ */
 public interface EvaluationListener {
 
+    /**
+     * @param evaluation Changed evaluation. If the flag has been removed, the evaluation carries only the flag
+     *                   identifier, its value is null.
+     */
     void onEvaluation(Evaluation evaluation);
 }
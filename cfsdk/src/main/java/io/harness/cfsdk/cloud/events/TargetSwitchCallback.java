@@ -0,0 +1,17 @@
+package io.harness.cfsdk.cloud.events;
+
+import io.harness.cfsdk.cloud.model.Target;
+
+/**
+ * Callback receiving the result of a target switch.
+ */
+public interface TargetSwitchCallback {
+
+    /**
+     * Invoked on a background thread once the switch has completed or failed.
+     *
+     * @param target  Target the client has been asked to switch to.
+     * @param success True == The target is the active one and its evaluations are served.
+     */
+    void onTargetSwitched(Target target, boolean success);
+}
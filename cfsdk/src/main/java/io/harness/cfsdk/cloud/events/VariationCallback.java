@@ -0,0 +1,17 @@
+package io.harness.cfsdk.cloud.events;
+
+/**
+ * Callback receiving the result of an asynchronous variation call.
+ *
+ * @param <T> Variation value type.
+ */
+public interface VariationCallback<T> {
+
+    /**
+     * Invoked on the calling thread when the variation has been served from the in-memory snapshot,
+     * or on a background thread when the evaluation had to be fetched first.
+     *
+     * @param value Variation value, or the default value if the evaluation is not available.
+     */
+    void onVariation(T value);
+}
@@ -11,6 +11,7 @@ import io.harness.cfsdk.cloud.Cloud;
 import io.harness.cfsdk.cloud.FeatureService;
 import io.harness.cfsdk.cloud.ICloud;
 import io.harness.cfsdk.cloud.TokenProvider;
+import io.harness.cfsdk.cloud.cache.CacheStats;
 import io.harness.cfsdk.cloud.cache.CloudCache;
 import io.harness.cfsdk.cloud.cache.DefaultCache;
 import io.harness.cfsdk.cloud.core.api.DefaultApi;
@@ -60,6 +61,18 @@ public class CloudFactory implements ICloudFactory {
         return new FeatureRepositoryImpl(featureService, cloudCache, networkInfoProvider);
     }
 
+    @Override
+    public FeatureRepository getFeatureRepository(
+
+            FeatureService featureService,
+            CloudCache cloudCache,
+            NetworkInfoProviding networkInfoProvider,
+            CacheStats cacheStats
+    ) {
+
+        return new FeatureRepositoryImpl(featureService, cloudCache, networkInfoProvider, cacheStats);
+    }
+
     @Override
     public SSEControlling sseController(
 
@@ -76,6 +89,17 @@ public class CloudFactory implements ICloudFactory {
         return new ShortTermPolling(pollingInterval, timeUnit);
     }
 
+    @Override
+    public EvaluationPolling evaluationPolling(
+
+            int pollingInterval,
+            TimeUnit timeUnit,
+            long jitterInMillis
+    ) {
+
+        return new ShortTermPolling(pollingInterval, timeUnit, jitterInMillis);
+    }
+
     @Override
     public CloudCache defaultCache(Context context) {
 
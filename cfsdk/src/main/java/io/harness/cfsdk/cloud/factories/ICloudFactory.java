@@ -8,6 +8,7 @@ import io.harness.cfsdk.cloud.AuthResponseDecoder;
 import io.harness.cfsdk.cloud.FeatureService;
 import io.harness.cfsdk.cloud.ICloud;
 import io.harness.cfsdk.cloud.TokenProvider;
+import io.harness.cfsdk.cloud.cache.CacheStats;
 import io.harness.cfsdk.cloud.cache.CloudCache;
 import io.harness.cfsdk.cloud.core.api.DefaultApi;
 import io.harness.cfsdk.cloud.core.client.ApiClient;
@@ -31,6 +32,14 @@ public interface ICloudFactory {
             NetworkInfoProviding networkInfoProvider
     );
 
+    FeatureRepository getFeatureRepository(
+
+            FeatureService featureService,
+            CloudCache cloudCache,
+            NetworkInfoProviding networkInfoProvider,
+            CacheStats cacheStats
+    );
+
     SSEControlling sseController(
 
             ICloud cloud,
@@ -39,6 +48,14 @@ public interface ICloudFactory {
 
     EvaluationPolling evaluationPolling(int pollingInterval, TimeUnit timeUnit);
 
+    /**
+     * @param pollingInterval Polling interval.
+     * @param timeUnit        Polling interval unit.
+     * @param jitterInMillis  Maximum random delay added to every poll.
+     * @return Evaluation polling instance.
+     */
+    EvaluationPolling evaluationPolling(int pollingInterval, TimeUnit timeUnit, long jitterInMillis);
+
     CloudCache defaultCache(Context context);
 
     NetworkInfoProviding networkInfoProvider(Context context);
@@ -1,43 +1,47 @@
 package io.harness.cfsdk.cloud.polling;
 
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
 
+import io.harness.cfsdk.common.SdkScheduler;
+import io.harness.cfsdk.logging.CfLog;
+
 public class ShortTermPolling implements EvaluationPolling{
     private static final int MINIMUM_POLLING_INTERVAL = 60_000;
+    private final String logTag = ShortTermPolling.class.getSimpleName();
     private final long pollingInterval;
-    private Timer timer;
+    private final long jitterInMillis;
+    private SdkScheduler.Cancellable polling;
 
     public ShortTermPolling(int time, TimeUnit unit) {
+        this(time, unit, 0L);
+    }
+
+    /**
+     * @param time           Polling interval.
+     * @param unit           Polling interval unit.
+     * @param jitterInMillis Maximum random delay added to every poll, so the devices do not poll together.
+     */
+    public ShortTermPolling(int time, TimeUnit unit, long jitterInMillis) {
         this.pollingInterval = Math.max(unit.toMillis(time), MINIMUM_POLLING_INTERVAL);
+        this.jitterInMillis = jitterInMillis;
     }
 
     @Override
     public synchronized void start(Runnable runnable) {
-        if (timer != null) {
-            System.out.println("timer - stopping before start");
-            timer.cancel();
-            timer.purge();
+        if (polling != null) {
+            CfLog.OUT.v(logTag, "Polling restarted");
+            polling.cancel();
         }
-        System.out.println("timer - scheduling new one");
-        timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                runnable.run();
-            }
-        }, pollingInterval, pollingInterval);
+        CfLog.OUT.v(logTag, "Polling scheduled, interval: " + pollingInterval + " ms");
+        polling = SdkScheduler.getInstance().schedulePeriodic(runnable, pollingInterval, jitterInMillis);
     }
 
     @Override
     public synchronized void stop() {
-        if (timer != null) {
-            System.out.println("timer - stopping on exit");
-            timer.cancel();
-            timer.purge();
+        if (polling != null) {
+            CfLog.OUT.v(logTag, "Polling stopped");
+            polling.cancel();
+            polling = null;
         }
-        System.out.println("timer - stopping, new created");
-        timer = new Timer();
     }
 }
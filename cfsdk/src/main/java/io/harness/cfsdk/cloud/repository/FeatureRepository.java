@@ -1,8 +1,13 @@
 package io.harness.cfsdk.cloud.repository;
 
+import androidx.annotation.Nullable;
+
 import java.util.List;
 
 import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.evaluator.Evaluator;
+import io.harness.cfsdk.cloud.model.Target;
+import io.harness.cfsdk.cloud.snapshot.SnapshotHolder;
 
 public interface FeatureRepository {
 
@@ -21,6 +26,95 @@ public interface FeatureRepository {
             String cluster
     );
 
+    /**
+     * Asynchronous variant of {@link #getEvaluation(String, String, String, String)}, the calling
+     * thread is never blocked by the network.
+     *
+     * @param environment  Environment identifier.
+     * @param target       Target identifier.
+     * @param evaluationId Evaluation identifier.
+     * @param cluster      Cluster identifier.
+     * @param callback     Receives the fetched evaluation, the cached one if it could not be fetched, or null.
+     */
+    void getEvaluationAsync(
+
+            String environment,
+            String target,
+            String evaluationId,
+            String cluster,
+            FetchCallback<Evaluation> callback
+    );
+
+    /**
+     * Asynchronous variant of {@link #getAllEvaluations(String, String, String)}, the calling
+     * thread is never blocked by the network.
+     *
+     * @param environment Environment identifier.
+     * @param target      Target identifier.
+     * @param cluster     Cluster identifier.
+     * @param callback    Receives the fetched evaluations, the cached ones if they could not be fetched.
+     */
+    void getAllEvaluationsAsync(
+
+            String environment,
+            String target,
+            String cluster,
+            FetchCallback<List<Evaluation>> callback
+    );
+
+    /**
+     * Load the flag and segment configurations of the environment for local evaluation. Concurrent calls
+     * share a single load. If the configurations can't be loaded, the last loaded evaluator is returned.
+     *
+     * @param environment Environment identifier.
+     * @param cluster     Cluster identifier.
+     * @return Evaluator or null if the configurations have never been loaded.
+     */
+    @Nullable
+    Evaluator getEvaluator(String environment, String cluster);
+
+    /**
+     * Evaluate all flags for the target locally and store the evaluations the same way
+     * {@link #getAllEvaluations(String, String, String)} stores the fetched ones.
+     *
+     * @param environment Environment identifier.
+     * @param target      Target to evaluate for.
+     * @param evaluator   Evaluator to use.
+     * @return Evaluations of all flags.
+     */
+    List<Evaluation> evaluateAll(String environment, Target target, Evaluator evaluator);
+
+    /**
+     * Get the in-memory snapshot of evaluations for the environment / target pair. The snapshot is
+     * written only by full evaluation loads and single evaluation updates, reading from it never
+     * touches the network or the disk.
+     *
+     * @param environment Environment identifier.
+     * @param target      Target identifier.
+     * @return Snapshot holder, never null.
+     */
+    SnapshotHolder getSnapshot(String environment, String target);
+
+    /**
+     * Keep the snapshot of the environment / target pair in memory until it is unpinned, regardless of
+     * the number of targets read meanwhile. For holders the caller keeps a reference to, so the updates
+     * are always published to the holder it reads from.
+     *
+     * @param environment Environment identifier.
+     * @param target      Target identifier.
+     * @return Pinned snapshot holder, the one {@link #getSnapshot(String, String)} returns while pinned.
+     */
+    SnapshotHolder pinSnapshot(String environment, String target);
+
+    /**
+     * Release the snapshot pinned with {@link #pinSnapshot(String, String)}, it can be dropped again
+     * once it is not recently used.
+     *
+     * @param environment Environment identifier.
+     * @param target      Target identifier.
+     */
+    void unpinSnapshot(String environment, String target);
+
     void remove(String environment, String target, String evaluationId);
 
     void clear();
@@ -1,24 +1,52 @@
 package io.harness.cfsdk.cloud.repository;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.harness.cfsdk.cloud.ApiResponse;
 import io.harness.cfsdk.cloud.FeatureService;
+import io.harness.cfsdk.cloud.cache.CacheStats;
 import io.harness.cfsdk.cloud.cache.CloudCache;
 import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.core.model.FeatureConfig;
+import io.harness.cfsdk.cloud.core.model.Segment;
+import io.harness.cfsdk.cloud.evaluator.Bucketer;
+import io.harness.cfsdk.cloud.evaluator.Evaluator;
+import io.harness.cfsdk.cloud.model.Target;
 import io.harness.cfsdk.cloud.network.NetworkInfoProviding;
+import io.harness.cfsdk.cloud.snapshot.EvaluationSnapshot;
+import io.harness.cfsdk.cloud.snapshot.SnapshotHolder;
 import io.harness.cfsdk.logging.CfLog;
+import io.harness.cfsdk.utils.ShardedLruCache;
 
 public class FeatureRepositoryImpl implements FeatureRepository {
 
+    /**
+     * Default number of targets whose evaluation snapshots are kept in memory.
+     */
+    public static final int DEFAULT_SNAPSHOT_CAPACITY = 64;
+
     private final String tag;
+    private final CacheStats stats;
     private final CloudCache cloudCache;
     private final FeatureService featureService;
     private final NetworkInfoProviding networkInfoProvider;
+    private final SingleFlight<Evaluation> evaluationFetches;
+    private final SingleFlight<List<Evaluation>> evaluationLoads;
+    private final Bucketer bucketer;
+    private final SingleFlight<Evaluator> evaluatorLoads;
+    private final ConcurrentHashMap<String, Evaluator> evaluators;
+    private final ShardedLruCache<SnapshotHolder> snapshots;
+    private final ConcurrentHashMap<String, SnapshotHolder> pinnedSnapshots;
 
     {
 
+        pinnedSnapshots = new ConcurrentHashMap<>();
+        evaluators = new ConcurrentHashMap<>();
+        bucketer = new Bucketer();
+        evaluatorLoads = new SingleFlight<>();
+        evaluationFetches = new SingleFlight<>();
+        evaluationLoads = new SingleFlight<>();
         tag = FeatureRepositoryImpl.class.getSimpleName();
     }
 
@@ -29,11 +57,60 @@ public class FeatureRepositoryImpl implements FeatureRepository {
             final NetworkInfoProviding networkInfoProvider
     ) {
 
+        this(featureService, cloudCache, networkInfoProvider, DEFAULT_SNAPSHOT_CAPACITY, new CacheStats());
+    }
+
+    public FeatureRepositoryImpl(
+
+            final FeatureService featureService,
+            final CloudCache cloudCache,
+            final NetworkInfoProviding networkInfoProvider,
+            final CacheStats stats
+    ) {
+
+        this(featureService, cloudCache, networkInfoProvider, DEFAULT_SNAPSHOT_CAPACITY, stats);
+    }
+
+    /**
+     * @param snapshotCapacity Maximum number of targets whose evaluation snapshots are kept in memory.
+     *                         The least recently used snapshots are dropped first, they are seeded
+     *                         again from the cache when the target is read next time.
+     */
+    public FeatureRepositoryImpl(
+
+            final FeatureService featureService,
+            final CloudCache cloudCache,
+            final NetworkInfoProviding networkInfoProvider,
+            final int snapshotCapacity
+    ) {
+
+        this(featureService, cloudCache, networkInfoProvider, snapshotCapacity, new CacheStats());
+    }
+
+    /**
+     * @param snapshotCapacity Maximum number of targets whose evaluation snapshots are kept in memory.
+     * @param stats            Stats to record the request latencies and the network fallbacks to.
+     */
+    public FeatureRepositoryImpl(
+
+            final FeatureService featureService,
+            final CloudCache cloudCache,
+            final NetworkInfoProviding networkInfoProvider,
+            final int snapshotCapacity,
+            final CacheStats stats
+    ) {
+
+        this.stats = stats;
         this.cloudCache = cloudCache;
         this.featureService = featureService;
         this.networkInfoProvider = networkInfoProvider;
+        this.snapshots = new ShardedLruCache<>(snapshotCapacity);
     }
 
+    /**
+     * Fetch the evaluation from the API. Concurrent calls for the same environment, target and flag
+     * share a single request and all receive its result.
+     */
     @Override
     public Evaluation getEvaluation(
 
@@ -44,88 +121,419 @@ public class FeatureRepositoryImpl implements FeatureRepository {
     ) {
         if (networkInfoProvider.isNetworkAvailable()) {
 
-            ApiResponse apiResponse = this.featureService.getEvaluationForId(
+            final Evaluation evaluation = evaluationFetches.execute(
+
+                    buildEvaluationKey(environment, target, evaluationId),
+                    () -> {
 
-                    evaluationId, target, cluster
+                        final long start = System.nanoTime();
+                        final ApiResponse apiResponse = featureService.getEvaluationForId(evaluationId, target, cluster);
+                        stats.getFetch().recordSince(start);
+
+                        return onEvaluation(environment, target, evaluationId, apiResponse);
+                    }
             );
 
-            if (apiResponse != null && apiResponse.isSuccess()) {
+            if (evaluation != null) {
 
-                final String env = buildKey(environment, target);
-                cloudCache.saveEvaluation(env, evaluationId, apiResponse.body());
-                return apiResponse.body();
+                return evaluation;
             }
         }
 
+        stats.recordNetworkFallback();
         return cloudCache.getEvaluation(buildKey(environment, target), evaluationId);
     }
 
+    @Override
+    public void getEvaluationAsync(
+
+            final String environment,
+            final String target,
+            final String evaluationId,
+            final String cluster,
+            final FetchCallback<Evaluation> callback
+    ) {
+
+        if (!networkInfoProvider.isNetworkAvailable()) {
+
+            stats.recordNetworkFallback();
+            callback.onFetched(cloudCache.getEvaluation(buildKey(environment, target), evaluationId));
+            return;
+        }
+
+        evaluationFetches.executeAsync(
+
+                buildEvaluationKey(environment, target, evaluationId),
+
+                done -> {
+
+                    final long start = System.nanoTime();
+                    featureService.getEvaluationForIdAsync(
+
+                            evaluationId,
+                            target,
+                            cluster,
+                            apiResponse -> {
+
+                                stats.getFetch().recordSince(start);
+                                done.onResult(onEvaluation(environment, target, evaluationId, apiResponse));
+                            }
+                    );
+                },
+
+                evaluation -> {
+
+                    if (evaluation != null) {
+
+                        callback.onFetched(evaluation);
+
+                    } else {
+
+                        stats.recordNetworkFallback();
+                        callback.onFetched(
+
+                                cloudCache.getEvaluation(buildKey(environment, target), evaluationId)
+                        );
+                    }
+                }
+        );
+    }
+
+    /**
+     * Fetch all evaluations from the API. Concurrent calls for the same environment and target
+     * share a single request and all receive its result.
+     */
     @Override
     public List<Evaluation> getAllEvaluations(
 
-            String environment, String target, String cluster
+            final String environment,
+            final String target,
+            final String cluster
     ) {
 
-        final String envKey = environment + "_" + target;
+        if (networkInfoProvider.isNetworkAvailable()) {
+
+            final List<Evaluation> evaluations = evaluationLoads.execute(
 
-        if (!networkInfoProvider.isNetworkAvailable()) {
+                    buildKey(environment, target),
+                    () -> {
+
+                        final long start = System.nanoTime();
+                        final ApiResponse apiResponse = featureService.getEvaluations(
 
-            return this.cloudCache.getAllEvaluations(envKey);
+                                target,
+                                cluster,
+                                getSnapshot(environment, target).getETag()
+                        );
+                        stats.getFetch().recordSince(start);
+
+                        return onAllEvaluations(environment, target, apiResponse);
+                    }
+            );
+
+            if (evaluations != null) {
+
+                return evaluations;
+            }
         }
 
-        final ApiResponse apiResponse = this.featureService.getEvaluations(target, cluster);
-        if (apiResponse != null && apiResponse.isSuccess()) {
+        stats.recordNetworkFallback();
+        return cloudCache.getAllEvaluations(buildKey(environment, target));
+    }
 
-            final List<Evaluation> evaluationList = apiResponse.body();
-            cloudCache.saveAllEvaluations(envKey, evaluationList);
+    @Override
+    public void getAllEvaluationsAsync(
 
-            CfLog.OUT.v(tag, "Got all evaluations: " + evaluationList.size());
-            return evaluationList;
+            final String environment,
+            final String target,
+            final String cluster,
+            final FetchCallback<List<Evaluation>> callback
+    ) {
+
+        if (!networkInfoProvider.isNetworkAvailable()) {
+
+            stats.recordNetworkFallback();
+            callback.onFetched(cloudCache.getAllEvaluations(buildKey(environment, target)));
+            return;
         }
 
-        if (apiResponse == null || !apiResponse.isSuccess()) {
+        evaluationLoads.executeAsync(
+
+                buildKey(environment, target),
+
+                done -> {
+
+                    final long start = System.nanoTime();
+                    featureService.getEvaluationsAsync(
+
+                            target,
+                            cluster,
+                            getSnapshot(environment, target).getETag(),
+                            apiResponse -> {
+
+                                stats.getFetch().recordSince(start);
+                                done.onResult(onAllEvaluations(environment, target, apiResponse));
+                            }
+                    );
+                },
 
-            if (apiResponse!=null) {
+                evaluations -> {
 
-                CfLog.OUT.e(
+                    if (evaluations != null) {
 
-                        tag,
-                        "Get all evaluations, API error code: " + apiResponse.getCode()
-                );
+                        callback.onFetched(evaluations);
 
-            } else {
+                    } else {
 
-                CfLog.OUT.e(
+                        stats.recordNetworkFallback();
+                        callback.onFetched(cloudCache.getAllEvaluations(buildKey(environment, target)));
+                    }
+                }
+        );
+    }
+
+    @Override
+    public Evaluator getEvaluator(final String environment, final String cluster) {
+
+        if (networkInfoProvider.isNetworkAvailable()) {
+
+            final Evaluator evaluator = evaluatorLoads.execute(
 
-                        tag,
-                        "Get all evaluations, got null API response"
-                );
+                    environment,
+                    () -> loadEvaluator(environment, cluster)
+            );
+
+            if (evaluator != null) {
+
+                return evaluator;
             }
+        }
 
-            return this.cloudCache.getAllEvaluations(environment + "_" + target);
+        return evaluators.get(environment);
+    }
+
+    @Override
+    public List<Evaluation> evaluateAll(
+
+            final String environment,
+            final Target target,
+            final Evaluator evaluator
+    ) {
+
+        final List<Evaluation> evaluationList = evaluator.evaluateAll(target);
+
+        cloudCache.saveAllEvaluations(buildKey(environment, target.getIdentifier()), evaluationList);
+        getSnapshot(environment, target.getIdentifier()).publish(evaluationList);
+
+        CfLog.OUT.v(tag, "Evaluated all flags locally: " + evaluationList.size());
+        return evaluationList;
+    }
+
+    /**
+     * @return Stats the repository records to.
+     */
+    public CacheStats getCacheStats() {
+
+        return stats;
+    }
+
+    @Override
+    public SnapshotHolder getSnapshot(final String environment, final String target) {
+
+        final String key = buildKey(environment, target);
+        final SnapshotHolder pinned = pinnedSnapshots.get(key);
+        if (pinned != null) {
+
+            return pinned;
         }
 
-        CfLog.OUT.w(tag, "Got no evaluations");
-        return Collections.emptyList();
+        SnapshotHolder holder = snapshots.get(key);
+        if (holder == null) {
+
+            // Seed from the persisted cache so reads are served while offline or before the first load,
+            // the tag is read first so that a change saved in between drops it rather than pairs it up:
+            final String eTag = cloudCache instanceof CloudCache.ETagged ?
+                    ((CloudCache.ETagged) cloudCache).getETag(key) : null;
+
+            final EvaluationSnapshot seed = EvaluationSnapshot.of(cloudCache.getAllEvaluations(key));
+            final SnapshotHolder created = new SnapshotHolder(seed, eTag);
 
+            holder = snapshots.putIfAbsent(key, created);
+            if (holder == null) {
+
+                holder = created;
+            }
+        }
+        return holder;
+    }
+
+    /**
+     * The pinned holders are kept apart from the least recently used ones, so they do not take their capacity.
+     */
+    @Override
+    public synchronized SnapshotHolder pinSnapshot(final String environment, final String target) {
+
+        final String key = buildKey(environment, target);
+        final SnapshotHolder holder = getSnapshot(environment, target);
+
+        pinnedSnapshots.put(key, holder);
+        snapshots.remove(key);
+        return holder;
+    }
+
+    @Override
+    public synchronized void unpinSnapshot(final String environment, final String target) {
+
+        final String key = buildKey(environment, target);
+        final SnapshotHolder holder = pinnedSnapshots.remove(key);
+        if (holder != null) {
+
+            snapshots.putIfAbsent(key, holder);
+        }
     }
 
     @Override
     public void remove(String environment, String target, String evaluationId) {
 
         this.cloudCache.removeEvaluation(buildKey(environment, target), evaluationId);
+        getSnapshot(environment, target).remove(evaluationId);
     }
 
 
     @Override
     public void clear() {
 
+        snapshots.clear();
+        pinnedSnapshots.clear();
+        evaluators.clear();
         cloudCache.clear();
     }
 
+    /**
+     * Save the evaluations of a full reload, with their entity tag if the cache keeps it.
+     */
+    private void saveAllEvaluations(final String key, final List<Evaluation> evaluations, final String eTag) {
+
+        if (cloudCache instanceof CloudCache.ETagged) {
+
+            ((CloudCache.ETagged) cloudCache).saveAllEvaluations(key, evaluations, eTag);
+
+        } else {
+
+            cloudCache.saveAllEvaluations(key, evaluations);
+        }
+    }
+
+    /**
+     * Store the fetched evaluation.
+     *
+     * @return Fetched evaluation or null if the request has failed.
+     */
+    private Evaluation onEvaluation(
+
+            final String environment,
+            final String target,
+            final String evaluationId,
+            final ApiResponse apiResponse
+    ) {
+
+        if (apiResponse != null && apiResponse.isSuccess()) {
+
+            final Evaluation evaluation = apiResponse.body();
+
+            cloudCache.saveEvaluation(buildKey(environment, target), evaluationId, evaluation);
+            getSnapshot(environment, target).put(evaluation);
+            return evaluation;
+        }
+        return null;
+    }
+
+    /**
+     * Store the fetched evaluations. Evaluations not modified since the last load are neither stored
+     * nor published again, the current snapshot is kept as it is.
+     *
+     * @return Fetched evaluations or null if the request has failed.
+     */
+    private List<Evaluation> onAllEvaluations(
+
+            final String environment,
+            final String target,
+            final ApiResponse apiResponse
+    ) {
+
+        if (apiResponse != null && apiResponse.isNotModified()) {
+
+            CfLog.OUT.v(tag, "Got all evaluations, not modified");
+            return getSnapshot(environment, target).get().toEvaluationList();
+        }
+
+        if (apiResponse != null && apiResponse.isSuccess()) {
+
+            final List<Evaluation> evaluationList = apiResponse.body();
+            saveAllEvaluations(buildKey(environment, target), evaluationList, apiResponse.getETag());
+            getSnapshot(environment, target).publish(evaluationList, apiResponse.getETag());
+
+            CfLog.OUT.v(tag, "Got all evaluations: " + evaluationList.size());
+            return evaluationList;
+        }
+
+        if (apiResponse != null) {
+
+            CfLog.OUT.e(
+
+                    tag,
+                    "Get all evaluations, API error code: " + apiResponse.getCode()
+            );
+
+        } else {
+
+            CfLog.OUT.e(
+
+                    tag,
+                    "Get all evaluations, got null API response"
+            );
+        }
+        return null;
+    }
+
+    /**
+     * Fetch the flag and segment configurations and build the evaluator from them.
+     *
+     * @return New evaluator or null if any of the requests has failed.
+     */
+    private Evaluator loadEvaluator(final String environment, final String cluster) {
+
+        final ApiResponse flagsResponse = featureService.getFeatureConfigs(cluster);
+        if (flagsResponse == null || !flagsResponse.isSuccess()) {
+
+            CfLog.OUT.e(tag, "Get feature configurations failed");
+            return null;
+        }
+
+        final ApiResponse segmentsResponse = featureService.getSegments(cluster);
+        if (segmentsResponse == null || !segmentsResponse.isSuccess()) {
+
+            CfLog.OUT.e(tag, "Get target segments failed");
+            return null;
+        }
+
+        final List<FeatureConfig> flags = flagsResponse.body();
+        final List<Segment> segments = segmentsResponse.body();
+        final Evaluator evaluator = new Evaluator(flags, segments, bucketer);
+
+        evaluators.put(environment, evaluator);
+        CfLog.OUT.v(tag, "Got feature configurations: " + evaluator.size());
+        return evaluator;
+    }
+
     private String buildKey(String environment, String target) {
 
         return environment + "_" + target;
     }
 
+    private String buildEvaluationKey(String environment, String target, String evaluationId) {
+
+        return buildKey(environment, target) + "/" + evaluationId;
+    }
+
 }
@@ -0,0 +1,14 @@
+package io.harness.cfsdk.cloud.repository;
+
+/**
+ * Callback for the asynchronous {@link FeatureRepository} fetches.
+ *
+ * @param <T> Fetched data type.
+ */
+public interface FetchCallback<T> {
+
+    /**
+     * @param result Fetched data, the cached data if it could not be fetched, or null if neither is available.
+     */
+    void onFetched(T result);
+}
@@ -0,0 +1,198 @@
+package io.harness.cfsdk.cloud.repository;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Coalesces concurrent executions of the same request.
+ * <p>
+ * The first caller for a key executes the request, all callers arriving while it is in flight wait
+ * for it and receive the same result. Once the request completes the key is released, so the next
+ * caller starts a new request.
+ * <p>
+ * Blocking and asynchronous callers of the same key share the request in flight.
+ *
+ * @param <V> Result type.
+ */
+public class SingleFlight<V> {
+
+    /**
+     * Request to execute.
+     *
+     * @param <V> Result type.
+     */
+    public interface Request<V> {
+
+        V execute();
+    }
+
+    /**
+     * Request that completes asynchronously by invoking the given callback exactly once.
+     *
+     * @param <V> Result type.
+     */
+    public interface AsyncRequest<V> {
+
+        void execute(Callback<V> done);
+    }
+
+    /**
+     * Receives the result of the request.
+     *
+     * @param <V> Result type.
+     */
+    public interface Callback<V> {
+
+        void onResult(V result);
+    }
+
+    private final ConcurrentHashMap<String, Flight<V>> flights;
+
+    {
+
+        flights = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Execute the request or join the one already in flight for the same key.
+     *
+     * @param key     Request key.
+     * @param request Request to execute if none is in flight.
+     * @return Result of the request, null if the request failed or the waiting was interrupted.
+     */
+    public V execute(final String key, final Request<V> request) {
+
+        final Flight<V> flight = new Flight<>();
+        final Flight<V> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+
+            return inFlight.await();
+        }
+
+        V result = null;
+        try {
+
+            result = request.execute();
+            return result;
+
+        } finally {
+
+            flights.remove(key, flight);
+            flight.complete(result);
+        }
+    }
+
+    /**
+     * Execute the asynchronous request or join the one already in flight for the same key.
+     * The calling thread is never blocked.
+     *
+     * @param key      Request key.
+     * @param request  Request to execute if none is in flight.
+     * @param callback Receives the result of the request, null if the request failed. Invoked on the
+     *                 thread completing the request, or on the calling thread if it has already completed.
+     */
+    public void executeAsync(final String key, final AsyncRequest<V> request, final Callback<V> callback) {
+
+        final Flight<V> flight = new Flight<>();
+        final Flight<V> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight != null) {
+
+            inFlight.subscribe(callback);
+            return;
+        }
+
+        flight.subscribe(callback);
+        try {
+
+            request.execute(result -> {
+
+                flights.remove(key, flight);
+                flight.complete(result);
+            });
+
+        } catch (RuntimeException e) {
+
+            flights.remove(key, flight);
+            flight.complete(null);
+            throw e;
+        }
+    }
+
+    /**
+     * @return Number of requests currently in flight.
+     */
+    public int inFlight() {
+
+        return flights.size();
+    }
+
+    private static class Flight<V> {
+
+        private V result;
+        private boolean completed;
+        private final CountDownLatch done;
+        private final List<Callback<V>> callbacks;
+
+        {
+
+            callbacks = new LinkedList<>();
+            done = new CountDownLatch(1);
+        }
+
+        void subscribe(final Callback<V> callback) {
+
+            final V value;
+            synchronized (this) {
+
+                if (!completed) {
+
+                    callbacks.add(callback);
+                    return;
+                }
+                value = result;
+            }
+            callback.onResult(value);
+        }
+
+        void complete(final V value) {
+
+            final List<Callback<V>> toNotify;
+            synchronized (this) {
+
+                if (completed) {
+
+                    return;
+                }
+                result = value;
+                completed = true;
+                toNotify = new LinkedList<>(callbacks);
+                callbacks.clear();
+            }
+            done.countDown();
+
+            for (final Callback<V> callback : toNotify) {
+
+                callback.onResult(value);
+            }
+        }
+
+        V await() {
+
+            try {
+
+                done.await();
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            synchronized (this) {
+
+                return result;
+            }
+        }
+    }
+}
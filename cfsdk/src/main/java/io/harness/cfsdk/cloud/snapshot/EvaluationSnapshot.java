@@ -0,0 +1,218 @@
+package io.harness.cfsdk.cloud.snapshot;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.logging.CfLog;
+
+/**
+ * Immutable view of all evaluations known for a single environment / target pair,
+ * indexed by flag identifier. Values are decoded once, on creation, into {@link TypedEvaluation}.
+ * <p>
+ * A snapshot is never modified once created. Every change produces a new instance which is then
+ * published through {@link SnapshotHolder}, so readers never observe a partially applied update.
+ */
+public final class EvaluationSnapshot {
+
+    public static final EvaluationSnapshot EMPTY;
+
+    private static final String LOG_TAG;
+
+    static {
+
+        LOG_TAG = EvaluationSnapshot.class.getSimpleName();
+        EMPTY = new EvaluationSnapshot(Collections.<String, TypedEvaluation>emptyMap());
+    }
+
+    private final Map<String, TypedEvaluation> evaluations;
+
+    private EvaluationSnapshot(final Map<String, TypedEvaluation> evaluations) {
+
+        this.evaluations = evaluations;
+    }
+
+    /**
+     * Create the snapshot from the list of evaluations.
+     *
+     * @param evaluations Evaluations to index. Items without flag identifier are skipped, as are items that
+     *                    are not evaluations, for example restored from a cache that has failed to convert them.
+     * @return New snapshot instance.
+     */
+    public static EvaluationSnapshot of(final Collection<Evaluation> evaluations) {
+
+        if (evaluations == null || evaluations.isEmpty()) {
+
+            return EMPTY;
+        }
+
+        final Map<String, TypedEvaluation> items = new HashMap<>(evaluations.size() * 2);
+        for (final Object item : evaluations) {
+
+            if (!(item instanceof Evaluation)) {
+
+                if (item != null) {
+
+                    CfLog.OUT.w(LOG_TAG, "Not an evaluation, skipped: " + item.getClass().getName());
+                }
+                continue;
+            }
+
+            final Evaluation evaluation = (Evaluation) item;
+            if (evaluation.getFlag() != null) {
+
+                items.put(evaluation.getFlag(), new TypedEvaluation(evaluation));
+            }
+        }
+        return new EvaluationSnapshot(Collections.unmodifiableMap(items));
+    }
+
+    /**
+     * Get the evaluation for the flag.
+     *
+     * @param flag Flag identifier.
+     * @return Decoded evaluation or null if the flag is not a part of this snapshot.
+     */
+    @Nullable
+    public TypedEvaluation get(final String flag) {
+
+        return evaluations.get(flag);
+    }
+
+    public int size() {
+
+        return evaluations.size();
+    }
+
+    public boolean isEmpty() {
+
+        return evaluations.isEmpty();
+    }
+
+    /**
+     * @return Unmodifiable collection of all evaluations in this snapshot.
+     */
+    public Collection<TypedEvaluation> getEvaluations() {
+
+        return evaluations.values();
+    }
+
+    /**
+     * @return New list of the raw evaluations in this snapshot.
+     */
+    public List<Evaluation> toEvaluationList() {
+
+        final List<Evaluation> list = new ArrayList<>(evaluations.size());
+        for (final TypedEvaluation evaluation : evaluations.values()) {
+
+            list.add(evaluation.getEvaluation());
+        }
+        return list;
+    }
+
+    /**
+     * Check if a reload would change this snapshot. Does not allocate.
+     *
+     * @param loaded Freshly loaded evaluations.
+     * @return True if the evaluations contain exactly the flags of this snapshot, with the same
+     * identifiers and values.
+     */
+    public boolean contentEquals(final Collection<Evaluation> loaded) {
+
+        if (loaded == null) {
+
+            return evaluations.isEmpty();
+        }
+
+        int matched = 0;
+        for (final Evaluation evaluation : loaded) {
+
+            if (evaluation == null || evaluation.getFlag() == null) {
+
+                continue;
+            }
+
+            final TypedEvaluation current = evaluations.get(evaluation.getFlag());
+            if (current == null || !current.isSameAs(evaluation)) {
+
+                return false;
+            }
+            matched++;
+        }
+        return matched == evaluations.size();
+    }
+
+    /**
+     * Compute the flags that differ between the previous snapshot and this one.
+     * <p>
+     * Added and changed flags are reported with their current evaluation. Removed flags are reported
+     * with an evaluation carrying only the flag identifier, without identifier and value.
+     *
+     * @param previous Snapshot to compare with.
+     * @return Changed evaluations, empty if the snapshots are the same.
+     */
+    public List<Evaluation> diff(final EvaluationSnapshot previous) {
+
+        if (previous == this) {
+
+            return Collections.emptyList();
+        }
+
+        final List<Evaluation> changes = new LinkedList<>();
+        for (final TypedEvaluation current : evaluations.values()) {
+
+            final TypedEvaluation before = previous.get(current.getFlag());
+            if (before == null || !before.isSameAs(current.getEvaluation())) {
+
+                changes.add(current.getEvaluation());
+            }
+        }
+
+        for (final TypedEvaluation before : previous.getEvaluations()) {
+
+            if (!evaluations.containsKey(before.getFlag())) {
+
+                changes.add(new Evaluation().flag(before.getFlag()));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Copy this snapshot with the evaluation added or replaced.
+     *
+     * @param evaluation Evaluation to put.
+     * @return New snapshot instance.
+     */
+    public EvaluationSnapshot with(final Evaluation evaluation) {
+
+        final Map<String, TypedEvaluation> items = new HashMap<>(evaluations);
+        items.put(evaluation.getFlag(), new TypedEvaluation(evaluation));
+        return new EvaluationSnapshot(Collections.unmodifiableMap(items));
+    }
+
+    /**
+     * Copy this snapshot with the evaluation removed.
+     *
+     * @param flag Flag identifier to remove.
+     * @return New snapshot instance or this one if the flag is not present.
+     */
+    public EvaluationSnapshot without(final String flag) {
+
+        if (!evaluations.containsKey(flag)) {
+
+            return this;
+        }
+
+        final Map<String, TypedEvaluation> items = new HashMap<>(evaluations);
+        items.remove(flag);
+        return new EvaluationSnapshot(Collections.unmodifiableMap(items));
+    }
+}
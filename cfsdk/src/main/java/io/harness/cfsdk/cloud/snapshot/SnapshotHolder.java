@@ -0,0 +1,109 @@
+package io.harness.cfsdk.cloud.snapshot;
+
+import java.util.Collection;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+
+/**
+ * Holds the current {@link EvaluationSnapshot} of a single environment / target pair.
+ * <p>
+ * Reads are plain volatile reads and never block. Writers (initial load, polling and SSE updates)
+ * are serialized and publish a new snapshot on every change, and only on change.
+ * <p>
+ * The entity tag of the full reload the snapshot comes from is kept alongside it, so the next reload can be
+ * a conditional request. Any other change drops the tag, the snapshot no longer matches the server version.
+ */
+public final class SnapshotHolder {
+
+    private volatile EvaluationSnapshot snapshot;
+    private volatile String eTag;
+
+    public SnapshotHolder() {
+
+        this(EvaluationSnapshot.EMPTY);
+    }
+
+    public SnapshotHolder(final EvaluationSnapshot snapshot) {
+
+        this(snapshot, null);
+    }
+
+    /**
+     * @param snapshot Initial snapshot, for example seeded from the persisted cache.
+     * @param eTag     Entity tag of the full reload the snapshot comes from, null if unknown.
+     */
+    public SnapshotHolder(final EvaluationSnapshot snapshot, final String eTag) {
+
+        this.snapshot = snapshot;
+        this.eTag = eTag;
+    }
+
+    /**
+     * @return Currently published snapshot. Never null.
+     */
+    public EvaluationSnapshot get() {
+
+        return snapshot;
+    }
+
+    /**
+     * @return Entity tag of the full reload the current snapshot comes from, null if unknown.
+     */
+    public String getETag() {
+
+        return eTag;
+    }
+
+    /**
+     * Replace the whole snapshot with the evaluations of a full reload. If the reload does not change
+     * anything, the current snapshot instance is kept, so readers can detect changes by identity.
+     *
+     * @param evaluations All evaluations for the environment / target pair.
+     * @return True if a new snapshot has been published.
+     */
+    public boolean publish(final Collection<Evaluation> evaluations) {
+
+        return publish(evaluations, null);
+    }
+
+    /**
+     * Replace the whole snapshot with the evaluations of a full reload and remember its entity tag.
+     *
+     * @param evaluations All evaluations for the environment / target pair.
+     * @param eTag        Entity tag of the reload response, null if unknown.
+     * @return True if a new snapshot has been published.
+     */
+    public synchronized boolean publish(final Collection<Evaluation> evaluations, final String eTag) {
+
+        this.eTag = eTag;
+        if (snapshot.contentEquals(evaluations)) {
+
+            return false;
+        }
+        snapshot = EvaluationSnapshot.of(evaluations);
+        return true;
+    }
+
+    public synchronized void put(final Evaluation evaluation) {
+
+        if (evaluation != null && evaluation.getFlag() != null) {
+
+            final TypedEvaluation current = snapshot.get(evaluation.getFlag());
+            if (current == null || !current.isSameAs(evaluation)) {
+
+                snapshot = snapshot.with(evaluation);
+                eTag = null;
+            }
+        }
+    }
+
+    public synchronized void remove(final String flag) {
+
+        final EvaluationSnapshot current = snapshot;
+        snapshot = current.without(flag);
+        if (snapshot != current) {
+
+            eTag = null;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package io.harness.cfsdk.cloud.snapshot;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.harness.cfsdk.cloud.analytics.model.Analytics;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.core.model.Variation;
+import io.harness.cfsdk.cloud.model.Target;
+import io.harness.cfsdk.logging.CfLog;
+
+/**
+ * {@link Evaluation} with its value decoded once, at the moment it enters the {@link EvaluationSnapshot}.
+ * <p>
+ * Typed getters only read the pre-decoded fields, they never parse or box.
+ * The decoding follows the rules the variation methods of {@link io.harness.cfsdk.CfClient} always used:
+ * booleans are either {@link Boolean} values or the "true" string, numbers are either {@link Number} values
+ * or parsable strings and JSON values are either {@link JSONObject} instances or their string representation.
+ * <p>
+ * The metrics entries of the evaluation are prepared here as well, one per target reading it, so recording
+ * a read does not allocate.
+ */
+public final class TypedEvaluation {
+
+    /**
+     * Maximum number of targets the metrics entries are kept for, the reads by further targets get a new entry.
+     */
+    public static final int MAX_CACHED_TARGETS = 8;
+
+    private static final String LOG_TAG;
+
+    static {
+
+        LOG_TAG = TypedEvaluation.class.getSimpleName();
+    }
+
+    private final Evaluation evaluation;
+
+    private final boolean isBoolean;
+    private final boolean booleanValue;
+
+    private final boolean isNumber;
+    private final double numberValue;
+
+    private final String stringValue;
+    private final JSONObject jsonValue;
+
+    private final Variation metricsVariation;
+    private final ConcurrentHashMap<String, Analytics> analytics;
+
+    public TypedEvaluation(final Evaluation evaluation) {
+
+        this.evaluation = evaluation;
+        analytics = new ConcurrentHashMap<>(2);
+
+        final Object value = evaluation.getValue();
+
+        if (value instanceof Boolean) {
+
+            isBoolean = true;
+            booleanValue = (Boolean) value;
+
+        } else if (value instanceof String) {
+
+            isBoolean = true;
+            booleanValue = "true".equals(value);
+
+        } else {
+
+            isBoolean = false;
+            booleanValue = false;
+        }
+
+        double number = 0;
+        boolean parsed = false;
+
+        if (value instanceof Number) {
+
+            number = ((Number) value).doubleValue();
+            parsed = true;
+
+        } else if (value instanceof String && looksNumeric((String) value)) {
+
+            try {
+
+                number = Double.parseDouble((String) value);
+                parsed = true;
+
+            } catch (NumberFormatException e) {
+
+                CfLog.OUT.w(LOG_TAG, "Not a number value, flag: " + evaluation.getFlag());
+            }
+        }
+
+        isNumber = parsed;
+        numberValue = number;
+
+        if (value instanceof String) {
+
+            stringValue = (String) value;
+
+        } else if (value != null) {
+
+            stringValue = value.toString();
+
+        } else {
+
+            stringValue = null;
+        }
+
+        JSONObject json = null;
+        if (value instanceof JSONObject) {
+
+            json = (JSONObject) value;
+
+        } else if (value instanceof String && looksLikeJsonObject((String) value)) {
+
+            try {
+
+                json = new JSONObject((String) value);
+
+            } catch (JSONException e) {
+
+                CfLog.OUT.e(LOG_TAG, e.getMessage(), e);
+            }
+        }
+        jsonValue = json;
+
+        metricsVariation = new Variation();
+        metricsVariation.setName(evaluation.getFlag());
+        metricsVariation.setValue(stringValue);
+        metricsVariation.setIdentifier(evaluation.getIdentifier());
+    }
+
+    public Evaluation getEvaluation() {
+
+        return evaluation;
+    }
+
+    public String getFlag() {
+
+        return evaluation.getFlag();
+    }
+
+    /**
+     * @return True if the value has been decoded as boolean.
+     */
+    public boolean isBoolean() {
+
+        return isBoolean;
+    }
+
+    public boolean getBoolean() {
+
+        return booleanValue;
+    }
+
+    /**
+     * @return True if the value has been decoded as number.
+     */
+    public boolean isNumber() {
+
+        return isNumber;
+    }
+
+    public double getNumber() {
+
+        return numberValue;
+    }
+
+    @Nullable
+    public String getString() {
+
+        return stringValue;
+    }
+
+    /**
+     * Get the pre-parsed JSON value. The instance is shared between all readers of the snapshot
+     * and must not be modified.
+     *
+     * @return JSON value or null if the value is not a JSON object.
+     */
+    @Nullable
+    public JSONObject getJson() {
+
+        return jsonValue;
+    }
+
+    public Variation getMetricsVariation() {
+
+        return metricsVariation;
+    }
+
+    /**
+     * Get the metrics entry for the read of this evaluation by the target. The entry is created on first use
+     * and reused for all following reads by the same target, so targets reading the evaluation in turns
+     * do not replace each other's entries. Up to {@link #MAX_CACHED_TARGETS} targets are kept.
+     *
+     * @param target Target reading the evaluation.
+     * @return Metrics entry.
+     */
+    public Analytics getAnalytics(final Target target) {
+
+        final String key = target.getIdentifier() != null ? target.getIdentifier() : "";
+
+        final Analytics cached = analytics.get(key);
+        if (cached != null && cached.getTarget() == target) {
+
+            return cached;
+        }
+
+        final Analytics created = new Analytics(target, evaluation.getFlag(), metricsVariation);
+        if (cached != null || analytics.size() < MAX_CACHED_TARGETS) {
+
+            // Replaces the entry of an older instance of the same target:
+            analytics.put(key, created);
+        }
+        return created;
+    }
+
+    /**
+     * @param other Evaluation to compare with.
+     * @return True if the other evaluation has the same identifier and value as this one.
+     */
+    public boolean isSameAs(final Evaluation other) {
+
+        return other != null &&
+                equal(evaluation.getIdentifier(), other.getIdentifier()) &&
+                equal(evaluation.getValue(), other.getValue());
+    }
+
+    /**
+     * @return True if the raw value is null.
+     */
+    public boolean isNull() {
+
+        return evaluation.getValue() == null;
+    }
+
+    private static boolean equal(final Object a, final Object b) {
+
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static boolean looksNumeric(final String value) {
+
+        final int start = firstNonWhitespace(value);
+        if (start < 0) {
+
+            return false;
+        }
+
+        final char c = value.charAt(start);
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'N' || c == 'I';
+    }
+
+    private static boolean looksLikeJsonObject(final String value) {
+
+        final int start = firstNonWhitespace(value);
+        return start >= 0 && value.charAt(start) == '{';
+    }
+
+    private static int firstNonWhitespace(final String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+
+            if (!Character.isWhitespace(value.charAt(i))) {
+
+                return i;
+            }
+        }
+        return -1;
+    }
+}
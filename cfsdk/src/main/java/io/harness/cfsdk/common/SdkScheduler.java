@@ -0,0 +1,344 @@
+package io.harness.cfsdk.common;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.harness.cfsdk.logging.CfLog;
+
+/**
+ * Scheduler shared by all SDK components, polling, metrics publishing, cache persistence and the client
+ * tasks, for the whole process.
+ * <p>
+ * A single timer thread only keeps the time: when a scheduled task is due it is handed over to the I/O
+ * threads, which run all the work that may block, the network requests, the storage and the listener
+ * callbacks. There are at most {@link #IO_THREADS} I/O threads, daemon threads created on demand and
+ * stopped once idle, so a blocked task does not hold up the timer or the tasks of other components as long
+ * as fewer tasks block at once than there are I/O threads. Tasks waiting for a free I/O thread are queued,
+ * up to {@link #IO_QUEUE_CAPACITY} of them; when the queue is full the task is run by the thread submitting it.
+ * <p>
+ * Components that depend on their tasks running one at a time and in order get a serial executor,
+ * see {@link #newSerialExecutor()}, instead of a thread of their own. Periodic work gets a random delay
+ * added to every run, see {@link #schedulePeriodic(Runnable, long, long)}.
+ */
+public final class SdkScheduler {
+
+    /**
+     * Number of timer threads shared by all SDK components.
+     */
+    public static final int TIMER_THREADS = 1;
+
+    /**
+     * Maximum number of I/O threads shared by all SDK components.
+     */
+    public static final int IO_THREADS = 8;
+
+    /**
+     * Number of tasks waiting for a free I/O thread above which a task is run by the submitting thread.
+     */
+    public static final int IO_QUEUE_CAPACITY = 256;
+
+    /**
+     * Time an idle I/O thread is kept for the next task.
+     */
+    public static final long IO_KEEP_ALIVE_MILLIS = 30_000L;
+
+    private static final SdkScheduler INSTANCE;
+
+    static {
+
+        INSTANCE = new SdkScheduler();
+    }
+
+    private final String logTag;
+    private final Random random;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadPoolExecutor io;
+
+    {
+
+        random = new Random();
+        logTag = SdkScheduler.class.getSimpleName();
+    }
+
+    private SdkScheduler() {
+
+        timer = new ScheduledThreadPoolExecutor(TIMER_THREADS, threadFactory("cf-sdk-timer-"));
+        io = new ThreadPoolExecutor(
+
+                IO_THREADS,
+                IO_THREADS,
+                IO_KEEP_ALIVE_MILLIS,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(IO_QUEUE_CAPACITY),
+                threadFactory("cf-sdk-io-"),
+                this::runOnCaller
+        );
+        io.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory threadFactory(final String prefix) {
+
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+
+            final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Rejection policy of the I/O threads, the submitting thread runs the task itself, which slows down
+     * the submission of more tasks until the I/O threads catch up.
+     */
+    private void runOnCaller(final Runnable task, final ThreadPoolExecutor executor) {
+
+        CfLog.OUT.w(logTag, "All I/O threads are busy and the queue is full, task run by the calling thread");
+        task.run();
+    }
+
+    public static SdkScheduler getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * @return Executor running its tasks one at a time, in the order they are submitted, on the I/O threads.
+     */
+    public SerialExecutor newSerialExecutor() {
+
+        return new SerialQueue(io);
+    }
+
+    /**
+     * Run the task once after the delay, on the I/O threads.
+     *
+     * @param task        Task to run.
+     * @param delayMillis Delay in milliseconds.
+     * @return Handle to cancel the task.
+     */
+    public Cancellable schedule(final Runnable task, final long delayMillis) {
+
+        final Runnable guarded = guarded(task);
+        final ScheduledFuture<?> future = timer.schedule(
+
+                () -> io.execute(guarded),
+                delayMillis,
+                TimeUnit.MILLISECONDS
+        );
+        return () -> future.cancel(false);
+    }
+
+    /**
+     * Run the task repeatedly on the I/O threads, the first time after one period. Each run is delayed by
+     * the period and a random jitter between 0 and the jitter given, but never longer than the period,
+     * counted from the end of the previous run. A failing run does not stop the following runs.
+     *
+     * @param task         Task to run.
+     * @param periodMillis Period in milliseconds.
+     * @param jitterMillis Maximum random delay added to the period in milliseconds.
+     * @return Handle to stop the runs.
+     */
+    public Cancellable schedulePeriodic(
+
+            final Runnable task,
+            final long periodMillis,
+            final long jitterMillis
+    ) {
+
+        final PeriodicTask periodic = new PeriodicTask(
+
+                task, periodMillis, Math.max(0L, Math.min(jitterMillis, periodMillis))
+        );
+
+        periodic.scheduleNext();
+        return periodic;
+    }
+
+    private Runnable guarded(final Runnable task) {
+
+        return () -> {
+
+            try {
+
+                task.run();
+
+            } catch (RuntimeException e) {
+
+                CfLog.OUT.e(logTag, "Scheduled task failed", e);
+            }
+        };
+    }
+
+    private long nextJitter(final long jitterMillis) {
+
+        if (jitterMillis <= 0L) {
+
+            return 0L;
+        }
+
+        synchronized (random) {
+
+            return (long) (random.nextDouble() * (jitterMillis + 1));
+        }
+    }
+
+    /**
+     * Executor running its tasks one at a time, in the order they are submitted.
+     */
+    public interface SerialExecutor extends Executor {
+
+        /**
+         * @return True if called from a task of this executor. Such a task must not wait for a task submitted
+         * to this executor after it, that one can't start before the waiting task completes.
+         */
+        boolean isCurrentThread();
+    }
+
+    /**
+     * Handle of the scheduled work.
+     */
+    public interface Cancellable {
+
+        /**
+         * Cancel the runs not started yet, a run in progress is completed.
+         */
+        void cancel();
+    }
+
+    /**
+     * Fired by the timer, each run is handed over to the I/O threads and the next one scheduled once it completes.
+     */
+    private final class PeriodicTask implements Runnable, Cancellable {
+
+        private final Runnable task;
+        private final long periodMillis;
+        private final long jitterMillis;
+
+        private boolean cancelled;
+        private ScheduledFuture<?> next;
+
+        PeriodicTask(final Runnable task, final long periodMillis, final long jitterMillis) {
+
+            this.task = task;
+            this.periodMillis = periodMillis;
+            this.jitterMillis = jitterMillis;
+        }
+
+        @Override
+        public void run() {
+
+            synchronized (this) {
+
+                if (cancelled) {
+
+                    return;
+                }
+            }
+
+            io.execute(() -> {
+
+                try {
+
+                    guarded(task).run();
+
+                } finally {
+
+                    scheduleNext();
+                }
+            });
+        }
+
+        synchronized void scheduleNext() {
+
+            if (!cancelled) {
+
+                next = timer.schedule(
+
+                        this,
+                        periodMillis + nextJitter(jitterMillis),
+                        TimeUnit.MILLISECONDS
+                );
+            }
+        }
+
+        @Override
+        public synchronized void cancel() {
+
+            cancelled = true;
+            if (next != null) {
+
+                next.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Runs the submitted tasks one by one on the shared executor, a task is handed over to the shared
+     * executor only once the previous one has completed.
+     */
+    private final class SerialQueue implements SerialExecutor {
+
+        private final Executor executor;
+        private final ArrayDeque<Runnable> tasks;
+
+        private Runnable active;
+        private volatile Thread runner;
+
+        {
+
+            tasks = new ArrayDeque<>();
+        }
+
+        SerialQueue(final Executor executor) {
+
+            this.executor = executor;
+        }
+
+        @Override
+        public boolean isCurrentThread() {
+
+            return runner == Thread.currentThread();
+        }
+
+        @Override
+        public synchronized void execute(final Runnable task) {
+
+            tasks.offer(() -> {
+
+                runner = Thread.currentThread();
+                try {
+
+                    guarded(task).run();
+
+                } finally {
+
+                    runner = null;
+                    scheduleNext();
+                }
+            });
+
+            if (active == null) {
+
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+
+            active = tasks.poll();
+            if (active != null) {
+
+                executor.execute(active);
+            }
+        }
+    }
+}
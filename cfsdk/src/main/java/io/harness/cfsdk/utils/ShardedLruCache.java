@@ -0,0 +1,155 @@
+package io.harness.cfsdk.utils;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded, thread safe cache evicting the least recently used entries.
+ * <p>
+ * Entries are spread over independent shards by key hash, each shard has its own lock and its own
+ * share of the capacity, so concurrent access to different keys rarely contends. The shares add up to
+ * the capacity exactly. The eviction order is least recently used per shard.
+ *
+ * @param <V> Value type.
+ */
+public class ShardedLruCache<V> {
+
+    private static final int MAX_SHARDS = 8;
+
+    private final Shard<V>[] shards;
+
+    /**
+     * @param capacity Maximum number of entries, at least 1.
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedLruCache(final int capacity) {
+
+        final int bounded = Math.max(1, capacity);
+
+        int count = 1;
+        while (count * 2 <= MAX_SHARDS && count * 2 * 2 <= bounded) {
+
+            count *= 2;
+        }
+
+        shards = new Shard[count];
+        final int shardCapacity = bounded / count;
+        final int remainder = bounded % count;
+        for (int i = 0; i < count; i++) {
+
+            shards[i] = new Shard<>(i < remainder ? shardCapacity + 1 : shardCapacity);
+        }
+    }
+
+    /**
+     * @param key Key.
+     * @return Cached value or null. The entry becomes the most recently used one.
+     */
+    @Nullable
+    public V get(final String key) {
+
+        final Shard<V> shard = shardFor(key);
+        synchronized (shard) {
+
+            return shard.get(key);
+        }
+    }
+
+    /**
+     * @param key   Key.
+     * @param value Value to cache if the key is not present.
+     * @return Value already cached for the key or null if the value has been added.
+     */
+    @Nullable
+    public V putIfAbsent(final String key, final V value) {
+
+        final Shard<V> shard = shardFor(key);
+        synchronized (shard) {
+
+            final V existing = shard.get(key);
+            if (existing != null) {
+
+                return existing;
+            }
+            shard.put(key, value);
+            return null;
+        }
+    }
+
+    @Nullable
+    public V remove(final String key) {
+
+        final Shard<V> shard = shardFor(key);
+        synchronized (shard) {
+
+            return shard.remove(key);
+        }
+    }
+
+    /**
+     * @return Copy of all cached values.
+     */
+    public List<V> values() {
+
+        final List<V> values = new ArrayList<>();
+        for (final Shard<V> shard : shards) {
+
+            synchronized (shard) {
+
+                values.addAll(shard.values());
+            }
+        }
+        return values;
+    }
+
+    public int size() {
+
+        int size = 0;
+        for (final Shard<V> shard : shards) {
+
+            synchronized (shard) {
+
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+
+        for (final Shard<V> shard : shards) {
+
+            synchronized (shard) {
+
+                shard.clear();
+            }
+        }
+    }
+
+    private Shard<V> shardFor(final String key) {
+
+        final int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    private static final class Shard<V> extends LinkedHashMap<String, V> {
+
+        private final int capacity;
+
+        Shard(final int capacity) {
+
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+
+            return size() > capacity;
+        }
+    }
+}
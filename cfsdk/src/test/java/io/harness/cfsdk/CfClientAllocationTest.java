@@ -0,0 +1,169 @@
+package io.harness.cfsdk;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.harness.cfsdk.cloud.analytics.MetricsApiFactory;
+import io.harness.cfsdk.cloud.analytics.model.Analytics;
+import io.harness.cfsdk.cloud.cache.CloudCache;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.model.Target;
+import io.harness.cfsdk.cloud.snapshot.TypedEvaluation;
+import io.harness.cfsdk.logging.CfLog;
+import io.harness.cfsdk.mock.MockedCfClient;
+import io.harness.cfsdk.mock.MockedCloudFactory;
+import io.harness.cfsdk.mock.MockedFeatureRepository;
+
+/**
+ * Allocation regression test for the steady state variation path: reading an existing flag
+ * (including recording its metrics) must not allocate, not even when several targets read it in turns.
+ */
+public class CfClientAllocationTest {
+
+    private final long timeout;
+    private final int iterations;
+    private final String logTag;
+
+    private MockedCfClient client;
+
+    {
+
+        timeout = 3000L;
+        iterations = 1000;
+        logTag = CfClientAllocationTest.class.getSimpleName();
+    }
+
+    @Before
+    public void prepare() throws InterruptedException {
+
+        CfLog.testModeOn();
+
+        MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(
+
+                (authToken, config) -> (environment, cluster, metrics) ->
+                        CfLog.OUT.v(logTag, "Ignore this metrics posting")
+        );
+
+        final CfConfiguration configuration = CfConfiguration.builder()
+                .enableStream(false)
+                .enableAnalytics(true)
+                .metricsCapacity(iterations * 10)
+                .build();
+
+        final Target target = new Target().identifier("target").name("target");
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client = new MockedCfClient(new MockedCloudFactory());
+        client.initialize(
+
+                null,
+                "key",
+                configuration,
+                target,
+                Mockito.mock(CloudCache.class),
+                (authInfo, result) -> latch.countDown()
+        );
+
+        Assert.assertTrue(latch.await(timeout, TimeUnit.MILLISECONDS));
+    }
+
+    @After
+    public void cleanup() {
+
+        client.destroy();
+    }
+
+    @Test
+    public void testCacheHitDoesNotAllocate() {
+
+        final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+        Assume.assumeTrue(threadBean != null && threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        // Warm up, the first reads prepare the per target metrics entries:
+        read(10);
+
+        final long threadId = Thread.currentThread().getId();
+        threadBean.getThreadAllocatedBytes(threadId);
+
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        read(iterations);
+        final long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        CfLog.OUT.v(logTag, "Allocated bytes for " + iterations * 3 + " reads: " + allocated);
+
+        Assert.assertEquals(0L, allocated);
+    }
+
+    @Test
+    public void testAlternatingTargetsDoNotAllocate() {
+
+        final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+        Assume.assumeTrue(threadBean != null && threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        final TypedEvaluation evaluation = new TypedEvaluation(
+
+                new Evaluation().flag("flag").identifier("true").value(true).kind("boolean")
+        );
+        final Target first = new Target().identifier("first").name("first");
+        final Target second = new Target().identifier("second").name("second");
+
+        // Warm up, the first reads prepare the metrics entries of both targets:
+        final Analytics firstEntry = evaluation.getAnalytics(first);
+        final Analytics secondEntry = evaluation.getAnalytics(second);
+
+        final long threadId = Thread.currentThread().getId();
+        threadBean.getThreadAllocatedBytes(threadId);
+
+        final long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+
+            Assert.assertSame(firstEntry, evaluation.getAnalytics(first));
+            Assert.assertSame(secondEntry, evaluation.getAnalytics(second));
+        }
+        final long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        Assert.assertEquals(0L, allocated);
+    }
+
+    private void read(final int count) {
+
+        for (int i = 0; i < count; i++) {
+
+            Assert.assertTrue(client.boolVariation(MockedFeatureRepository.MOCK_BOOL, false));
+
+            Assert.assertEquals(
+
+                    MockedFeatureRepository.MOCK_STRING,
+                    client.stringVariation(MockedFeatureRepository.MOCK_STRING, "")
+            );
+
+            Assert.assertEquals(
+
+                    MockedFeatureRepository.MOCK_NUMBER.length(),
+                    client.numberVariation(MockedFeatureRepository.MOCK_NUMBER, 0),
+                    0
+            );
+        }
+    }
+
+    private com.sun.management.ThreadMXBean getThreadBean() {
+
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+
+            return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        }
+        return null;
+    }
+}
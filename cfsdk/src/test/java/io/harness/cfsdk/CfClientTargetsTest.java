@@ -0,0 +1,327 @@
+package io.harness.cfsdk;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import io.harness.cfsdk.cloud.FeatureService;
+import io.harness.cfsdk.cloud.ICloud;
+import io.harness.cfsdk.cloud.analytics.AnalyticsManager;
+import io.harness.cfsdk.cloud.analytics.MetricsApiFactory;
+import io.harness.cfsdk.cloud.cache.CacheStats;
+import io.harness.cfsdk.cloud.cache.CloudCache;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.model.Target;
+import io.harness.cfsdk.cloud.network.NetworkInfoProviding;
+import io.harness.cfsdk.cloud.oksse.EventsListener;
+import io.harness.cfsdk.cloud.oksse.model.StatusEvent;
+import io.harness.cfsdk.cloud.repository.FeatureRepository;
+import io.harness.cfsdk.cloud.repository.FeatureRepositoryImpl;
+import io.harness.cfsdk.logging.CfLog;
+import io.harness.cfsdk.mock.MockedAnalyticsManager;
+import io.harness.cfsdk.mock.MockedCfClient;
+import io.harness.cfsdk.mock.MockedCloudFactory;
+import io.harness.cfsdk.mock.MockedEvaluationsCloud;
+import io.harness.cfsdk.mock.MockedSSEController;
+
+/**
+ * Client evaluating flags for more targets than the repository keeps snapshots of.
+ */
+public class CfClientTargetsTest {
+
+    private final long timeout;
+    private final String flag;
+    private final String sharedFlag;
+    private final int snapshotCapacity;
+    private final Target mainTarget;
+
+    private CfClient client;
+    private MockedEvaluationsCloud cloud;
+    private MockedCloudFactory cloudFactory;
+    private AnalyticsManager analyticsManager;
+    private AtomicInteger analyticsManagers;
+
+    {
+
+        timeout = 3000L;
+        flag = "flag";
+        sharedFlag = "shared";
+        snapshotCapacity = 4;
+        mainTarget = new Target().identifier("main").name("main");
+    }
+
+    @Before
+    public void prepare() throws InterruptedException {
+
+        CfLog.testModeOn();
+
+        MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(
+
+                (authToken, config) -> (environment, cluster, metrics) ->
+                        CfLog.OUT.v("CfClientTargetsTest", "Ignore this metrics posting")
+        );
+
+        cloud = new MockedEvaluationsCloud();
+        cloud.setBool(mainTarget.getIdentifier(), flag, true);
+        cloud.setBool(mainTarget.getIdentifier(), sharedFlag, true);
+
+        cloudFactory = new MockedCloudFactory() {
+
+            @Override
+            public ICloud cloud(String sseUrl, String baseUrl, String key, Target target) {
+
+                return cloud;
+            }
+
+            @Override
+            public FeatureRepository getFeatureRepository(
+
+                    FeatureService featureService,
+                    CloudCache cloudCache,
+                    NetworkInfoProviding networkInfoProvider,
+                    CacheStats cacheStats
+            ) {
+
+                return new FeatureRepositoryImpl(
+
+                        featureService,
+                        cloudCache,
+                        networkInfoProvider,
+                        snapshotCapacity,
+                        cacheStats
+                );
+            }
+        };
+
+        final CfConfiguration configuration = CfConfiguration.builder()
+                .enableStream(true)
+                .enableAnalytics(true)
+                .build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        analyticsManagers = new AtomicInteger();
+        client = new MockedCfClient(cloudFactory) {
+
+            @NotNull
+            @Override
+            protected AnalyticsManager getAnalyticsManager(
+
+                    CfConfiguration configuration,
+                    String environmentID,
+                    String cluster
+            ) {
+
+                analyticsManagers.incrementAndGet();
+                analyticsManager = super.getAnalyticsManager(configuration, environmentID, cluster);
+                return analyticsManager;
+            }
+        };
+        client.initialize(
+
+                null,
+                "key",
+                configuration,
+                mainTarget,
+                Mockito.mock(CloudCache.class),
+                (authInfo, result) -> latch.countDown()
+        );
+
+        Assert.assertTrue(latch.await(timeout, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(client.boolVariation(flag, false));
+    }
+
+    @After
+    public void cleanup() {
+
+        client.destroy();
+    }
+
+    @Test
+    public void testStreamUpdateIsVisibleBeyondSnapshotCapacity() {
+
+        // Read more targets than the repository keeps snapshots of:
+        for (int i = 0; i < snapshotCapacity * 4; i++) {
+
+            final Target other = new Target().identifier("other-" + i).name("other-" + i);
+            Assert.assertFalse(client.boolVariation(other, flag, false));
+        }
+
+        cloud.setBool(mainTarget.getIdentifier(), flag, false);
+        getStreamListener().onEventReceived(
+
+                new StatusEvent(
+
+                        StatusEvent.EVENT_TYPE.EVALUATION_CHANGE,
+                        MockedEvaluationsCloud.boolEvaluation(flag, false)
+                )
+        );
+
+        Assert.assertFalse(client.boolVariation(flag, true));
+    }
+
+    @Test
+    public void testSwitchTarget() throws InterruptedException {
+
+        final Target next = new Target().identifier("next").name("next");
+        cloud.setBool(next.getIdentifier(), flag, false);
+        cloud.setBool(next.getIdentifier(), sharedFlag, true);
+
+        final List<Evaluation> changed = new CopyOnWriteArrayList<>();
+        client.registerEvaluationListener(flag, changed::add);
+        client.registerEvaluationListener(sharedFlag, changed::add);
+
+        final List<StatusEvent> reloads = new CopyOnWriteArrayList<>();
+        client.registerEventsListener(event -> {
+
+            if (event.getEventType() == StatusEvent.EVENT_TYPE.EVALUATION_RELOAD) {
+
+                reloads.add(event);
+            }
+        });
+
+        final EventsListener streamListener = getStreamListener();
+
+        // A flag both targets have must never fall back to the default during the switch:
+        final AtomicBoolean switched = new AtomicBoolean();
+        final AtomicBoolean defaultObserved = new AtomicBoolean();
+        final Thread reader = new Thread(() -> {
+
+            while (!switched.get()) {
+
+                if (!client.boolVariation(sharedFlag, false)) {
+
+                    defaultObserved.set(true);
+                }
+            }
+        });
+        reader.start();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicBoolean success = new AtomicBoolean();
+        client.switchTarget(next, (target, result) -> {
+
+            success.set(result);
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(timeout, TimeUnit.MILLISECONDS));
+        switched.set(true);
+        reader.join(timeout);
+
+        Assert.assertTrue(success.get());
+        Assert.assertFalse(defaultObserved.get());
+        Assert.assertFalse(client.boolVariation(flag, true));
+
+        // Only the flag that differs between the targets is dispatched:
+        Assert.assertEquals(1, changed.size());
+        Assert.assertEquals(flag, changed.get(0).getFlag());
+        Assert.assertEquals("false", changed.get(0).getValue());
+        await(() -> isReloadedWith(reloads, "false"));
+
+        // The stream and the metrics are kept and serve the new target:
+        Assert.assertSame(streamListener, getStreamListener());
+        cloud.setBool(next.getIdentifier(), flag, true);
+        streamListener.onEventReceived(
+
+                new StatusEvent(
+
+                        StatusEvent.EVENT_TYPE.EVALUATION_CHANGE,
+                        MockedEvaluationsCloud.boolEvaluation(flag, true)
+                )
+        );
+        Assert.assertTrue(client.boolVariation(flag, false));
+
+        Assert.assertEquals(1, analyticsManagers.get());
+        final MockedAnalyticsManager metrics = (MockedAnalyticsManager) analyticsManager;
+        final long counted = metrics.getCounters().getTotal();
+        client.boolVariation(flag, false);
+        Assert.assertEquals(counted + 1, metrics.getCounters().getTotal());
+    }
+
+    @Test
+    public void testPrefetchedTargetSwitchesWithoutRequest() throws InterruptedException {
+
+        final Target next = new Target().identifier("next").name("next");
+        cloud.setBool(next.getIdentifier(), flag, false);
+
+        final int requests = cloud.getRequests();
+        client.prefetchTarget(next);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        client.switchTarget(next, (target, result) -> latch.countDown());
+        Assert.assertTrue(latch.await(timeout, TimeUnit.MILLISECONDS));
+
+        // Loaded once, by the prefetch:
+        Assert.assertEquals(requests + 1, cloud.getRequests());
+        Assert.assertFalse(client.boolVariation(flag, true));
+    }
+
+    @Test
+    public void testStreamUpdateReachesOtherTargets() throws InterruptedException {
+
+        final Target other = new Target().identifier("other").name("other");
+        cloud.setBool(other.getIdentifier(), flag, false);
+        await(() -> !client.boolVariation(other, flag, true));
+
+        cloud.setBool(other.getIdentifier(), flag, true);
+        getStreamListener().onEventReceived(
+
+                new StatusEvent(
+
+                        StatusEvent.EVENT_TYPE.EVALUATION_CHANGE,
+                        MockedEvaluationsCloud.boolEvaluation(flag, true)
+                )
+        );
+
+        await(() -> client.boolVariation(other, flag, false));
+    }
+
+    /**
+     * @return True if any of the reload events carries the flag with the value. The reload of the
+     * initial load may be delivered after the listener has been registered.
+     */
+    private boolean isReloadedWith(final List<StatusEvent> reloads, final String value) {
+
+        for (final StatusEvent reload : reloads) {
+
+            final List<Evaluation> evaluations = reload.extractPayload();
+            for (final Evaluation evaluation : evaluations) {
+
+                if (flag.equals(evaluation.getFlag()) && value.equals(evaluation.getValue())) {
+
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void await(final BooleanSupplier condition) throws InterruptedException {
+
+        final long deadline = System.currentTimeMillis() + timeout;
+        while (!condition.getAsBoolean()) {
+
+            Assert.assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private EventsListener getStreamListener() {
+
+        final MockedSSEController controller = (MockedSSEController) cloudFactory.sseController(null, null);
+        Assert.assertNotNull(controller.getListener());
+        return controller.getListener();
+    }
+}
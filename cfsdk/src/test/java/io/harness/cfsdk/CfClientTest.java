@@ -0,0 +1,194 @@
+package io.harness.cfsdk;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.harness.cfsdk.cloud.FeatureService;
+import io.harness.cfsdk.cloud.ICloud;
+import io.harness.cfsdk.cloud.cache.CacheStats;
+import io.harness.cfsdk.cloud.cache.CloudCache;
+import io.harness.cfsdk.cloud.model.Target;
+import io.harness.cfsdk.cloud.network.NetworkInfoProviding;
+import io.harness.cfsdk.cloud.oksse.EventsListener;
+import io.harness.cfsdk.cloud.oksse.model.StatusEvent;
+import io.harness.cfsdk.cloud.repository.FeatureRepository;
+import io.harness.cfsdk.cloud.repository.FeatureRepositoryImpl;
+import io.harness.cfsdk.logging.CfLog;
+import io.harness.cfsdk.mock.MockedCfClient;
+import io.harness.cfsdk.mock.MockedCloudFactory;
+import io.harness.cfsdk.mock.MockedEvaluationsCloud;
+import io.harness.cfsdk.mock.MockedSSEController;
+
+/**
+ * Variation reads of a client backed by the repository and an emulated server.
+ */
+public class CfClientTest {
+
+    private final long timeout;
+    private final String flag;
+    private final Target target;
+
+    private CfClient client;
+    private MockedEvaluationsCloud cloud;
+    private CloudCache cloudCache;
+    private MockedCloudFactory cloudFactory;
+
+    {
+
+        timeout = 3000L;
+        flag = "flag";
+        target = new Target().identifier("target").name("target");
+    }
+
+    @Before
+    public void prepare() throws InterruptedException {
+
+        CfLog.testModeOn();
+
+        cloud = new MockedEvaluationsCloud();
+        cloud.setBool(target.getIdentifier(), flag, true);
+
+        cloudFactory = new MockedCloudFactory() {
+
+            @Override
+            public ICloud cloud(String sseUrl, String baseUrl, String key, Target target) {
+
+                return cloud;
+            }
+
+            @Override
+            public FeatureRepository getFeatureRepository(
+
+                    FeatureService featureService,
+                    CloudCache cloudCache,
+                    NetworkInfoProviding networkInfoProvider,
+                    CacheStats cacheStats
+            ) {
+
+                return new FeatureRepositoryImpl(featureService, cloudCache, networkInfoProvider, cacheStats);
+            }
+        };
+
+        final CfConfiguration configuration = CfConfiguration.builder()
+                .enableStream(true)
+                .enableAnalytics(false)
+                .build();
+
+        cloudCache = Mockito.mock(
+
+                CloudCache.class,
+                Mockito.withSettings().extraInterfaces(Flushable.class)
+        );
+
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        client = new MockedCfClient(cloudFactory);
+        client.initialize(
+
+                null,
+                "key",
+                configuration,
+                target,
+                cloudCache,
+                (authInfo, result) -> latch.countDown()
+        );
+
+        Assert.assertTrue(latch.await(timeout, TimeUnit.MILLISECONDS));
+    }
+
+    @After
+    public void cleanup() {
+
+        client.destroy();
+    }
+
+    @Test
+    public void testCacheStatsCountFlagReads() {
+
+        final CacheStats stats = client.getCacheStats();
+        stats.reset();
+
+        Assert.assertTrue(client.boolVariation(flag, false));
+        Assert.assertFalse(client.boolVariation("missing", false));
+
+        // Not loaded yet, the asynchronous read fetches it:
+        cloud.setBool(target.getIdentifier(), "late", true);
+        final List<Boolean> results = new ArrayList<>();
+        client.boolVariationAsync("late", false, results::add);
+        Assert.assertEquals("[true]", results.toString());
+
+        Assert.assertTrue(client.boolVariation("late", false));
+
+        Assert.assertEquals(2, stats.getHitCount());
+        Assert.assertEquals(2, stats.getMissCount());
+        Assert.assertEquals(1, stats.getNetworkFetchCount());
+        Assert.assertEquals(0.5d, stats.getHitRate(), 0d);
+    }
+
+    @Test
+    public void testReadAfterReloadIsServedFromSnapshot() {
+
+        Assert.assertTrue(client.boolVariation(flag, false));
+
+        // The stream has ended, the client reloads the evaluations:
+        cloud.setBool(target.getIdentifier(), flag, false);
+        getStreamListener().onEventReceived(new StatusEvent(StatusEvent.EVENT_TYPE.SSE_END, null));
+
+        final int requests = cloud.getRequests();
+        for (int i = 0; i < 10; i++) {
+
+            Assert.assertFalse(client.boolVariation(flag, true));
+        }
+        Assert.assertEquals(requests, cloud.getRequests());
+    }
+
+    @Test
+    public void testVariationsResolveMissingFlagsToDefaults() {
+
+        final Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put("missing-bool", true);
+        defaults.put(flag, false);
+        defaults.put("missing-string", "default");
+        defaults.put("missing-number", 7d);
+        defaults.put("missing-json", null);
+
+        final int requests = cloud.getRequests();
+        final Variations results = client.variations(defaults);
+
+        Assert.assertEquals(new ArrayList<>(defaults.keySet()), new ArrayList<>(results.asMap().keySet()));
+        Assert.assertTrue(results.getBoolean("missing-bool"));
+        Assert.assertTrue(results.getBoolean(flag));
+        Assert.assertEquals("default", results.getString("missing-string"));
+        Assert.assertEquals(7d, results.getNumber("missing-number"), 0d);
+        Assert.assertNull(results.getString("missing-json"));
+        Assert.assertEquals(requests, cloud.getRequests());
+    }
+
+    @Test
+    public void testDestroyFlushesWithoutClearingTheCache() throws IOException {
+
+        client.destroy();
+
+        Mockito.verify((Flushable) cloudCache).flush();
+        Mockito.verify(cloudCache, Mockito.never()).clear();
+    }
+
+    private EventsListener getStreamListener() {
+
+        final MockedSSEController controller = (MockedSSEController) cloudFactory.sseController(null, null);
+        Assert.assertNotNull(controller.getListener());
+        return controller.getListener();
+    }
+}
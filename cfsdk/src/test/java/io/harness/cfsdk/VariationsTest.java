@@ -0,0 +1,65 @@
+package io.harness.cfsdk;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class VariationsTest {
+
+    @Test
+    public void testTypedAccessors() {
+
+        final JSONObject json = Mockito.mock(JSONObject.class);
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("bool", true);
+        values.put("number", 1.5d);
+        values.put("string", "on");
+        values.put("json", json);
+        values.put("unresolved", null);
+
+        final Variations variations = new Variations(values);
+
+        Assert.assertTrue(variations.getBoolean("bool"));
+        Assert.assertEquals(1.5d, variations.getNumber("number"), 0d);
+        Assert.assertEquals("on", variations.getString("string"));
+        Assert.assertSame(json, variations.getJson("json"));
+        Assert.assertNull(variations.getString("unresolved"));
+
+        Assert.assertTrue(variations.contains("unresolved"));
+        Assert.assertFalse(variations.contains("other"));
+        Assert.assertEquals("[bool, number, string, json, unresolved]", variations.asMap().keySet().toString());
+    }
+
+    @Test
+    public void testWrongTypeOrFlagIsRejected() {
+
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("bool", true);
+        values.put("unresolved", null);
+
+        final Variations variations = new Variations(values);
+
+        assertRejected(() -> variations.getString("bool"));
+        assertRejected(() -> variations.getNumber("bool"));
+        assertRejected(() -> variations.getBoolean("unresolved"));
+        assertRejected(() -> variations.getBoolean("other"));
+        assertRejected(() -> variations.asMap().put("other", false));
+    }
+
+    private static void assertRejected(final Runnable read) {
+
+        try {
+
+            read.run();
+            Assert.fail("Not rejected");
+
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+
+            // Expected.
+        }
+    }
+}
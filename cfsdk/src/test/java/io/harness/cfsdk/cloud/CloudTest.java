@@ -7,8 +7,11 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import io.harness.cfsdk.cloud.core.api.DefaultApi;
 import io.harness.cfsdk.cloud.core.client.ApiClient;
@@ -75,6 +78,21 @@ public class CloudTest {
 
         Mockito.verify(defaultApi, Mockito.times(1)).getEvaluations(eq(authInfo.getEnvironment()), eq("demo_target1"), eq(""));
 
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("etag", Collections.singletonList("\"v1\""));
+        Mockito.when(defaultApi.getEvaluationsWithHttpInfo(eq(authInfo.getEnvironment()), eq("demo_target"), eq(""), Mockito.<String>isNull()))
+                .thenReturn(new io.harness.cfsdk.cloud.core.client.ApiResponse<>(200, headers, evaluationList));
+        Mockito.when(defaultApi.getEvaluationsWithHttpInfo(eq(authInfo.getEnvironment()), eq("demo_target"), eq(""), eq("\"v1\"")))
+                .thenThrow(new ApiException(304, "Not Modified"));
+
+        ApiResponse taggedResponse = cloud.getEvaluations("demo_target", "", null);
+        Assert.assertEquals(200, taggedResponse.getCode());
+        Assert.assertEquals("\"v1\"", taggedResponse.getETag());
+
+        ApiResponse notModifiedResponse = cloud.getEvaluations("demo_target", "", "\"v1\"");
+        Assert.assertTrue(notModifiedResponse.isNotModified());
+        Assert.assertNull(notModifiedResponse.body());
+
         Mockito.when(defaultApi.getEvaluationByIdentifier(eq(authInfo.getEnvironment())
                 , eq("flag_1"), eq("demo_target"), eq(""))
         ).thenReturn(evaluation)
@@ -4,11 +4,16 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.harness.cfsdk.CfConfiguration;
+import io.harness.cfsdk.cloud.analytics.model.Analytics;
+import io.harness.cfsdk.cloud.analytics.model.MetricsData;
 import io.harness.cfsdk.cloud.core.model.Evaluation;
 import io.harness.cfsdk.cloud.core.model.Variation;
 import io.harness.cfsdk.cloud.model.Target;
@@ -22,11 +27,17 @@ public class AnalyticsManagerTest {
 
     private final long timeout;
     private final String logTag;
+    private final AtomicLong ignored;
+    private final String blockedToken;
+    private final CountDownLatch release;
     private final int count = 3;
 
     {
 
         timeout = 3000L;
+        ignored = new AtomicLong();
+        release = new CountDownLatch(1);
+        blockedToken = UUID.randomUUID().toString();
         logTag = AnalyticsManagerTest.class.getSimpleName();
     }
 
@@ -52,6 +63,7 @@ public class AnalyticsManagerTest {
                 new MockMetricsApiFactoryRecipe(sendingLatch, true);
 
         MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(successFactory);
+        pushExtra(target, manager);
 
         try {
 
@@ -64,7 +76,7 @@ public class AnalyticsManagerTest {
         }
 
         long start = System.currentTimeMillis();
-        while (!manager.queue.isEmpty()) {
+        while (!manager.getCounters().isEmpty()) {
 
             try {
 
@@ -81,7 +93,7 @@ public class AnalyticsManagerTest {
             }
         }
 
-        Assert.assertTrue(manager.getQueue().isEmpty());
+        Assert.assertTrue(manager.getCounters().isEmpty());
 
         start = System.currentTimeMillis();
         while (manager.getSuccessCount() == 0 && manager.getFailureCount() == 0) {
@@ -106,8 +118,9 @@ public class AnalyticsManagerTest {
 
         manager.destroy();
 
+        // The last send runs in the background:
         start = System.currentTimeMillis();
-        while (!manager.queue.isEmpty()) {
+        while (!manager.getCounters().isEmpty() || manager.getSuccessCount() <= 1) {
 
             try {
 
@@ -124,7 +137,7 @@ public class AnalyticsManagerTest {
             }
         }
 
-        Assert.assertTrue(manager.getQueue().isEmpty());
+        Assert.assertTrue(manager.getCounters().isEmpty());
         Assert.assertTrue(manager.getSuccessCount() > 1);
         Assert.assertEquals(0, manager.getFailureCount());
     }
@@ -143,6 +156,7 @@ public class AnalyticsManagerTest {
 
         final MetricsApiFactoryRecipe factory = new MockMetricsApiFactoryRecipe(sendingLatch, false);
         MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(factory);
+        pushExtra(target, manager);
 
         try {
 
@@ -155,7 +169,7 @@ public class AnalyticsManagerTest {
         }
 
         long start = System.currentTimeMillis();
-        while (count * count != manager.getQueue().size()) {
+        while (count * count + 1 != manager.getCounters().getTotal() + ignored.get()) {
 
             try {
 
@@ -172,7 +186,7 @@ public class AnalyticsManagerTest {
             }
         }
 
-        Assert.assertEquals(count * count, manager.getQueue().size());
+        Assert.assertEquals(count * count + 1, manager.getCounters().getTotal() + ignored.get());
 
         sendingLatch = new CountDownLatch(1);
         MockMetricsApiFactoryRecipe successFactory = new MockMetricsApiFactoryRecipe(sendingLatch, true);
@@ -189,8 +203,9 @@ public class AnalyticsManagerTest {
             Assert.fail(e.getMessage());
         }
 
+        // The last send runs in the background:
         start = System.currentTimeMillis();
-        while (!manager.queue.isEmpty()) {
+        while (!manager.getCounters().isEmpty() || manager.getSuccessCount() == 0) {
 
             try {
 
@@ -207,11 +222,180 @@ public class AnalyticsManagerTest {
             }
         }
 
-        Assert.assertTrue(manager.getQueue().isEmpty());
+        Assert.assertTrue(manager.getCounters().isEmpty());
         Assert.assertEquals(1, manager.getFailureCount());
         Assert.assertTrue(manager.getSuccessCount() >= 1);
     }
 
+    @Test
+    public void testOverflowDropNewest() throws InterruptedException {
+
+        final MockedAnalyticsManager manager = getBlocked(MetricsOverflowPolicy.DROP_NEWEST);
+        final Target target = new Target().identifier("Test").name("Test");
+
+        // The counters are full and the sending is blocked, recording must not wait for it:
+        Assert.assertTrue(manager.pushToQueue(target, "counted", variation("counted")));
+        Assert.assertFalse(manager.pushToQueue(target, "dropped", variation("dropped")));
+        Assert.assertTrue(manager.pushToQueue(target, "counted", variation("counted")));
+
+        Assert.assertEquals(1, manager.getCounters().size());
+        Assert.assertEquals(2, manager.getCounters().getTotal());
+
+        unblock(manager);
+    }
+
+    @Test
+    public void testOverflowSample() throws InterruptedException {
+
+        final MockedAnalyticsManager manager = getBlocked(MetricsOverflowPolicy.SAMPLE);
+        final Target target = new Target().identifier("Test").name("Test");
+
+        Assert.assertTrue(manager.pushToQueue(target, "counted", variation("counted")));
+
+        final Variation sampled = variation("sampled");
+        final SummaryMetrics key = new SummaryMetrics("sampled", "true", "true");
+
+        int dropped = 0;
+        while (!manager.pushToQueue(target, "sampled", sampled)) {
+
+            dropped++;
+            Assert.assertTrue(dropped < AnalyticsManager.OVERFLOW_SAMPLE_RATE);
+        }
+
+        // The sampled read stands for the dropped ones, then the pair is counted like the others:
+        Assert.assertEquals(AnalyticsManager.OVERFLOW_SAMPLE_RATE, manager.getCounters().get(key));
+        Assert.assertTrue(manager.pushToQueue(target, "sampled", sampled));
+        Assert.assertEquals(AnalyticsManager.OVERFLOW_SAMPLE_RATE + 1, manager.getCounters().get(key));
+        Assert.assertEquals(2, manager.getCounters().size());
+
+        unblock(manager);
+    }
+
+    @Test
+    public void testBatchIsCountedInOnePass() {
+
+        MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(
+
+                (authToken, config) -> (environment, cluster, metrics) ->
+                        CfLog.OUT.v(logTag, "Ignore this metrics posting")
+        );
+
+        final MockedAnalyticsManager manager = new MockedAnalyticsManager(
+
+                "Test",
+                UUID.randomUUID().toString(),
+                new MockedCfConfiguration(
+
+                        CfConfiguration.builder()
+                                .enableAnalytics(true)
+                                .metricsCapacity(1)
+                                .metricsOverflowPolicy(MetricsOverflowPolicy.DROP_NEWEST)
+                )
+        );
+        final Target target = new Target().identifier("Test").name("Test");
+
+        final List<Analytics> known = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+
+            known.add(analytics(target, "known"));
+        }
+        Assert.assertTrue(manager.pushToQueue(known));
+        Assert.assertEquals(3, manager.getCounters().get(new SummaryMetrics("known", "true", "true")));
+        Assert.assertEquals(0, manager.getFlushRequests());
+
+        // All reads over the capacity request a single early send, after the batch:
+        final List<Analytics> overflowing = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+
+            overflowing.add(analytics(target, "overflowing" + i));
+        }
+        Assert.assertFalse(manager.pushToQueue(overflowing));
+        Assert.assertEquals(1, manager.getFlushRequests());
+
+        manager.destroy();
+    }
+
+    private Analytics analytics(final Target target, final String flag) {
+
+        return new AnalyticsBuilder()
+                .target(target)
+                .evaluationId(flag)
+                .variation(variation(flag))
+                .build();
+    }
+
+    /**
+     * Manager with the capacity of one key and the metrics sending blocked, so the counters
+     * are not drained while testing.
+     */
+    private MockedAnalyticsManager getBlocked(final MetricsOverflowPolicy policy) throws InterruptedException {
+
+        final CountDownLatch sending = new CountDownLatch(1);
+
+        MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(
+
+                (authToken, config) -> (environment, cluster, metrics) -> {
+
+                    if (!blockedToken.equals(authToken)) {
+
+                        return;
+                    }
+
+                    sending.countDown();
+                    try {
+
+                        release.await(timeout, TimeUnit.MILLISECONDS);
+
+                    } catch (InterruptedException e) {
+
+                        Thread.currentThread().interrupt();
+                    }
+                }
+        );
+
+        final MockedCfConfiguration configuration = new MockedCfConfiguration(
+
+                CfConfiguration.builder()
+                        .enableAnalytics(true)
+                        .metricsCapacity(1)
+                        .metricsOverflowPolicy(policy)
+        );
+
+        final MockedAnalyticsManager manager = new MockedAnalyticsManager("Test", blockedToken, configuration);
+        final Target target = new Target().identifier("Test").name("Test");
+
+        // An overflow requests the send that blocks:
+        int pushed = 0;
+        while (!sending.await(10, TimeUnit.MILLISECONDS)) {
+
+            Assert.assertTrue(++pushed < 100);
+            manager.pushToQueue(target, "pushed" + pushed, variation("pushed" + pushed));
+        }
+
+        // Whatever has not been sent yet:
+        manager.getCounters().drain();
+        return manager;
+    }
+
+    /**
+     * Let the blocked send finish with nothing left to send, so no other test receives these metrics.
+     */
+    private void unblock(final MockedAnalyticsManager manager) {
+
+        manager.getCounters().drain();
+        release.countDown();
+        manager.destroy();
+    }
+
+    private Variation variation(final String flag) {
+
+        final Variation variation = new Variation();
+        variation.setName(flag);
+        variation.setValue("true");
+        variation.setIdentifier("true");
+        return variation;
+    }
+
     private ManagerWrapper getWrapped(final CountDownLatch latch) {
 
         CfLog.OUT.v(logTag, "Testing: " + AnalyticsManager.class.getSimpleName());
@@ -271,11 +455,7 @@ public class AnalyticsManagerTest {
         final MockedAnalyticsManager manager =
                 new MockedAnalyticsManager(test, token, configuration, latch);
 
-        Assert.assertEquals(
-
-                metricsCapacity,
-                manager.getQueue().remainingCapacity()
-        );
+        Assert.assertTrue(manager.getCounters().isEmpty());
 
         return new ManagerWrapper(manager, target);
     }
@@ -288,8 +468,15 @@ public class AnalyticsManagerTest {
 
         MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(
 
-                (authToken, config) -> (environment, cluster, metrics) ->
-                        CfLog.OUT.v(logTag, "Ignore this metrics posting")
+                (authToken, config) -> (environment, cluster, metrics) -> {
+
+                    // The counts may be published while still pushing, keep track of them:
+                    for (final MetricsData data : metrics.getMetricsData()) {
+
+                        ignored.addAndGet(data.getCount());
+                    }
+                    CfLog.OUT.v(logTag, "Ignore this metrics posting");
+                }
         );
 
         for (int x = 0; x < count; x++) {
@@ -309,7 +496,7 @@ public class AnalyticsManagerTest {
         }
 
         long start = System.currentTimeMillis();
-        while (manager.queue.size() != count * count) {
+        while (manager.getCounters().getTotal() + ignored.get() != count * count) {
 
             try {
 
@@ -326,7 +513,20 @@ public class AnalyticsManagerTest {
             }
         }
 
-        Assert.assertEquals(count * count, manager.getQueue().size());
+        Assert.assertEquals(count * count, manager.getCounters().getTotal() + ignored.get());
+
+        // Reads of the same flag and variation are counted together:
+        Assert.assertTrue(manager.getCounters().size() <= count);
+    }
+
+    /**
+     * The first send may have happened while populating and taken all the counts, push once more so
+     * there is something left for the next send.
+     */
+    private void pushExtra(final Target target, final MockedAnalyticsManager manager) {
+
+        final String flag = getFlag(count);
+        Assert.assertTrue(manager.pushToQueue(target, flag, variation(flag)));
     }
 
     private String getFlag(int iteration) {
@@ -0,0 +1,142 @@
+package io.harness.cfsdk.cloud.analytics;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.harness.cfsdk.CfConfiguration;
+import io.harness.cfsdk.cloud.core.client.ApiException;
+import io.harness.cfsdk.logging.CfLog;
+
+public class AnalyticsPublisherServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SummaryMetrics key;
+    private final List<String> created;
+    private final MetricsApiFactoryRecipe recipe;
+
+    {
+
+        created = new ArrayList<>();
+        key = new SummaryMetrics("flag", "true", "on");
+
+        recipe = (authToken, config) -> {
+
+            created.add(authToken);
+            return (environment, cluster, metrics) -> {
+
+                // Posted
+            };
+        };
+    }
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+        MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(recipe);
+    }
+
+    @After
+    public void cleanup() {
+
+        MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(new DefaultMetricsApiFactoryRecipe());
+    }
+
+    @Test
+    public void testMetricsClientReused() {
+
+        final AnalyticsPublisherService service = new AnalyticsPublisherService(
+
+                "first", CfConfiguration.builder().build(), "env", "cluster"
+        );
+
+        final MetricsCounters counters = new MetricsCounters(0);
+        final List<Boolean> results = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+
+            counters.increment(key);
+            service.sendDataAndResetCounters(counters, results::add);
+        }
+
+        // Nothing to send does not need the client:
+        service.sendDataAndResetCounters(counters, results::add);
+
+        Assert.assertEquals(1, created.size());
+
+        service.setAuthToken("second");
+        counters.increment(key);
+        service.sendDataAndResetCounters(counters, results::add);
+        counters.increment(key);
+        service.sendDataAndResetCounters(counters, results::add);
+
+        Assert.assertEquals(2, created.size());
+        Assert.assertEquals("second", created.get(1));
+        Assert.assertEquals(6, results.size());
+        Assert.assertFalse(results.contains(false));
+        Assert.assertTrue(counters.isEmpty());
+    }
+
+    @Test
+    public void testSpoolWhileOffline() {
+
+        final List<Integer> posted = new ArrayList<>();
+        final boolean[] online = new boolean[1];
+
+        MetricsApiFactory.setDefaultMetricsApiFactoryRecipe(
+
+                (authToken, config) -> (environment, cluster, metrics) -> {
+
+                    if (!online[0]) {
+
+                        throw new ApiException("Offline");
+                    }
+                    posted.add(metrics.getMetricsData().get(0).getCount());
+                }
+        );
+
+        final MetricsSpool spool = new MetricsSpool(new File(folder.getRoot(), "spool"), 64 * 1024L);
+        final AnalyticsPublisherService service = new AnalyticsPublisherService(
+
+                "token", CfConfiguration.builder().build(), "env", "cluster", spool
+        );
+
+        final MetricsCounters counters = new MetricsCounters(0);
+        final List<Boolean> results = new ArrayList<>();
+
+        // The failed batch is spooled instead of being counted again:
+        counters.increment(key);
+        service.sendDataAndResetCounters(counters, results::add);
+        Assert.assertEquals(1, spool.size());
+        Assert.assertTrue(counters.isEmpty());
+
+        // Nothing is posted until the backoff has passed, the new batches are spooled meanwhile:
+        online[0] = true;
+        counters.increment(key);
+        counters.increment(key);
+        service.sendDataAndResetCounters(counters, results::add);
+        Assert.assertEquals(2, spool.size());
+        Assert.assertTrue(posted.isEmpty());
+
+        // Network is back, the spooled batches are sent oldest first and then the new counts:
+        service.retryNow();
+        counters.increment(key);
+        counters.increment(key);
+        counters.increment(key);
+        service.sendDataAndResetCounters(counters, results::add);
+
+        Assert.assertEquals("[1, 2, 3]", posted.toString());
+        Assert.assertTrue(spool.isEmpty());
+        Assert.assertEquals("[false, false, true]", results.toString());
+    }
+}
@@ -0,0 +1,91 @@
+package io.harness.cfsdk.cloud.analytics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MetricsCountersTest {
+
+    private final SummaryMetrics enabled;
+    private final SummaryMetrics disabled;
+
+    {
+
+        enabled = new SummaryMetrics("flag", "true", "on");
+        disabled = new SummaryMetrics("flag", "false", "off");
+    }
+
+    @Test
+    public void testCounting() {
+
+        final MetricsCounters counters = new MetricsCounters(2);
+
+        Assert.assertTrue(counters.increment(enabled));
+        Assert.assertTrue(counters.increment(new SummaryMetrics("flag", "true", "on")));
+        Assert.assertTrue(counters.increment(disabled));
+
+        // Known keys are counted past the capacity, new ones are not:
+        Assert.assertFalse(counters.increment(new SummaryMetrics("other", "true", "on")));
+        Assert.assertTrue(counters.increment(disabled));
+
+        Assert.assertEquals(2, counters.size());
+        Assert.assertEquals(4, counters.getTotal());
+        Assert.assertEquals(2, counters.get(enabled));
+
+        final Map<SummaryMetrics, Long> drained = counters.drain();
+        Assert.assertEquals(2, drained.size());
+        Assert.assertEquals(Long.valueOf(2), drained.get(disabled));
+        Assert.assertTrue(counters.isEmpty());
+        Assert.assertEquals(0, counters.getTotal());
+
+        // Counts that could not be sent are added back to the new ones:
+        counters.increment(enabled);
+        counters.addAll(drained);
+        Assert.assertEquals(3, counters.get(enabled));
+        Assert.assertEquals(2, counters.size());
+    }
+
+    @Test
+    public void testConcurrentDrain() throws InterruptedException {
+
+        final int threads = 4;
+        final int increments = 50000;
+
+        final MetricsCounters counters = new MetricsCounters(0);
+        final AtomicLong sent = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+
+            final SummaryMetrics key = i % 2 == 0 ? enabled : disabled;
+            new Thread(() -> {
+
+                for (int j = 0; j < increments; j++) {
+
+                    counters.increment(key);
+                }
+                done.countDown();
+
+            }).start();
+        }
+
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+
+            for (final long count : counters.drain().values()) {
+
+                sent.addAndGet(count);
+            }
+        }
+        for (final long count : counters.drain().values()) {
+
+            sent.addAndGet(count);
+        }
+
+        // Nothing is lost or counted twice across the drains:
+        Assert.assertEquals((long) threads * increments, sent.get());
+    }
+}
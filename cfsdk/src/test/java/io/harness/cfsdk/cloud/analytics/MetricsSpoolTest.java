@@ -0,0 +1,180 @@
+package io.harness.cfsdk.cloud.analytics;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.harness.cfsdk.cloud.analytics.model.Metrics;
+import io.harness.cfsdk.cloud.analytics.model.MetricsData;
+import io.harness.cfsdk.cloud.core.client.ApiException;
+import io.harness.cfsdk.logging.CfLog;
+
+public class MetricsSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+    }
+
+    @Test
+    public void testReplayInOrder() throws ApiException {
+
+        final File dir = new File(folder.getRoot(), "spool");
+        final MetricsSpool spool = new MetricsSpool(dir, 64 * 1024L);
+
+        Assert.assertTrue(spool.isEmpty());
+        for (int i = 1; i <= 3; i++) {
+
+            Assert.assertTrue(spool.offer(batch(i)));
+        }
+        Assert.assertEquals(3, spool.size());
+
+        // A failure stops the replay, the failed batch and the following ones are kept:
+        final List<Integer> sent = new ArrayList<>();
+        try {
+
+            spool.replay(metrics -> {
+
+                final int count = metrics.getMetricsData().get(0).getCount();
+                if (count == 2) {
+
+                    throw new ApiException("Offline");
+                }
+                sent.add(count);
+            });
+            Assert.fail("Replay failure expected");
+
+        } catch (ApiException e) {
+
+            Assert.assertEquals(1, sent.size());
+        }
+        Assert.assertEquals(2, spool.size());
+
+        // The batches survive a new spool instance, as after a restart:
+        final MetricsSpool restored = new MetricsSpool(dir, 64 * 1024L);
+        Assert.assertEquals(2, restored.replay(metrics -> sent.add(metrics.getMetricsData().get(0).getCount())));
+        Assert.assertEquals("[1, 2, 3]", sent.toString());
+        Assert.assertTrue(restored.isEmpty());
+    }
+
+    @Test
+    public void testBounded() throws ApiException {
+
+        final File dir = new File(folder.getRoot(), "spool");
+        final MetricsSpool probe = new MetricsSpool(new File(folder.getRoot(), "probe"), 64 * 1024L);
+        Assert.assertTrue(probe.offer(batch(1)));
+        final long batchBytes = probe.getBytes();
+
+        final MetricsSpool spool = new MetricsSpool(dir, batchBytes * 2);
+        for (int i = 1; i <= 5; i++) {
+
+            Assert.assertTrue(spool.offer(batch(i)));
+            Assert.assertTrue(spool.getBytes() <= batchBytes * 2);
+        }
+
+        // The oldest batches are dropped first:
+        final List<Integer> sent = new ArrayList<>();
+        spool.replay(metrics -> sent.add(metrics.getMetricsData().get(0).getCount()));
+        Assert.assertEquals("[4, 5]", sent.toString());
+
+        final MetricsSpool tiny = new MetricsSpool(dir, 1L);
+        Assert.assertFalse(tiny.offer(batch(1)));
+        Assert.assertTrue(tiny.isEmpty());
+    }
+
+    @Test
+    public void testRejectedBatchDropped() throws ApiException {
+
+        final MetricsSpool spool = new MetricsSpool(new File(folder.getRoot(), "spool"), 64 * 1024L);
+        for (int i = 1; i <= 3; i++) {
+
+            Assert.assertTrue(spool.offer(batch(i)));
+        }
+
+        // A batch the server rejects can't be sent later either, it doesn't block the following ones:
+        final List<Integer> sent = new ArrayList<>();
+        final int replayed = spool.replay(metrics -> {
+
+            final int count = metrics.getMetricsData().get(0).getCount();
+            if (count == 1) {
+
+                throw new ApiException(400, "Bad request");
+            }
+            sent.add(count);
+        });
+
+        Assert.assertEquals(2, replayed);
+        Assert.assertEquals("[2, 3]", sent.toString());
+        Assert.assertTrue(spool.isEmpty());
+
+        Assert.assertFalse(MetricsSpool.isRetryable(new ApiException(400, "Bad request")));
+        Assert.assertTrue(MetricsSpool.isRetryable(new ApiException("Offline")));
+        Assert.assertTrue(MetricsSpool.isRetryable(new ApiException(401, "Unauthorized")));
+        Assert.assertTrue(MetricsSpool.isRetryable(new ApiException(429, "Too many requests")));
+        Assert.assertTrue(MetricsSpool.isRetryable(new ApiException(503, "Unavailable")));
+    }
+
+    @Test
+    public void testSpoolPerEnvironment() throws ApiException {
+
+        final File root = folder.getRoot();
+        final MetricsSpool first = MetricsSpool.forEnvironment(root, "first", 64 * 1024L);
+        Assert.assertTrue(first.offer(batch(1)));
+
+        // After a restart with another environment the batches of the first one are not replayed:
+        final MetricsSpool second = MetricsSpool.forEnvironment(root, "second", 64 * 1024L);
+        Assert.assertTrue(second.isEmpty());
+        Assert.assertTrue(second.offer(batch(2)));
+
+        final List<Integer> sent = new ArrayList<>();
+        Assert.assertEquals(1, second.replay(metrics -> sent.add(metrics.getMetricsData().get(0).getCount())));
+        Assert.assertEquals("[2]", sent.toString());
+
+        final MetricsSpool restored = MetricsSpool.forEnvironment(root, "first", 64 * 1024L);
+        Assert.assertEquals(1, restored.size());
+
+        // The identifier never escapes the root:
+        Assert.assertTrue(MetricsSpool.forEnvironment(root, "../other", 64 * 1024L).offer(batch(3)));
+        Assert.assertFalse(new File(root.getParentFile(), "other").exists());
+    }
+
+    @Test
+    public void testBackoff() {
+
+        final RetryBackoff backoff = new RetryBackoff(1000L, 5000L);
+        Assert.assertFalse(backoff.isWaiting(0L));
+
+        Assert.assertEquals(1000L, backoff.onFailure(0L));
+        Assert.assertTrue(backoff.isWaiting(999L));
+        Assert.assertFalse(backoff.isWaiting(1000L));
+
+        Assert.assertEquals(2000L, backoff.onFailure(1000L));
+        Assert.assertEquals(4000L, backoff.onFailure(3000L));
+        Assert.assertEquals(5000L, backoff.onFailure(7000L));
+        Assert.assertEquals(5000L, backoff.onFailure(12000L));
+        Assert.assertEquals(5, backoff.getFailures());
+
+        backoff.reset();
+        Assert.assertFalse(backoff.isWaiting(12001L));
+        Assert.assertEquals(1000L, backoff.onFailure(12001L));
+    }
+
+    private Metrics batch(final int count) {
+
+        final MetricsData data = new MetricsData();
+        data.count(count);
+        data.setTimestamp(1000L + count);
+        data.setMetricsType(MetricsData.MetricsTypeEnum.FFMETRICS);
+        return new Metrics().addMetricsDataItem(data);
+    }
+}
@@ -0,0 +1,100 @@
+package io.harness.cfsdk.cloud.cache;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+
+public class CacheStatsTest {
+
+    private final String env;
+    private final String flag;
+
+    {
+
+        env = "env_target";
+        flag = "flag";
+    }
+
+    @Test
+    public void testHistogram() {
+
+        final LatencyHistogram histogram = new LatencyHistogram("test");
+        Assert.assertEquals(0d, histogram.getPercentileMillis(99), 0d);
+
+        for (int i = 0; i < 98; i++) {
+
+            histogram.record(200, TimeUnit.MICROSECONDS);
+        }
+        histogram.record(3, TimeUnit.MILLISECONDS);
+        histogram.record(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(0.25d, histogram.getPercentileMillis(50), 0d);
+        Assert.assertEquals(5d, histogram.getPercentileMillis(99), 0d);
+        Assert.assertEquals(10_000d, histogram.getPercentileMillis(100), 0d);
+        Assert.assertEquals(10_000d, histogram.getMaxMillis(), 0d);
+        Assert.assertEquals(
+                histogram.getBucketBoundsMillis().length + 1,
+                histogram.getBucketCounts().length
+        );
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0d, histogram.getMeanMillis(), 0d);
+    }
+
+    @Test
+    public void testInstrumentedCache() {
+
+        final Evaluation evaluation = new Evaluation().flag(flag).value("true");
+
+        final CloudCache cache = Mockito.mock(CloudCache.class);
+        Mockito.when(cache.getEvaluation(eq(env), eq(flag))).thenReturn(evaluation);
+        Mockito.when(cache.getAllEvaluations(any())).thenReturn(Collections.<Evaluation>emptyList());
+
+        final CacheStats stats = new CacheStats();
+        final InstrumentedCloudCache instrumented = new InstrumentedCloudCache(cache, stats);
+
+        Assert.assertSame(evaluation, instrumented.getEvaluation(env, flag));
+        Assert.assertNull(instrumented.getEvaluation(env, "missing"));
+        Assert.assertTrue(instrumented.getAllEvaluations(env).isEmpty());
+        instrumented.saveEvaluation(env, flag, evaluation);
+        instrumented.removeEvaluation(env, flag);
+
+        Assert.assertEquals(1, stats.getStorageHitCount());
+        Assert.assertEquals(2, stats.getStorageMissCount());
+        Assert.assertEquals(0, stats.getHitCount());
+        Assert.assertEquals(3, stats.getLoad().getCount());
+        Assert.assertEquals(2, stats.getSave().getCount());
+
+        Mockito.verify(cache).saveEvaluation(env, flag, evaluation);
+        Mockito.verify(cache).removeEvaluation(env, flag);
+
+        stats.reset();
+        Assert.assertEquals(0, stats.getStorageHitCount());
+        Assert.assertEquals(0, stats.getLoad().getCount());
+    }
+
+    @Test
+    public void testInstrumentedCacheAttachesStats() {
+
+        final CloudCache cache = Mockito.mock(
+
+                CloudCache.class,
+                Mockito.withSettings().extraInterfaces(CacheStats.Instrumented.class)
+        );
+
+        final CacheStats stats = new CacheStats();
+        new InstrumentedCloudCache(cache, stats);
+
+        Mockito.verify((CacheStats.Instrumented) cache).setCacheStats(stats);
+    }
+}
@@ -0,0 +1,458 @@
+package io.harness.cfsdk.cloud.cache;
+
+import android.content.Context;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.snapshot.EvaluationSnapshot;
+import io.harness.cfsdk.logging.CfLog;
+
+public class DefaultCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final String env;
+    private final String keyAll;
+    private final long timeout;
+
+    {
+
+        env = "env_target";
+        keyAll = "all_evaluations";
+        timeout = 3000L;
+    }
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+    }
+
+    @Test
+    public void testBurstIsWrittenOnce() throws InterruptedException {
+
+        final MemoryStorage storage = new MemoryStorage();
+        final long writeDelay = 100L;
+        final DefaultCache cache = newCache(storage, writeDelay, 0, 0L);
+
+        final int changes = 50;
+        for (int i = 0; i < changes; i++) {
+
+            cache.saveEvaluation(env, "flag-" + i, evaluation("flag-" + i, i));
+        }
+
+        final long deadline = System.currentTimeMillis() + timeout;
+        while (storage.getPuts(keyAll) == 0 && System.currentTimeMillis() < deadline) {
+
+            Thread.sleep(10);
+        }
+        Thread.sleep(writeDelay * 3);
+
+        Assert.assertEquals(1, storage.getPuts(keyAll));
+        Assert.assertEquals(changes, getPersisted(storage).get(env).size());
+    }
+
+    @Test
+    public void testFlushPersistsPendingWrites() throws Exception {
+
+        final MemoryStorage storage = new MemoryStorage();
+        final DefaultCache cache = newCache(storage, 60_000L, 0, 0L);
+
+        for (int i = 0; i < 10; i++) {
+
+            cache.saveEvaluation(env, "flag", evaluation("flag", i));
+        }
+        Assert.assertEquals(0, storage.getPuts(keyAll));
+
+        cache.flush();
+
+        Assert.assertEquals(1, storage.getPuts(keyAll));
+        Assert.assertEquals(9, getPersisted(storage).get(env).get("flag").value);
+
+        // Nothing pending anymore:
+        cache.flush();
+        Assert.assertEquals(1, storage.getPuts(keyAll));
+    }
+
+    @Test
+    public void testWriteDuringLoadIsRead() throws Exception {
+
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MemoryStorage storage = new MemoryStorage() {
+
+            @Override
+            public void init(final Context appContext) {
+
+                loading.countDown();
+                try {
+
+                    release.await();
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        final Map<String, Evaluation> items = new HashMap<>();
+        items.put("flag", evaluation("flag", 1));
+        final Map<String, Map<String, Evaluation>> persisted = new HashMap<>();
+        persisted.put(env, items);
+        storage.put(keyAll, persisted);
+
+        final DefaultCache cache = newCache(storage, 60_000L, 0, 0L);
+        Assert.assertTrue(loading.await(timeout, TimeUnit.MILLISECONDS));
+
+        final Thread writer = new Thread(() -> cache.saveEvaluation(env, "flag", evaluation("flag", 2)));
+        writer.start();
+
+        // The write waits for the load:
+        while (writer.getState() != Thread.State.WAITING) {
+
+            Assert.assertTrue(writer.isAlive());
+            Thread.sleep(1);
+        }
+        release.countDown();
+        writer.join(timeout);
+        Assert.assertFalse(writer.isAlive());
+
+        // The loaded value does not overwrite the write made during the load:
+        Assert.assertEquals(2, cache.getEvaluation(env, "flag").value);
+
+        cache.flush();
+        Assert.assertEquals(2, getPersisted(storage).get(env).get("flag").value);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedKeyEvicted() throws Exception {
+
+        final MemoryStorage storage = new MemoryStorage();
+        final DefaultCache cache = newCache(storage, 60_000L, 2, 0L);
+
+        cache.saveEvaluation("env_a", "flag", evaluation("flag", 1));
+        Thread.sleep(5);
+        cache.saveEvaluation("env_b", "flag", evaluation("flag", 1));
+        Thread.sleep(5);
+        Assert.assertNotNull(cache.getEvaluation("env_a", "flag"));
+        Thread.sleep(5);
+        cache.saveEvaluation("env_c", "flag", evaluation("flag", 1));
+        cache.flush();
+
+        Assert.assertNotNull(cache.getEvaluation("env_a", "flag"));
+        Assert.assertNull(cache.getEvaluation("env_b", "flag"));
+        Assert.assertNotNull(cache.getEvaluation("env_c", "flag"));
+        Assert.assertEquals(2, getPersisted(storage).size());
+        Assert.assertFalse(getPersisted(storage).containsKey("env_b"));
+    }
+
+    @Test
+    public void testExpiredKeyEvicted() throws Exception {
+
+        final MemoryStorage storage = new MemoryStorage();
+        final long maxAge = 50L;
+        final DefaultCache cache = newCache(storage, 60_000L, 0, maxAge);
+
+        cache.saveEvaluation("env_a", "flag", evaluation("flag", 1));
+        Thread.sleep(maxAge * 2);
+        cache.saveEvaluation("env_b", "flag", evaluation("flag", 1));
+        cache.flush();
+
+        Assert.assertNull(cache.getEvaluation("env_a", "flag"));
+        Assert.assertNotNull(cache.getEvaluation("env_b", "flag"));
+        Assert.assertEquals(Collections.singleton("env_b"), getPersisted(storage).keySet());
+    }
+
+    @Test
+    public void testReaderNeverSeesPartialReload() throws InterruptedException {
+
+        final DefaultCache cache = newCache(new MemoryStorage(), 60_000L, 0, 0L);
+        final int flags = 20;
+        final int reloads = 500;
+
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicBoolean partial = new AtomicBoolean();
+        final Thread reader = new Thread(() -> {
+
+            while (!done.get()) {
+
+                final List<Evaluation> evaluations = cache.getAllEvaluations(env);
+                if (evaluations.isEmpty()) {
+
+                    continue;
+                }
+
+                final Object value = evaluations.get(0).value;
+                if (evaluations.size() != flags) {
+
+                    partial.set(true);
+                }
+                for (final Evaluation evaluation : evaluations) {
+
+                    if (!value.equals(evaluation.value)) {
+
+                        partial.set(true);
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 0; i < reloads; i++) {
+
+            final List<Evaluation> evaluations = new ArrayList<>();
+            for (int j = 0; j < flags; j++) {
+
+                evaluations.add(evaluation("flag-" + j, i));
+            }
+            cache.saveAllEvaluations(env, evaluations);
+
+            // Visible as soon as the call returns:
+            Assert.assertEquals(i, cache.getEvaluation(env, "flag-0").value);
+        }
+
+        done.set(true);
+        reader.join(timeout);
+        Assert.assertFalse(partial.get());
+    }
+
+    @Test
+    public void testEvaluationsIndexedByFlag() {
+
+        final DefaultCache cache = newCache(new MemoryStorage(), 60_000L, 0, 0L);
+        cache.saveAllEvaluations(env, Collections.singletonList(evaluation("flag", 1)));
+
+        final Evaluation evaluation = cache.getEvaluation(env, "flag");
+        Assert.assertNotNull(evaluation);
+        Assert.assertEquals(1, evaluation.value);
+    }
+
+    @Test
+    public void testStorageFailureKeepsCacheInMemory() throws Exception {
+
+        final MemoryStorage storage = new MemoryStorage() {
+
+            @Override
+            public void init(final Context appContext) {
+
+                throw new IllegalStateException("Storage not available");
+            }
+        };
+        final DefaultCache cache = newCache(storage, 0L, 0, 0L);
+
+        cache.saveEvaluation(env, "flag", evaluation("flag", 1));
+        cache.removeEvaluation(env, "other");
+        cache.clear();
+        cache.saveEvaluation(env, "flag", evaluation("flag", 2));
+        cache.flush();
+
+        Assert.assertEquals(2, cache.getEvaluation(env, "flag").value);
+        Assert.assertEquals(0, storage.getPuts(keyAll));
+    }
+
+    @Test
+    public void testUnreadableStorageStartsEmpty() throws Exception {
+
+        final MemoryStorage storage = new MemoryStorage() {
+
+            @Override
+            public <T> T get(final String key, final T defaultValue) {
+
+                throw new IllegalStateException("Corrupted " + key);
+            }
+        };
+        final DefaultCache cache = newCache(storage, 60_000L, 0, 0L);
+
+        Assert.assertTrue(cache.getAllEvaluations(env).isEmpty());
+
+        // What could not be loaded has been overwritten:
+        Assert.assertEquals(1, storage.getPuts(keyAll));
+        Assert.assertTrue(getPersisted(storage).isEmpty());
+
+        cache.saveEvaluation(env, "flag", evaluation("flag", 1));
+        cache.flush();
+
+        Assert.assertEquals(2, storage.getPuts(keyAll));
+        Assert.assertEquals(1, getPersisted(storage).get(env).get("flag").value);
+    }
+
+    @Test
+    public void testRestoredThroughHawk() throws Exception {
+
+        final HawkTestStorage storage = new HawkTestStorage();
+        final DefaultCache saved = newCache(storage, 60_000L, 0, 0L);
+        saved.saveEvaluation(
+
+                env,
+                "flag",
+                new Evaluation().flag("flag").identifier("true").value("true").kind("boolean")
+        );
+        saved.flush();
+
+        // Restarted:
+        final DefaultCache restored = newCache(storage, 60_000L, 0, 0L);
+
+        final List<Evaluation> evaluations = restored.getAllEvaluations(env);
+        Assert.assertEquals(1, evaluations.size());
+        Assert.assertEquals("true", restored.getEvaluation(env, "flag").getValue());
+
+        final EvaluationSnapshot snapshot = EvaluationSnapshot.of(evaluations);
+        Assert.assertTrue(snapshot.get("flag").getBoolean());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSnapshotSkipsWhatIsNotAnEvaluation() {
+
+        final List<Object> items = new ArrayList<>();
+        items.add(new HashMap<String, Object>());
+        items.add(new Evaluation().flag("flag").identifier("true").value("true").kind("boolean"));
+
+        final EvaluationSnapshot snapshot = EvaluationSnapshot.of((List<Evaluation>) (List<?>) items);
+        Assert.assertEquals(1, snapshot.size());
+    }
+
+    @Test
+    public void testFailedJournalAppendRewritesCache() throws IOException {
+
+        final File files = folder.newFolder();
+
+        // The journal can't be opened for writing:
+        Assert.assertTrue(new File(files, "cf_evaluations.journal").mkdir());
+
+        final MemoryStorage storage = new MemoryStorage();
+        final DefaultCache cache = newJournaledCache(storage, files);
+
+        cache.saveEvaluation(env, "flag", evaluation("flag", 1));
+        cache.flush();
+
+        Assert.assertEquals(1, storage.getPuts(keyAll));
+        Assert.assertEquals(1, getPersisted(storage).get(env).get("flag").value);
+    }
+
+    @Test
+    public void testUnchangedSaveAllIsNotJournaled() throws IOException {
+
+        final File files = folder.newFolder();
+        final File journal = new File(files, "cf_evaluations.journal");
+        final MemoryStorage storage = new MemoryStorage();
+        final DefaultCache cache = newJournaledCache(storage, files);
+
+        cache.saveAllEvaluations(env, Arrays.asList(evaluation("a", 1), evaluation("b", 2)));
+        cache.saveAllEvaluations(env, Arrays.asList(evaluation("b", 2), evaluation("a", 1)));
+        cache.flush();
+
+        Assert.assertEquals(1, Files.readAllLines(journal.toPath(), Charset.forName("UTF-8")).size());
+
+        // The same value served by another variation is a change:
+        cache.saveAllEvaluations(env, Arrays.asList(evaluation("a", 1), evaluation("b", 2).identifier("other")));
+        cache.flush();
+
+        Assert.assertEquals(2, Files.readAllLines(journal.toPath(), Charset.forName("UTF-8")).size());
+        Assert.assertEquals("other", cache.getEvaluation(env, "b").getIdentifier());
+        Assert.assertEquals(0, storage.getPuts(keyAll));
+    }
+
+    @Test
+    public void testETagPersistedWithEvaluations() throws InterruptedException {
+
+        final MemoryStorage storage = new MemoryStorage();
+        final DefaultCache cache = newCache(storage, 60_000L, 1, 0L);
+
+        cache.saveAllEvaluations(env, Collections.singletonList(evaluation("flag", 1)), "v1");
+        cache.flush();
+        Assert.assertEquals("v1", cache.getETag(env));
+
+        // Restarted:
+        final DefaultCache restarted = newCache(storage, 60_000L, 1, 0L);
+        Assert.assertEquals("v1", restarted.getETag(env));
+
+        // Any other change drops the tag:
+        restarted.saveEvaluation(env, "flag", evaluation("flag", 2));
+        Assert.assertNull(restarted.getETag(env));
+
+        restarted.saveAllEvaluations(env, Collections.singletonList(evaluation("flag", 1)), "v2");
+        restarted.clear();
+        Assert.assertNull(restarted.getETag(env));
+
+        // So does the eviction:
+        restarted.saveAllEvaluations(env, Collections.singletonList(evaluation("flag", 1)), "v3");
+        Thread.sleep(5);
+        restarted.saveAllEvaluations("other", Collections.singletonList(evaluation("flag", 1)), "v4");
+        restarted.flush();
+        Assert.assertNull(restarted.getETag(env));
+        Assert.assertEquals("v4", restarted.getETag("other"));
+
+        Assert.assertNull(newCache(storage, 60_000L, 1, 0L).getETag(env));
+    }
+
+    @Test
+    public void testETagReplayedFromJournal() throws IOException {
+
+        final File files = folder.newFolder();
+        final MemoryStorage storage = new MemoryStorage();
+        final DefaultCache cache = newJournaledCache(storage, files);
+
+        cache.saveAllEvaluations(env, Collections.singletonList(evaluation("flag", 1)), "v1");
+        cache.saveAllEvaluations("other", Collections.singletonList(evaluation("flag", 1)), "v2");
+        cache.removeEvaluation("other", "flag");
+        cache.flush();
+        Assert.assertEquals(0, storage.getPuts(keyAll));
+
+        final DefaultCache restarted = newJournaledCache(storage, files);
+        Assert.assertEquals("v1", restarted.getETag(env));
+        Assert.assertNull(restarted.getETag("other"));
+    }
+
+    private DefaultCache newJournaledCache(final MemoryStorage storage, final File filesDir) {
+
+        final Context context = Mockito.mock(Context.class);
+        Mockito.when(context.getFilesDir()).thenReturn(filesDir);
+        return new DefaultCache(context, true, 60_000L, 0, 0L, storage);
+    }
+
+    private DefaultCache newCache(
+
+            final DefaultCache.Storage storage,
+            final long writeDelayMillis,
+            final int maxEntries,
+            final long maxAgeMillis
+    ) {
+
+        return new DefaultCache(null, false, writeDelayMillis, maxEntries, maxAgeMillis, storage);
+    }
+
+    private Map<String, Map<String, Evaluation>> getPersisted(final MemoryStorage storage) {
+
+        final Map<String, Map<String, Evaluation>> persisted = storage.read(keyAll);
+        Assert.assertNotNull(persisted);
+        return persisted;
+    }
+
+    private static Evaluation evaluation(final String flag, final int value) {
+
+        return new Evaluation().flag(flag).identifier("variation-" + value).value(value).kind("int");
+    }
+}
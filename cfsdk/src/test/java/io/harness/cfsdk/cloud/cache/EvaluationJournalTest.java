@@ -0,0 +1,131 @@
+package io.harness.cfsdk.cloud.cache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.logging.CfLog;
+
+public class EvaluationJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final String env;
+
+    private String replayedETag;
+
+    {
+
+        env = "env_target";
+    }
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+
+        final File file = folder.newFile();
+        final EvaluationJournal journal = new EvaluationJournal(file);
+
+        journal.appendSaveAll(env, Arrays.asList(evaluation("a", "true"), evaluation("b", "false")), "tag-1");
+        journal.appendSave(env, "c", evaluation("c", "on"));
+        journal.appendRemove(env, "a");
+        journal.appendSave(env, "b", evaluation("b", "true"));
+        journal.close();
+
+        Assert.assertEquals(4, journal.size());
+
+        final Map<String, Evaluation> state = new HashMap<>();
+        Assert.assertEquals(4, new EvaluationJournal(file).replay(visitor(state)));
+
+        Assert.assertEquals(2, state.size());
+        Assert.assertEquals("tag-1", replayedETag);
+        Assert.assertNull(state.get("a"));
+        Assert.assertEquals("true", state.get("b").getValue());
+        Assert.assertEquals("on", state.get("c").getValue());
+
+        // Replaying on top of the already replayed state leads to the same state:
+        Assert.assertEquals(4, new EvaluationJournal(file).replay(visitor(state)));
+        Assert.assertEquals(2, state.size());
+
+        journal.reset();
+        Assert.assertEquals(0, journal.size());
+        Assert.assertEquals(0, new EvaluationJournal(file).replay(visitor(state)));
+    }
+
+    @Test
+    public void testTruncatedRecordEndsReplay() throws IOException {
+
+        final File file = folder.newFile();
+        final EvaluationJournal journal = new EvaluationJournal(file);
+
+        journal.appendSave(env, "a", evaluation("a", "true"));
+        journal.close();
+
+        try (final FileOutputStream out = new FileOutputStream(file, true)) {
+
+            out.write("{\"op\":\"save\",\"env\":\"env_tar".getBytes(Charset.forName("UTF-8")));
+        }
+
+        final Map<String, Evaluation> state = new HashMap<>();
+        Assert.assertEquals(1, new EvaluationJournal(file).replay(visitor(state)));
+        Assert.assertEquals(1, state.size());
+    }
+
+    private EvaluationJournal.Visitor visitor(final Map<String, Evaluation> state) {
+
+        return new EvaluationJournal.Visitor() {
+
+            @Override
+            public void onSave(final String env, final String key, final Evaluation evaluation) {
+
+                state.put(key, evaluation);
+            }
+
+            @Override
+            public void onSaveAll(final String env, final List<Evaluation> evaluations, final String eTag) {
+
+                replayedETag = eTag;
+                state.clear();
+                for (final Evaluation evaluation : evaluations) {
+
+                    state.put(evaluation.getFlag(), evaluation);
+                }
+            }
+
+            @Override
+            public void onRemove(final String env, final String key) {
+
+                state.remove(key);
+            }
+
+            @Override
+            public void onClear() {
+
+                state.clear();
+            }
+        };
+    }
+
+    private Evaluation evaluation(final String flag, final String value) {
+
+        return new Evaluation().flag(flag).identifier(value).value(value);
+    }
+}
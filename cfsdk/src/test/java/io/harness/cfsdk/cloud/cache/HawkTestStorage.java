@@ -0,0 +1,143 @@
+package io.harness.cfsdk.cloud.cache;
+
+import android.content.Context;
+
+import com.google.gson.Gson;
+import com.orhanobut.hawk.Hawk;
+import com.orhanobut.hawk.HawkBuilder;
+import com.orhanobut.hawk.Parser;
+import com.orhanobut.hawk.Storage;
+
+import org.mockito.Mockito;
+
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persists through Hawk, with its own serializer and converter, into memory. Only the parts that need
+ * a device are replaced: the values are kept in a map, parsed by plain Gson and not encrypted.
+ */
+class HawkTestStorage implements DefaultCache.Storage {
+
+    private final Map<String, Object> values;
+
+    {
+
+        values = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void init(final Context appContext) {
+
+        final Context context = Mockito.mock(Context.class);
+        Mockito.when(context.getApplicationContext()).thenReturn(context);
+
+        final HawkBuilder builder = Hawk.init(context)
+                .setStorage(new MemoryHawkStorage())
+                .setParser(new GsonOnlyParser());
+
+        setPlainEncryption(builder);
+        builder.build();
+    }
+
+    @Override
+    public <T> T get(final String key, final T defaultValue) {
+
+        return Hawk.get(key, defaultValue);
+    }
+
+    @Override
+    public boolean put(final String key, final Object value) {
+
+        return Hawk.put(key, value);
+    }
+
+    /**
+     * The encryption interface is not public, implemented with a proxy passing the values through.
+     */
+    private static void setPlainEncryption(final HawkBuilder builder) {
+
+        try {
+
+            final Class<?> encryption = Class.forName("com.orhanobut.hawk.Encryption");
+            final Object plain = Proxy.newProxyInstance(
+
+                    encryption.getClassLoader(),
+                    new Class<?>[]{encryption},
+                    (proxy, method, args) -> "init".equals(method.getName()) ? Boolean.TRUE : args[1]
+            );
+            HawkBuilder.class.getMethod("setEncryption", encryption).invoke(builder, plain);
+
+        } catch (ReflectiveOperationException e) {
+
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final class MemoryHawkStorage implements Storage {
+
+        @Override
+        public <T> boolean put(final String key, final T value) {
+
+            values.put(key, value);
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(final String key) {
+
+            return (T) values.get(key);
+        }
+
+        @Override
+        public boolean delete(final String key) {
+
+            values.remove(key);
+            return true;
+        }
+
+        @Override
+        public boolean deleteAll() {
+
+            values.clear();
+            return true;
+        }
+
+        @Override
+        public long count() {
+
+            return values.size();
+        }
+
+        @Override
+        public boolean contains(final String key) {
+
+            return values.containsKey(key);
+        }
+    }
+
+    private static final class GsonOnlyParser implements Parser {
+
+        private final Gson gson;
+
+        {
+
+            gson = new Gson();
+        }
+
+        @Override
+        public <T> T fromJson(final String content, final Type type) {
+
+            return gson.fromJson(content, type);
+        }
+
+        @Override
+        public String toJson(final Object body) {
+
+            return gson.toJson(body);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.harness.cfsdk.cloud.cache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.snapshot.TypedEvaluation;
+import io.harness.cfsdk.logging.CfLog;
+
+public class MappedSnapshotCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final String env;
+    private final String other;
+
+    {
+
+        env = "env_target";
+        other = "env_other";
+    }
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() {
+
+        final File file = new File(folder.getRoot(), "snapshot");
+        final MappedSnapshotCache cache = new MappedSnapshotCache(file, Runnable::run);
+
+        Assert.assertTrue(cache.getAllEvaluations(env).isEmpty());
+
+        cache.saveAllEvaluations(
+
+                env,
+                Arrays.asList(evaluation("a", "true"), evaluation("b", "été"))
+        );
+        cache.saveEvaluation(env, "c", evaluation("c", null));
+        cache.saveEvaluation(other, "json", evaluation("json", Collections.singletonMap("k", "v")));
+        cache.saveEvaluation(other, "raw", evaluation("raw", "{\"k\":\"v\"}"));
+        cache.removeEvaluation(env, "a");
+
+        final MappedSnapshotCache loaded = new MappedSnapshotCache(file, Runnable::run);
+
+        Assert.assertNull(loaded.getEvaluation(env, "a"));
+        Assert.assertEquals("été", loaded.getEvaluation(env, "b").getValue());
+        Assert.assertEquals("c", loaded.getEvaluation(env, "c").getFlag());
+        Assert.assertNull(loaded.getEvaluation(env, "c").getValue());
+        Assert.assertEquals(2, loaded.getAllEvaluations(env).size());
+
+        // JSON values are restored as their JSON string, as the network serves them:
+        Assert.assertEquals("{\"k\":\"v\"}", loaded.getEvaluation(other, "json").getValue());
+        Assert.assertEquals("{\"k\":\"v\"}", loaded.getEvaluation(other, "raw").getValue());
+        Assert.assertEquals(
+
+                "{\"k\":\"v\"}",
+                new TypedEvaluation(loaded.getEvaluation(other, "json")).getString()
+        );
+
+        // Changes on top of the mapped file are persisted with the untouched entries:
+        loaded.saveEvaluation(env, "d", evaluation("d", "on"));
+
+        final MappedSnapshotCache reloaded = new MappedSnapshotCache(file, Runnable::run);
+        Assert.assertEquals(3, reloaded.getAllEvaluations(env).size());
+        Assert.assertEquals(2, reloaded.getAllEvaluations(other).size());
+
+        reloaded.clear();
+        Assert.assertTrue(new MappedSnapshotCache(file, Runnable::run).getAllEvaluations(env).isEmpty());
+    }
+
+    @Test
+    public void testFlagsSharingVariation() {
+
+        final File file = new File(folder.getRoot(), "snapshot");
+        final MappedSnapshotCache cache = new MappedSnapshotCache(file, Runnable::run);
+
+        cache.saveAllEvaluations(
+
+                env,
+                Arrays.asList(evaluation("a", "true"), evaluation("b", "true"), evaluation("c", "false"))
+        );
+
+        Assert.assertEquals(3, cache.getAllEvaluations(env).size());
+        Assert.assertEquals("a", cache.getEvaluation(env, "a").getFlag());
+        Assert.assertEquals("b", cache.getEvaluation(env, "b").getFlag());
+
+        final MappedSnapshotCache loaded = new MappedSnapshotCache(file, Runnable::run);
+        Assert.assertEquals(3, loaded.getAllEvaluations(env).size());
+        Assert.assertEquals("true", loaded.getEvaluation(env, "b").getValue());
+        Assert.assertEquals("false", loaded.getEvaluation(env, "c").getIdentifier());
+    }
+
+    /**
+     * The variation identifier follows the value, so flags serving the same value share it.
+     */
+    private Evaluation evaluation(final String flag, final Object value) {
+
+        return new Evaluation().flag(flag).identifier(String.valueOf(value)).kind("string").value(value);
+    }
+}
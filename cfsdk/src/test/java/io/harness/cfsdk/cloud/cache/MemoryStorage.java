@@ -0,0 +1,63 @@
+package io.harness.cfsdk.cloud.cache;
+
+import android.content.Context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the values in memory and counts the writes per key.
+ */
+class MemoryStorage implements DefaultCache.Storage {
+
+    private final Map<String, Object> values;
+    private final Map<String, AtomicInteger> puts;
+
+    {
+
+        values = new ConcurrentHashMap<>();
+        puts = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void init(final Context appContext) {
+
+        // Nothing to prepare.
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String key, final T defaultValue) {
+
+        final Object value = values.get(key);
+        return value == null ? defaultValue : (T) value;
+    }
+
+    @Override
+    public boolean put(final String key, final Object value) {
+
+        values.put(key, value);
+        puts.putIfAbsent(key, new AtomicInteger());
+        puts.get(key).incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return Value last written for the key, null if none.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T read(final String key) {
+
+        return (T) values.get(key);
+    }
+
+    /**
+     * @return Number of writes of the key.
+     */
+    int getPuts(final String key) {
+
+        final AtomicInteger count = puts.get(key);
+        return count == null ? 0 : count.get();
+    }
+}
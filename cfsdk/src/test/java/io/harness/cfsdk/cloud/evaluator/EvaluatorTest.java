@@ -0,0 +1,331 @@
+package io.harness.cfsdk.cloud.evaluator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import io.harness.cfsdk.cloud.core.model.Clause;
+import io.harness.cfsdk.cloud.core.model.Distribution;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.core.model.FeatureConfig;
+import io.harness.cfsdk.cloud.core.model.FeatureState;
+import io.harness.cfsdk.cloud.core.model.Prerequisite;
+import io.harness.cfsdk.cloud.core.model.Segment;
+import io.harness.cfsdk.cloud.core.model.Serve;
+import io.harness.cfsdk.cloud.core.model.ServingRule;
+import io.harness.cfsdk.cloud.core.model.Variation;
+import io.harness.cfsdk.cloud.core.model.VariationMap;
+import io.harness.cfsdk.cloud.core.model.WeightedVariation;
+import io.harness.cfsdk.cloud.model.Target;
+import io.harness.cfsdk.logging.CfLog;
+
+public class EvaluatorTest {
+
+    private final String flag;
+    private final String parent;
+    private final String segment;
+
+    {
+
+        flag = "flag";
+        parent = "parent";
+        segment = "beta";
+    }
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+    }
+
+    @Test
+    public void testMurmurHash3() {
+
+        Assert.assertEquals(0, hash(""));
+        Assert.assertEquals(0x248bfa47, hash("hello"));
+        Assert.assertEquals(0x2e4ff723, hash("The quick brown fox jumps over the lazy dog"));
+    }
+
+    @Test
+    public void testBucketer() {
+
+        final String[] values = {
+
+                "", "target", "user@harness.io", "\u00e9l\u00e8ve", "\u4e2d\u6587", "\ud83d\ude00 emoji", "\ud83d"
+        };
+
+        for (final String value : values) {
+
+            final byte[] data = ("identifier:" + value).getBytes(Charset.forName("UTF-8"));
+            Assert.assertEquals(
+
+                    value,
+                    MurmurHash3.hash32(data, 0, data.length, 0),
+                    MurmurHash3.hash32Utf8("identifier", ':', value, 0)
+            );
+        }
+
+        final Bucketer bucketer = new Bucketer(2);
+        final int bucket = bucketer.getBucket("identifier", "target");
+
+        Assert.assertTrue(bucket >= 1 && bucket <= Bucketer.BUCKETS);
+        Assert.assertEquals(bucket, bucketer.getBucket("identifier", "target"));
+        Assert.assertEquals(1, bucketer.size());
+
+        bucketer.getBucket("identifier", "other");
+        bucketer.getBucket("identifier", "third");
+        Assert.assertTrue(bucketer.size() <= 2);
+        Assert.assertEquals(bucket, bucketer.getBucket("identifier", "target"));
+    }
+
+    @Test
+    public void testStateAndDefaultServe() {
+
+        final FeatureConfig config = booleanFlag(flag).defaultServe(new Serve().variation("true"));
+        final Evaluator evaluator = new Evaluator(Collections.singletonList(config), null);
+
+        Assert.assertEquals("true", evaluate(evaluator, flag, target("any")));
+
+        config.state(FeatureState.OFF);
+        Assert.assertEquals("false", evaluate(evaluator, flag, target("any")));
+
+        Assert.assertNull(evaluator.evaluate("unknown", target("any")));
+    }
+
+    @Test
+    public void testTargetsAndRules() {
+
+        final FeatureConfig config = booleanFlag(flag)
+                .defaultServe(new Serve().variation("false"))
+                .addVariationToTargetMapItem(
+
+                        new VariationMap().variation("true").targets(Collections.singletonList("mapped"))
+                )
+                .addRulesItem(
+
+                        new ServingRule()
+                                .priority(2)
+                                .addClausesItem(clause("email", Evaluator.OP_ENDS_WITH, "@harness.io"))
+                                .serve(new Serve().variation("true"))
+                )
+                .addRulesItem(
+
+                        new ServingRule()
+                                .priority(1)
+                                .addClausesItem(clause("email", Evaluator.OP_EQUAL, "BLOCKED@harness.io"))
+                                .serve(new Serve().variation("false"))
+                );
+
+        final Evaluator evaluator = new Evaluator(Collections.singletonList(config), null);
+
+        Assert.assertEquals("true", evaluate(evaluator, flag, target("mapped")));
+        Assert.assertEquals("false", evaluate(evaluator, flag, target("other")));
+
+        Assert.assertEquals(
+
+                "true",
+                evaluate(evaluator, flag, target("other", "email", "dev@harness.io"))
+        );
+
+        // The rule with higher priority wins:
+        Assert.assertEquals(
+
+                "false",
+                evaluate(evaluator, flag, target("other", "email", "blocked@harness.io"))
+        );
+    }
+
+    @Test
+    public void testClauseOperators() {
+
+        final Target target = target("id", "email", "dev@harness.io");
+        target.getAttributes().put("age", 42);
+
+        Assert.assertTrue(matches(clause("age", Evaluator.OP_GT, "9"), target));
+        Assert.assertFalse(matches(clause("age", Evaluator.OP_GT, "100"), target));
+        Assert.assertTrue(matches(clause("email", Evaluator.OP_STARTS_WITH, "dev"), target));
+        Assert.assertTrue(matches(clause("email", Evaluator.OP_CONTAINS, "harness"), target));
+        Assert.assertTrue(matches(clause("email", Evaluator.OP_MATCH, "^d.v@.*\\.io$"), target));
+        Assert.assertFalse(matches(clause("email", Evaluator.OP_EQUAL_SENSITIVE, "DEV@harness.io"), target));
+        Assert.assertTrue(matches(clause("identifier", Evaluator.OP_IN, "a", "id", "b"), target));
+        Assert.assertFalse(matches(clause("missing", Evaluator.OP_IN, "a"), target));
+        Assert.assertFalse(matches(clause("identifier", Evaluator.OP_IN, "id").negate(true), target));
+    }
+
+    @Test
+    public void testLargeValueLists() {
+
+        final String[] values = new String[10000];
+        for (int i = 0; i < values.length; i++) {
+
+            values[i] = "target-" + i;
+        }
+
+        Assert.assertTrue(matches(clause("identifier", Evaluator.OP_IN, values), target("target-9999")));
+        Assert.assertFalse(matches(clause("identifier", Evaluator.OP_IN, values), target("target-10000")));
+        Assert.assertFalse(matches(clause("email", Evaluator.OP_MATCH, "(unclosed"), target("id", "email", "(")));
+    }
+
+    @Test
+    public void testSegments() {
+
+        final Segment beta = new Segment()
+                .identifier(segment)
+                .included(Collections.singletonList("included"))
+                .excluded(Collections.singletonList("excluded"))
+                .rules(Collections.singletonList(clause("email", Evaluator.OP_ENDS_WITH, "@beta.io")));
+
+        final FeatureConfig config = booleanFlag(flag)
+                .defaultServe(new Serve().variation("false"))
+                .addRulesItem(
+
+                        new ServingRule()
+                                .priority(1)
+                                .addClausesItem(clause("", Evaluator.OP_SEGMENT_MATCH, segment))
+                                .serve(new Serve().variation("true"))
+                );
+
+        final Evaluator evaluator = new Evaluator(
+
+                Collections.singletonList(config),
+                Collections.singletonList(beta)
+        );
+
+        Assert.assertEquals("true", evaluate(evaluator, flag, target("included")));
+        Assert.assertEquals("true", evaluate(evaluator, flag, target("other", "email", "a@beta.io")));
+        Assert.assertEquals("false", evaluate(evaluator, flag, target("excluded", "email", "a@beta.io")));
+        Assert.assertEquals("false", evaluate(evaluator, flag, target("other")));
+    }
+
+    @Test
+    public void testPrerequisites() {
+
+        final FeatureConfig parentConfig = booleanFlag(parent)
+                .defaultServe(new Serve().variation("false"))
+                .addVariationToTargetMapItem(
+
+                        new VariationMap().variation("true").targets(Collections.singletonList("allowed"))
+                );
+
+        final FeatureConfig config = booleanFlag(flag)
+                .defaultServe(new Serve().variation("true"))
+                .addPrerequisitesItem(
+
+                        new Prerequisite().feature(parent).variations(Collections.singletonList("true"))
+                );
+
+        final Evaluator evaluator = new Evaluator(Arrays.asList(parentConfig, config), null);
+
+        Assert.assertEquals("true", evaluate(evaluator, flag, target("allowed")));
+        Assert.assertEquals("false", evaluate(evaluator, flag, target("other")));
+        Assert.assertEquals(2, evaluator.evaluateAll(target("allowed")).size());
+    }
+
+    @Test
+    public void testPercentageRollout() {
+
+        final FeatureConfig config = booleanFlag(flag).defaultServe(
+
+                new Serve().distribution(
+
+                        new Distribution()
+                                .bucketBy("identifier")
+                                .addVariationsItem(new WeightedVariation().variation("true").weight(30))
+                                .addVariationsItem(new WeightedVariation().variation("false").weight(70))
+                )
+        );
+
+        final Evaluator evaluator = new Evaluator(Collections.singletonList(config), null);
+
+        int enabled = 0;
+        final int targets = 10000;
+        for (int i = 0; i < targets; i++) {
+
+            final Target target = target("target-" + i);
+            final String value = evaluate(evaluator, flag, target);
+
+            // Buckets are stable for the same target:
+            Assert.assertEquals(value, evaluate(evaluator, flag, target));
+            if ("true".equals(value)) {
+
+                enabled++;
+            }
+        }
+
+        Assert.assertTrue("Enabled: " + enabled, enabled > targets * 0.27 && enabled < targets * 0.33);
+    }
+
+    private boolean matches(final Clause clause, final Target target) {
+
+        final FeatureConfig config = booleanFlag(flag)
+                .defaultServe(new Serve().variation("false"))
+                .addRulesItem(
+
+                        new ServingRule()
+                                .priority(1)
+                                .addClausesItem(clause)
+                                .serve(new Serve().variation("true"))
+                );
+
+        final Evaluator evaluator = new Evaluator(Collections.singletonList(config), null);
+        return "true".equals(evaluate(evaluator, flag, target));
+    }
+
+    private String evaluate(final Evaluator evaluator, final String flag, final Target target) {
+
+        final Evaluation evaluation = evaluator.evaluate(flag, target);
+        Assert.assertNotNull(evaluation);
+        Assert.assertEquals(flag, evaluation.getFlag());
+        return (String) evaluation.getValue();
+    }
+
+    private FeatureConfig booleanFlag(final String identifier) {
+
+        return new FeatureConfig()
+                .feature(identifier)
+                .kind("boolean")
+                .state(FeatureState.ON)
+                .offVariation("false")
+                .addVariationsItem(variation("true"))
+                .addVariationsItem(variation("false"));
+    }
+
+    private Variation variation(final String value) {
+
+        final Variation variation = new Variation();
+        variation.setIdentifier(value);
+        variation.setValue(value);
+        return variation;
+    }
+
+    private Clause clause(final String attribute, final String op, final String... values) {
+
+        return new Clause()
+                .attribute(attribute)
+                .op(op)
+                .values(Arrays.asList(values))
+                .negate(false);
+    }
+
+    private Target target(final String identifier) {
+
+        return new Target().identifier(identifier).name(identifier);
+    }
+
+    private Target target(final String identifier, final String attribute, final Object value) {
+
+        final Target target = target(identifier);
+        target.getAttributes().put(attribute, value);
+        return target;
+    }
+
+    private int hash(final String value) {
+
+        final byte[] data = value.getBytes(Charset.forName("UTF-8"));
+        return MurmurHash3.hash32(data, 0, data.length, 0);
+    }
+}
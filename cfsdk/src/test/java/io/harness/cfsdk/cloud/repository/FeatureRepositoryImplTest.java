@@ -0,0 +1,208 @@
+package io.harness.cfsdk.cloud.repository;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import io.harness.cfsdk.cloud.ApiResponse;
+import io.harness.cfsdk.cloud.FeatureService;
+import io.harness.cfsdk.cloud.FeatureServiceCallback;
+import io.harness.cfsdk.cloud.cache.CloudCache;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.snapshot.EvaluationSnapshot;
+import io.harness.cfsdk.cloud.snapshot.SnapshotHolder;
+import io.harness.cfsdk.logging.CfLog;
+import io.harness.cfsdk.mock.MockedNetworkInfoProvider;
+
+public class FeatureRepositoryImplTest {
+
+    private final String env;
+    private final String eTag;
+    private final String target;
+    private final String cluster;
+
+    {
+
+        env = "env";
+        eTag = "\"v1\"";
+        target = "target";
+        cluster = "1";
+    }
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+    }
+
+    @Test
+    public void testConditionalReload() {
+
+        final Evaluation evaluation = new Evaluation()
+                .flag("flag")
+                .identifier("true")
+                .value("true")
+                .kind("boolean");
+
+        final List<Evaluation> evaluations = new LinkedList<>();
+        evaluations.add(evaluation);
+
+        final FeatureService featureService = Mockito.mock(FeatureService.class);
+        Mockito.when(featureService.getEvaluations(eq(target), eq(cluster), isNull()))
+                .thenReturn(new ApiResponse(200, "", evaluations, eTag));
+        Mockito.when(featureService.getEvaluations(eq(target), eq(cluster), eq(eTag)))
+                .thenReturn(new ApiResponse(304, "", null, eTag));
+
+        final CloudCache cloudCache = Mockito.mock(CloudCache.class);
+        Mockito.when(cloudCache.getAllEvaluations(anyString())).thenReturn(Collections.<Evaluation>emptyList());
+
+        final FeatureRepositoryImpl repository = new FeatureRepositoryImpl(
+
+                featureService,
+                cloudCache,
+                new MockedNetworkInfoProvider()
+        );
+
+        Assert.assertEquals(1, repository.getAllEvaluations(env, target, cluster).size());
+
+        final SnapshotHolder holder = repository.getSnapshot(env, target);
+        final EvaluationSnapshot loaded = holder.get();
+        Assert.assertEquals(eTag, holder.getETag());
+        Assert.assertNotNull(loaded.get("flag"));
+
+        final List<Evaluation> reloaded = repository.getAllEvaluations(env, target, cluster);
+        Assert.assertEquals(1, reloaded.size());
+        Assert.assertSame(evaluation, reloaded.get(0));
+
+        // Not modified: the snapshot is kept and nothing is written to the cache again:
+        Assert.assertSame(loaded, holder.get());
+        Mockito.verify(featureService, Mockito.times(1)).getEvaluations(target, cluster, eTag);
+        Mockito.verify(cloudCache, Mockito.times(1)).saveAllEvaluations(anyString(), any());
+
+        // A change from the stream drops the tag, so the next reload is unconditional:
+        repository.remove(env, target, "flag");
+        Assert.assertNull(holder.getETag());
+
+        repository.getAllEvaluations(env, target, cluster);
+        Mockito.verify(featureService, Mockito.times(2)).getEvaluations(eq(target), eq(cluster), isNull());
+        Mockito.verify(cloudCache, Mockito.times(2)).saveAllEvaluations(anyString(), any());
+    }
+
+    @Test
+    public void testConditionalAsyncReload() {
+
+        final Evaluation evaluation = new Evaluation()
+                .flag("flag")
+                .identifier("true")
+                .value("true")
+                .kind("boolean");
+
+        final List<Evaluation> evaluations = new LinkedList<>();
+        evaluations.add(evaluation);
+
+        final FeatureService featureService = Mockito.mock(FeatureService.class);
+        Mockito.doAnswer(invocation -> {
+
+            final String sent = invocation.getArgument(2);
+            final FeatureServiceCallback callback = invocation.getArgument(3);
+            if (eTag.equals(sent)) {
+
+                callback.onResponse(new ApiResponse(304, "", null, eTag));
+
+            } else {
+
+                callback.onResponse(new ApiResponse(200, "", evaluations, eTag));
+            }
+            return null;
+
+        }).when(featureService).getEvaluationsAsync(eq(target), eq(cluster), any(), any());
+
+        final CloudCache cloudCache = Mockito.mock(CloudCache.class);
+        Mockito.when(cloudCache.getAllEvaluations(anyString())).thenReturn(Collections.<Evaluation>emptyList());
+
+        final FeatureRepositoryImpl repository = new FeatureRepositoryImpl(
+
+                featureService,
+                cloudCache,
+                new MockedNetworkInfoProvider()
+        );
+
+        final List<List<Evaluation>> results = new ArrayList<>();
+        repository.getAllEvaluationsAsync(env, target, cluster, results::add);
+
+        final SnapshotHolder holder = repository.getSnapshot(env, target);
+        final EvaluationSnapshot loaded = holder.get();
+        Assert.assertEquals(eTag, holder.getETag());
+        Assert.assertNotNull(loaded.get("flag"));
+
+        // The reload sends the tag, not modified keeps the snapshot and the tag:
+        repository.getAllEvaluationsAsync(env, target, cluster, results::add);
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(1, results.get(1).size());
+        Assert.assertSame(loaded, holder.get());
+        Assert.assertEquals(eTag, holder.getETag());
+        Mockito.verify(featureService, Mockito.times(1))
+                .getEvaluationsAsync(eq(target), eq(cluster), eq(eTag), any());
+        Mockito.verify(cloudCache, Mockito.times(1)).saveAllEvaluations(anyString(), any());
+    }
+
+    @Test
+    public void testColdStartSendsPersistedTag() {
+
+        final Evaluation evaluation = new Evaluation()
+                .flag("flag")
+                .identifier("true")
+                .value("true")
+                .kind("boolean");
+
+        final List<Evaluation> evaluations = new LinkedList<>();
+        evaluations.add(evaluation);
+
+        final FeatureService featureService = Mockito.mock(FeatureService.class);
+        Mockito.when(featureService.getEvaluations(eq(target), eq(cluster), eq(eTag)))
+                .thenReturn(new ApiResponse(304, "", null, eTag));
+        Mockito.when(featureService.getEvaluations(eq(target), eq(cluster), isNull()))
+                .thenReturn(new ApiResponse(200, "", evaluations, "\"v2\""));
+
+        // Restarted with the evaluations and the tag of the last reload persisted:
+        final CloudCache cloudCache = Mockito.mock(
+
+                CloudCache.class,
+                Mockito.withSettings().extraInterfaces(CloudCache.ETagged.class)
+        );
+        final CloudCache.ETagged tagged = (CloudCache.ETagged) cloudCache;
+        Mockito.when(cloudCache.getAllEvaluations(anyString())).thenReturn(evaluations);
+        Mockito.when(tagged.getETag(anyString())).thenReturn(eTag);
+
+        final FeatureRepositoryImpl repository = new FeatureRepositoryImpl(
+
+                featureService,
+                cloudCache,
+                new MockedNetworkInfoProvider()
+        );
+
+        final List<Evaluation> reloaded = repository.getAllEvaluations(env, target, cluster);
+        Assert.assertEquals(1, reloaded.size());
+        Assert.assertEquals("flag", reloaded.get(0).getFlag());
+        Mockito.verify(featureService, Mockito.times(1)).getEvaluations(target, cluster, eTag);
+        Mockito.verify(tagged, Mockito.never()).saveAllEvaluations(anyString(), any(), any());
+
+        // A full reload persists its tag with the evaluations:
+        repository.remove(env, target, "flag");
+        repository.getAllEvaluations(env, target, cluster);
+        Mockito.verify(tagged, Mockito.times(1)).saveAllEvaluations(anyString(), eq(evaluations), eq("\"v2\""));
+        Mockito.verify(cloudCache, Mockito.never()).saveAllEvaluations(anyString(), any());
+    }
+}
@@ -0,0 +1,134 @@
+package io.harness.cfsdk.cloud.repository;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    private final long timeout;
+    private final int callers;
+
+    {
+
+        callers = 10;
+        timeout = 3000L;
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneRequest() throws InterruptedException {
+
+        final SingleFlight<String> singleFlight = new SingleFlight<>();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(callers);
+        final List<String> results = new ArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+
+            new Thread(() -> {
+
+                final String result = singleFlight.execute("key", () -> {
+
+                    executions.incrementAndGet();
+                    try {
+
+                        Assert.assertTrue(release.await(timeout, TimeUnit.MILLISECONDS));
+
+                    } catch (InterruptedException e) {
+
+                        Assert.fail(e.getMessage());
+                    }
+                    return "result";
+                });
+
+                synchronized (results) {
+
+                    results.add(result);
+                }
+                finished.countDown();
+
+            }).start();
+        }
+
+        final long start = System.currentTimeMillis();
+        while (executions.get() == 0) {
+
+            Thread.sleep(10);
+            if (System.currentTimeMillis() - start >= timeout) {
+
+                Assert.fail("Timeout after 3 seconds");
+            }
+        }
+
+        // Give the remaining callers the chance to join the request in flight:
+        Thread.sleep(100);
+        release.countDown();
+
+        Assert.assertTrue(finished.await(timeout, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, executions.get());
+        Assert.assertEquals(callers, results.size());
+
+        for (final String result : results) {
+
+            Assert.assertEquals("result", result);
+        }
+
+        Assert.assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void testKeyIsReleasedAfterCompletion() {
+
+        final SingleFlight<Integer> singleFlight = new SingleFlight<>();
+        final AtomicInteger executions = new AtomicInteger();
+
+        Assert.assertEquals(1, (int) singleFlight.execute("key", executions::incrementAndGet));
+        Assert.assertEquals(2, (int) singleFlight.execute("key", executions::incrementAndGet));
+        Assert.assertEquals(3, (int) singleFlight.execute("other", executions::incrementAndGet));
+    }
+
+    @Test
+    public void testAsyncCallersShareOneRequest() {
+
+        final SingleFlight<String> singleFlight = new SingleFlight<>();
+        final AtomicInteger executions = new AtomicInteger();
+        final List<SingleFlight.Callback<String>> pending = new ArrayList<>();
+        final List<String> results = new ArrayList<>();
+
+        for (int i = 0; i < callers; i++) {
+
+            singleFlight.executeAsync(
+
+                    "key",
+                    done -> {
+
+                        executions.incrementAndGet();
+                        pending.add(done);
+                    },
+                    results::add
+            );
+        }
+
+        Assert.assertEquals(1, executions.get());
+        Assert.assertEquals(1, singleFlight.inFlight());
+        Assert.assertTrue(results.isEmpty());
+
+        pending.get(0).onResult("result");
+
+        Assert.assertEquals(1, executions.get());
+        Assert.assertEquals(callers, results.size());
+
+        for (final String result : results) {
+
+            Assert.assertEquals("result", result);
+        }
+
+        Assert.assertEquals(0, singleFlight.inFlight());
+    }
+}
@@ -0,0 +1,171 @@
+package io.harness.cfsdk.cloud.snapshot;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.harness.cfsdk.cloud.analytics.model.Analytics;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.model.Target;
+import io.harness.cfsdk.logging.CfLog;
+
+public class TypedEvaluationTest {
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+    }
+
+    @Test
+    public void testDecoding() {
+
+        final TypedEvaluation boolString = decode("true");
+        Assert.assertTrue(boolString.isBoolean());
+        Assert.assertTrue(boolString.getBoolean());
+        Assert.assertFalse(boolString.isNumber());
+        Assert.assertEquals("true", boolString.getString());
+
+        final TypedEvaluation boolValue = decode(false);
+        Assert.assertTrue(boolValue.isBoolean());
+        Assert.assertFalse(boolValue.getBoolean());
+        Assert.assertEquals("false", boolValue.getString());
+
+        final TypedEvaluation numberString = decode(" 12.5");
+        Assert.assertTrue(numberString.isNumber());
+        Assert.assertEquals(12.5, numberString.getNumber(), 0);
+        Assert.assertFalse(numberString.getBoolean());
+
+        final TypedEvaluation numberValue = decode(7);
+        Assert.assertTrue(numberValue.isNumber());
+        Assert.assertEquals(7, numberValue.getNumber(), 0);
+        Assert.assertFalse(numberValue.isBoolean());
+
+        final TypedEvaluation notNumber = decode("-not-a-number");
+        Assert.assertFalse(notNumber.isNumber());
+        Assert.assertNull(notNumber.getJson());
+
+        final TypedEvaluation nullValue = decode(null);
+        Assert.assertTrue(nullValue.isNull());
+        Assert.assertNull(nullValue.getString());
+        Assert.assertFalse(nullValue.isBoolean());
+        Assert.assertFalse(nullValue.isNumber());
+    }
+
+    @Test
+    public void testSnapshot() {
+
+        final Evaluation first = new Evaluation().flag("first").value("1");
+        final Evaluation second = new Evaluation().flag("second").value("true");
+
+        final EvaluationSnapshot snapshot = EvaluationSnapshot.of(Arrays.asList(first, second));
+        Assert.assertEquals(2, snapshot.size());
+        Assert.assertSame(first, snapshot.get("first").getEvaluation());
+
+        final EvaluationSnapshot updated = snapshot.with(new Evaluation().flag("first").value("2"));
+        Assert.assertEquals(1, snapshot.get("first").getNumber(), 0);
+        Assert.assertEquals(2, updated.get("first").getNumber(), 0);
+
+        final EvaluationSnapshot removed = updated.without("second");
+        Assert.assertNull(removed.get("second"));
+        Assert.assertNotNull(updated.get("second"));
+        Assert.assertSame(removed, removed.without("second"));
+    }
+
+    @Test
+    public void testReloadDiff() {
+
+        final SnapshotHolder holder = new SnapshotHolder();
+        Assert.assertTrue(
+
+                holder.publish(
+
+                        Arrays.asList(
+
+                                new Evaluation().flag("kept").identifier("on").value("true"),
+                                new Evaluation().flag("changed").identifier("a").value("a"),
+                                new Evaluation().flag("removed").identifier("x").value("x")
+                        )
+                )
+        );
+
+        final EvaluationSnapshot previous = holder.get();
+        final List<Evaluation> same = Arrays.asList(
+
+                new Evaluation().flag("removed").identifier("x").value("x"),
+                new Evaluation().flag("changed").identifier("a").value("a"),
+                new Evaluation().flag("kept").identifier("on").value("true")
+        );
+
+        // Unchanged reload keeps the snapshot instance:
+        Assert.assertFalse(holder.publish(same));
+        Assert.assertSame(previous, holder.get());
+        Assert.assertTrue(holder.get().diff(previous).isEmpty());
+
+        holder.put(new Evaluation().flag("kept").identifier("on").value("true"));
+        Assert.assertSame(previous, holder.get());
+
+        Assert.assertTrue(
+
+                holder.publish(
+
+                        Arrays.asList(
+
+                                new Evaluation().flag("kept").identifier("on").value("true"),
+                                new Evaluation().flag("changed").identifier("b").value("b"),
+                                new Evaluation().flag("added").identifier("y").value("y")
+                        )
+                )
+        );
+
+        final Map<String, Evaluation> changes = new HashMap<>();
+        for (final Evaluation change : holder.get().diff(previous)) {
+
+            changes.put(change.getFlag(), change);
+        }
+
+        Assert.assertEquals(3, changes.size());
+        Assert.assertEquals("b", changes.get("changed").getValue());
+        Assert.assertEquals("y", changes.get("added").getValue());
+        Assert.assertNull(changes.get("removed").getValue());
+        Assert.assertFalse(changes.containsKey("kept"));
+    }
+
+    @Test
+    public void testAnalyticsPerTarget() {
+
+        final TypedEvaluation evaluation = decode("true");
+
+        final Target[] targets = new Target[TypedEvaluation.MAX_CACHED_TARGETS + 1];
+        final Analytics[] entries = new Analytics[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+
+            targets[i] = new Target().identifier("target-" + i).name("target-" + i);
+            entries[i] = evaluation.getAnalytics(targets[i]);
+            Assert.assertSame(targets[i], entries[i].getTarget());
+        }
+
+        // Targets reading in turns keep their entries, up to the limit:
+        for (int i = 0; i < TypedEvaluation.MAX_CACHED_TARGETS; i++) {
+
+            Assert.assertSame(entries[i], evaluation.getAnalytics(targets[i]));
+        }
+        Assert.assertNotSame(entries[targets.length - 1], evaluation.getAnalytics(targets[targets.length - 1]));
+
+        // A new instance of a known target replaces its entry:
+        final Target renewed = new Target().identifier("target-0").name("renewed");
+        final Analytics renewedEntry = evaluation.getAnalytics(renewed);
+        Assert.assertSame(renewed, renewedEntry.getTarget());
+        Assert.assertSame(renewedEntry, evaluation.getAnalytics(renewed));
+    }
+
+    private TypedEvaluation decode(final Object value) {
+
+        return new TypedEvaluation(new Evaluation().flag("flag").value(value));
+    }
+}
@@ -0,0 +1,268 @@
+package io.harness.cfsdk.common;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.harness.cfsdk.logging.CfLog;
+
+public class SdkSchedulerTest {
+
+    private final long timeout;
+    private final SdkScheduler scheduler;
+
+    {
+
+        timeout = 3000L;
+        scheduler = SdkScheduler.getInstance();
+    }
+
+    @Before
+    public void prepare() {
+
+        CfLog.testModeOn();
+    }
+
+    @Test
+    public void testSerialExecutor() throws InterruptedException {
+
+        final int tasks = 200;
+        final Executor first = scheduler.newSerialExecutor();
+        final Executor second = scheduler.newSerialExecutor();
+
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(tasks);
+
+        for (int i = 0; i < tasks; i++) {
+
+            final int index = i;
+            first.execute(() -> {
+
+                if (running.incrementAndGet() > 1) {
+
+                    overlaps.incrementAndGet();
+                }
+                order.add(index);
+                running.decrementAndGet();
+
+                // A failing task does not stop the following ones:
+                if (index == 0) {
+
+                    throw new IllegalStateException("Failing task");
+                }
+                done.countDown();
+            });
+        }
+
+        // Other serial executors are not held up meanwhile:
+        second.execute(done::countDown);
+
+        Assert.assertTrue(done.await(timeout, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, overlaps.get());
+        Assert.assertEquals(tasks, order.size());
+        for (int i = 0; i < tasks; i++) {
+
+            Assert.assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testBlockedTasksDoNotStarveOthers() throws InterruptedException {
+
+        final int blocked = SdkScheduler.IO_THREADS - 1;
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(blocked);
+
+        // Blocking tasks, as slow requests, on all but one of the shared threads:
+        for (int i = 0; i < blocked; i++) {
+
+            scheduler.newSerialExecutor().execute(() -> {
+
+                started.countDown();
+                try {
+
+                    release.await();
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        try {
+
+            Assert.assertTrue(started.await(timeout, TimeUnit.MILLISECONDS));
+
+            final CountDownLatch ran = new CountDownLatch(2);
+            scheduler.newSerialExecutor().execute(ran::countDown);
+            scheduler.schedule(ran::countDown, 1L);
+            Assert.assertTrue(ran.await(timeout, TimeUnit.MILLISECONDS));
+
+        } finally {
+
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testThreadCountBounded() throws InterruptedException {
+
+        final int blocked = SdkScheduler.IO_THREADS * 3;
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(SdkScheduler.IO_THREADS);
+        final CountDownLatch done = new CountDownLatch(blocked);
+
+        for (int i = 0; i < blocked; i++) {
+
+            scheduler.newSerialExecutor().execute(() -> {
+
+                started.countDown();
+                try {
+
+                    release.await();
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+
+        try {
+
+            Assert.assertTrue(started.await(timeout, TimeUnit.MILLISECONDS));
+
+            // The tasks above the thread count wait in the queue:
+            Assert.assertEquals(SdkScheduler.IO_THREADS, countIoThreads());
+
+        } finally {
+
+            release.countDown();
+        }
+
+        Assert.assertTrue(done.await(timeout, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(countIoThreads() <= SdkScheduler.IO_THREADS);
+    }
+
+    @Test
+    public void testFullQueueRunsOnCaller() throws InterruptedException {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(SdkScheduler.IO_THREADS);
+        final CountDownLatch done = new CountDownLatch(SdkScheduler.IO_QUEUE_CAPACITY);
+
+        try {
+
+            for (int i = 0; i < SdkScheduler.IO_THREADS; i++) {
+
+                scheduler.newSerialExecutor().execute(() -> {
+
+                    started.countDown();
+                    try {
+
+                        release.await();
+
+                    } catch (InterruptedException e) {
+
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            Assert.assertTrue(started.await(timeout, TimeUnit.MILLISECONDS));
+
+            for (int i = 0; i < SdkScheduler.IO_QUEUE_CAPACITY; i++) {
+
+                scheduler.newSerialExecutor().execute(done::countDown);
+            }
+
+            final List<Thread> runners = Collections.synchronizedList(new ArrayList<>());
+            scheduler.newSerialExecutor().execute(() -> runners.add(Thread.currentThread()));
+            Assert.assertEquals(Collections.singletonList(Thread.currentThread()), runners);
+
+        } finally {
+
+            release.countDown();
+        }
+
+        Assert.assertTrue(done.await(timeout, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testSerialExecutorKnowsItsTasks() throws InterruptedException {
+
+        final SdkScheduler.SerialExecutor executor = scheduler.newSerialExecutor();
+        final List<Boolean> inside = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+
+            inside.add(executor.isCurrentThread());
+            done.countDown();
+        });
+
+        Assert.assertTrue(done.await(timeout, TimeUnit.MILLISECONDS));
+        Assert.assertEquals("[true]", inside.toString());
+        Assert.assertFalse(executor.isCurrentThread());
+    }
+
+    @Test
+    public void testPeriodicWithJitter() throws InterruptedException {
+
+        final long period = 20L;
+        final List<Long> runs = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch ran = new CountDownLatch(5);
+
+        final long start = System.nanoTime();
+        final SdkScheduler.Cancellable periodic = scheduler.schedulePeriodic(
+
+                () -> {
+
+                    runs.add(System.nanoTime());
+                    ran.countDown();
+                },
+                period,
+                1000L
+        );
+
+        Assert.assertTrue(ran.await(timeout, TimeUnit.MILLISECONDS));
+        periodic.cancel();
+
+        // The jitter is limited by the period:
+        long previous = start;
+        for (final long run : new ArrayList<>(runs)) {
+
+            final long elapsed = TimeUnit.NANOSECONDS.toMillis(run - previous);
+            Assert.assertTrue(String.valueOf(elapsed), elapsed >= period - 1);
+            previous = run;
+        }
+
+        final int count = runs.size();
+        Thread.sleep(period * 5);
+        Assert.assertEquals(count, runs.size());
+    }
+
+    private static int countIoThreads() {
+
+        int count = 0;
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+
+            if (thread.isAlive() && thread.getName().startsWith("cf-sdk-io-")) {
+
+                count++;
+            }
+        }
+        return count;
+    }
+}
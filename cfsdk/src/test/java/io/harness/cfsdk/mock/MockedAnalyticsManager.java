@@ -1,13 +1,12 @@
 package io.harness.cfsdk.mock;
 
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import io.harness.cfsdk.CfConfiguration;
 import io.harness.cfsdk.cloud.analytics.AnalyticsManager;
 import io.harness.cfsdk.cloud.analytics.AnalyticsPublisherServiceCallback;
-import io.harness.cfsdk.cloud.analytics.model.Analytics;
+import io.harness.cfsdk.cloud.analytics.MetricsCounters;
 import io.harness.cfsdk.logging.CfLog;
 
 public class MockedAnalyticsManager extends AnalyticsManager {
@@ -19,9 +18,11 @@ public class MockedAnalyticsManager extends AnalyticsManager {
     private final String logTag;
     private final AtomicInteger successCount;
     private final AtomicInteger failureCount;
+    private final AtomicInteger flushRequests;
 
     {
 
+        flushRequests = new AtomicInteger();
         successCount = new AtomicInteger();
         failureCount = new AtomicInteger();
         logTag = MockedAnalyticsManager.class.getSimpleName();
@@ -49,9 +50,9 @@ public class MockedAnalyticsManager extends AnalyticsManager {
         super(environmentID, "", authToken, config);
     }
 
-    public BlockingQueue<Analytics> getQueue() {
+    public MetricsCounters getCounters() {
 
-        return queue;
+        return counters;
     }
 
     @Override
@@ -77,6 +78,21 @@ public class MockedAnalyticsManager extends AnalyticsManager {
         };
     }
 
+    @Override
+    protected void requestFlush() {
+
+        flushRequests.incrementAndGet();
+        super.requestFlush();
+    }
+
+    /**
+     * @return Number of early sends requested, including those served by a send already requested.
+     */
+    public int getFlushRequests() {
+
+        return flushRequests.get();
+    }
+
     public int getSuccessCount() {
 
         return successCountValue;
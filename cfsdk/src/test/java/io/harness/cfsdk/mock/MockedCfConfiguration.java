@@ -53,6 +53,9 @@ public class MockedCfConfiguration  extends CfConfiguration {
         );
 
         setMetricsCapacity(builder.getMetricsCapacity());
+        setMetricsOverflowPolicy(builder.getMetricsOverflowPolicy());
+        setSchedulingJitterInMillis(builder.getSchedulingJitterInMillis());
+        setMetricsSpoolMaxBytes(builder.getMetricsSpoolMaxBytes());
         setMetricsPublishingIntervalInMillis(builder.getMetricsPublishingIntervalInMillis());
         setMetricsServiceAcceptableDurationInMillis(builder.getMetricsPublishingAcceptableDurationInMillis());
     }
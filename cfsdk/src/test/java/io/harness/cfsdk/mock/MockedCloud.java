@@ -2,6 +2,7 @@ package io.harness.cfsdk.mock;
 
 
 import io.harness.cfsdk.cloud.ApiResponse;
+import io.harness.cfsdk.cloud.FeatureServiceCallback;
 import io.harness.cfsdk.cloud.ICloud;
 import io.harness.cfsdk.cloud.model.AuthInfo;
 import io.harness.cfsdk.cloud.oksse.SSEAuthentication;
@@ -71,9 +72,64 @@ public class MockedCloud implements ICloud {
         return null;
     }
 
+    /**
+     * Emulates a server whose evaluations never change: any conditional request is answered as not modified.
+     */
+    @Override
+    public ApiResponse getEvaluations(String target, String cluster, String eTag) {
+
+        if (eTag != null) {
+
+            return new ApiResponse(304, "", null, eTag);
+        }
+        return getEvaluations(target, cluster);
+    }
+
     @Override
     public ApiResponse getEvaluationForId(String identifier, String target, String cluster) {
 
         return null;
     }
+
+    @Override
+    public void getEvaluationsAsync(String target, String cluster, FeatureServiceCallback callback) {
+
+        callback.onResponse(null);
+    }
+
+    @Override
+    public void getEvaluationsAsync(
+
+            String target,
+            String cluster,
+            String eTag,
+            FeatureServiceCallback callback
+    ) {
+
+        getEvaluationsAsync(target, cluster, callback);
+    }
+
+    @Override
+    public void getEvaluationForIdAsync(
+
+            String identifier,
+            String target,
+            String cluster,
+            FeatureServiceCallback callback
+    ) {
+
+        callback.onResponse(null);
+    }
+
+    @Override
+    public ApiResponse getFeatureConfigs(String cluster) {
+
+        return null;
+    }
+
+    @Override
+    public ApiResponse getSegments(String cluster) {
+
+        return null;
+    }
 }
@@ -2,11 +2,15 @@ package io.harness.cfsdk.mock;
 
 import android.content.Context;
 
+import io.harness.cfsdk.cloud.FeatureService;
 import io.harness.cfsdk.cloud.ICloud;
+import io.harness.cfsdk.cloud.cache.CacheStats;
+import io.harness.cfsdk.cloud.cache.CloudCache;
 import io.harness.cfsdk.cloud.factories.CloudFactory;
 import io.harness.cfsdk.cloud.model.AuthInfo;
 import io.harness.cfsdk.cloud.model.Target;
 import io.harness.cfsdk.cloud.network.NetworkInfoProviding;
+import io.harness.cfsdk.cloud.repository.FeatureRepository;
 import io.harness.cfsdk.cloud.sse.SSEControlling;
 
 public class MockedCloudFactory extends CloudFactory {
@@ -19,6 +23,29 @@ public class MockedCloudFactory extends CloudFactory {
         return new MockedCloud();
     }
 
+    @Override
+    public FeatureRepository getFeatureRepository(
+
+            FeatureService featureService,
+            CloudCache cloudCache,
+            NetworkInfoProviding networkInfoProvider
+    ) {
+
+        return new MockedFeatureRepository();
+    }
+
+    @Override
+    public FeatureRepository getFeatureRepository(
+
+            FeatureService featureService,
+            CloudCache cloudCache,
+            NetworkInfoProviding networkInfoProvider,
+            CacheStats cacheStats
+    ) {
+
+        return new MockedFeatureRepository();
+    }
+
     @Override
     public NetworkInfoProviding networkInfoProvider(final Context context) {
 
@@ -0,0 +1,119 @@
+package io.harness.cfsdk.mock;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.harness.cfsdk.cloud.ApiResponse;
+import io.harness.cfsdk.cloud.FeatureServiceCallback;
+import io.harness.cfsdk.cloud.core.model.Evaluation;
+
+/**
+ * Emulates a server serving boolean evaluations per target, set with {@link #setBool(String, String, boolean)}.
+ * Counts the evaluation requests it answers.
+ */
+public class MockedEvaluationsCloud extends MockedCloud {
+
+    private final AtomicInteger requests;
+    private final Map<String, Map<String, Evaluation>> evaluations;
+
+    {
+
+        requests = new AtomicInteger();
+        evaluations = new ConcurrentHashMap<>();
+    }
+
+    public static Evaluation boolEvaluation(final String flag, final boolean value) {
+
+        return new Evaluation()
+                .flag(flag)
+                .identifier(String.valueOf(value))
+                .value(String.valueOf(value))
+                .kind("boolean");
+    }
+
+    public void setBool(final String target, final String flag, final boolean value) {
+
+        getEvaluations(target).put(flag, boolEvaluation(flag, value));
+    }
+
+    public void remove(final String target, final String flag) {
+
+        getEvaluations(target).remove(flag);
+    }
+
+    /**
+     * @return Number of evaluation requests answered so far.
+     */
+    public int getRequests() {
+
+        return requests.get();
+    }
+
+    @Override
+    public ApiResponse getEvaluations(String target, String cluster) {
+
+        requests.incrementAndGet();
+        return new ApiResponse(200, "", new LinkedList<>(getEvaluations(target).values()));
+    }
+
+    @Override
+    public ApiResponse getEvaluations(String target, String cluster, String eTag) {
+
+        return getEvaluations(target, cluster);
+    }
+
+    @Override
+    public ApiResponse getEvaluationForId(String identifier, String target, String cluster) {
+
+        requests.incrementAndGet();
+        final Evaluation evaluation = getEvaluations(target).get(identifier);
+        if (evaluation == null) {
+
+            return new ApiResponse(404, "", null);
+        }
+        return new ApiResponse(200, "", evaluation);
+    }
+
+    @Override
+    public void getEvaluationsAsync(String target, String cluster, FeatureServiceCallback callback) {
+
+        callback.onResponse(getEvaluations(target, cluster));
+    }
+
+    @Override
+    public void getEvaluationsAsync(
+
+            String target,
+            String cluster,
+            String eTag,
+            FeatureServiceCallback callback
+    ) {
+
+        callback.onResponse(getEvaluations(target, cluster, eTag));
+    }
+
+    @Override
+    public void getEvaluationForIdAsync(
+
+            String identifier,
+            String target,
+            String cluster,
+            FeatureServiceCallback callback
+    ) {
+
+        callback.onResponse(getEvaluationForId(identifier, target, cluster));
+    }
+
+    private Map<String, Evaluation> getEvaluations(final String target) {
+
+        Map<String, Evaluation> items = evaluations.get(target);
+        if (items == null) {
+
+            evaluations.putIfAbsent(target, new ConcurrentHashMap<>());
+            items = evaluations.get(target);
+        }
+        return items;
+    }
+}
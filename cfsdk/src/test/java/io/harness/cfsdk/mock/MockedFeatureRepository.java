@@ -5,7 +5,11 @@ import java.util.LinkedList;
 import java.util.List;
 
 import io.harness.cfsdk.cloud.core.model.Evaluation;
+import io.harness.cfsdk.cloud.evaluator.Evaluator;
+import io.harness.cfsdk.cloud.model.Target;
 import io.harness.cfsdk.cloud.repository.FeatureRepository;
+import io.harness.cfsdk.cloud.repository.FetchCallback;
+import io.harness.cfsdk.cloud.snapshot.SnapshotHolder;
 
 public class MockedFeatureRepository implements FeatureRepository {
 
@@ -20,6 +24,7 @@ public class MockedFeatureRepository implements FeatureRepository {
         MOCK_NUMBER = "MOCK_NUMBER";
     }
 
+    private final SnapshotHolder snapshot;
     private final HashMap<String, Evaluation> mocks;
 
     {
@@ -43,6 +48,9 @@ public class MockedFeatureRepository implements FeatureRepository {
         mocks.put(MOCK_BOOL, boolEval);
         mocks.put(MOCK_STRING, stringEval);
         mocks.put(MOCK_NUMBER, numberEval);
+
+        snapshot = new SnapshotHolder();
+        snapshot.publish(mocks.values());
     }
 
     @Override
@@ -57,6 +65,62 @@ public class MockedFeatureRepository implements FeatureRepository {
         return new LinkedList<>(mocks.values());
     }
 
+    @Override
+    public void getEvaluationAsync(
+
+            String environment,
+            String target,
+            String evaluationId,
+            String cluster,
+            FetchCallback<Evaluation> callback
+    ) {
+
+        callback.onFetched(getEvaluation(environment, target, evaluationId, cluster));
+    }
+
+    @Override
+    public void getAllEvaluationsAsync(
+
+            String environment,
+            String target,
+            String cluster,
+            FetchCallback<List<Evaluation>> callback
+    ) {
+
+        callback.onFetched(getAllEvaluations(environment, target, cluster));
+    }
+
+    @Override
+    public Evaluator getEvaluator(String environment, String cluster) {
+
+        return null;
+    }
+
+    @Override
+    public List<Evaluation> evaluateAll(String environment, Target target, Evaluator evaluator) {
+
+        final List<Evaluation> evaluations = evaluator.evaluateAll(target);
+        snapshot.publish(evaluations);
+        return evaluations;
+    }
+
+    @Override
+    public SnapshotHolder getSnapshot(String environment, String target) {
+
+        return snapshot;
+    }
+
+    @Override
+    public SnapshotHolder pinSnapshot(String environment, String target) {
+
+        return snapshot;
+    }
+
+    @Override
+    public void unpinSnapshot(String environment, String target) {
+
+    }
+
     @Override
     public void remove(
 
@@ -65,11 +129,13 @@ public class MockedFeatureRepository implements FeatureRepository {
             String evaluationId) {
 
         mocks.remove(evaluationId);
+        snapshot.remove(evaluationId);
     }
 
     @Override
     public void clear() {
 
         mocks.clear();
+        snapshot.publish(mocks.values());
     }
 }
@@ -0,0 +1,57 @@
+package io.harness.cfsdk.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShardedLruCacheTest {
+
+    @Test
+    public void testCapacityIsBounded() {
+
+        final int capacity = 16;
+        final ShardedLruCache<Integer> cache = new ShardedLruCache<>(capacity);
+
+        for (int i = 0; i < 1000; i++) {
+
+            Assert.assertNull(cache.putIfAbsent("target-" + i, i));
+            Assert.assertTrue(cache.size() <= capacity);
+        }
+
+        Assert.assertEquals(cache.size(), cache.values().size());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+
+        final ShardedLruCache<String> cache = new ShardedLruCache<>(2);
+
+        Assert.assertNull(cache.putIfAbsent("a", "a"));
+        Assert.assertNull(cache.putIfAbsent("b", "b"));
+        Assert.assertEquals("a", cache.putIfAbsent("a", "other"));
+
+        Assert.assertEquals("a", cache.get("a"));
+        Assert.assertNull(cache.putIfAbsent("c", "c"));
+
+        Assert.assertEquals("a", cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals("c", cache.remove("c"));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testCapacityIsExact() {
+
+        for (int capacity = 1; capacity <= 40; capacity++) {
+
+            final ShardedLruCache<Integer> cache = new ShardedLruCache<>(capacity);
+            for (int i = 0; i < 1000; i++) {
+
+                cache.putIfAbsent("target-" + i, i);
+            }
+            Assert.assertEquals(capacity, cache.size());
+        }
+    }
+}